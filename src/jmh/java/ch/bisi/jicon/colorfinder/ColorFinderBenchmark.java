@@ -0,0 +1,61 @@
+package ch.bisi.jicon.colorfinder;
+
+import static ch.bisi.jicon.TestUtil.getResourceUrl;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link ColorFinder#findMainColor()} on the test fixtures. Only the first image of
+ * the ico files is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorFinderBenchmark {
+
+  @Param({"icon01.png", "icon02.png", "icon03.png", "icon04.png", "icon05.png", "icon06.png",
+      "icon07.png", "icon08.ico", "icon09.ico", "icon10.ico", "icon11.ico", "w3_schools.ico"})
+  private String fixture;
+
+  private BufferedImage image;
+
+  /**
+   * Decodes the fixture.
+   *
+   * @throws IOException in case of problems reading the fixture
+   */
+  @Setup
+  public void setUp() throws IOException {
+    image = ImageIO.read(getResourceUrl("/" + fixture));
+  }
+
+  /**
+   * Benchmarks {@link JiconColorFinder#findMainColor()}.
+   *
+   * @return the main {@link Color}
+   * @throws EmptyImageException if the fixture has no visible pixels
+   */
+  @Benchmark
+  public Color findMainColor() throws EmptyImageException {
+    return new JiconColorFinder(image).findMainColor();
+  }
+
+}
@@ -0,0 +1,73 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.TestUtil.getResourceUrl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the decoding of local icon files through {@link JiconIconFactory#getIcon(URL)} and
+ * {@link ImageUtil#executeOperationForEachEmbeddedImage(URL, ThrowableBiFunction)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JiconIconFactoryBenchmark {
+
+  @Param({"icon01.png", "icon08.ico", "icon11.ico", "w3_schools.ico"})
+  private String fixture;
+
+  private URL url;
+
+  /**
+   * Resolves the {@link URL} of the fixture.
+   */
+  @Setup
+  public void setUp() {
+    url = getResourceUrl("/" + fixture);
+  }
+
+  /**
+   * Benchmarks {@link JiconIconFactory#getIcon(URL)}.
+   *
+   * @return the {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException if the format of the fixture is not supported
+   * @throws IOException in case of problems reading the fixture
+   */
+  @Benchmark
+  public JiconIcon getIcon() throws ImageFormatNotSupportedException, IOException {
+    return JiconIconFactory.getIcon(url);
+  }
+
+  /**
+   * Benchmarks {@link ImageUtil#executeOperationForEachEmbeddedImage(URL, ThrowableBiFunction)}
+   * decoding every embedded image.
+   *
+   * @return the decoded images
+   * @throws ImageFormatNotSupportedException if the format of the fixture is not supported
+   * @throws IOException in case of problems reading the fixture
+   */
+  @Benchmark
+  public List<?> executeOperationForEachEmbeddedImage()
+      throws ImageFormatNotSupportedException, IOException {
+    return ImageUtil.executeOperationForEachEmbeddedImage(url, ImageReader::read);
+  }
+
+}
@@ -0,0 +1,54 @@
+package ch.bisi.jicon.common;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link LetterIcon#getImage()}, with an opaque background, composited from the glyph
+ * atlas, and with a translucent one, drawn through Java2D.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LetterIconBenchmark {
+
+  private static final Color TRANSLUCENT = new Color(0x80, 0x20, 0xC0, 0x80);
+
+  @Param({"16", "64", "256", "1024"})
+  private int size;
+
+  /**
+   * Benchmarks {@link LetterIcon#getImage()} with an opaque background.
+   *
+   * @return the {@link BufferedImage} of the icon
+   */
+  @Benchmark
+  public BufferedImage getImageOpaque() {
+    return new LetterIcon(size, 'J', Color.CYAN).getImage();
+  }
+
+  /**
+   * Benchmarks {@link LetterIcon#getImage()} with a translucent background.
+   *
+   * @return the {@link BufferedImage} of the icon
+   */
+  @Benchmark
+  public BufferedImage getImageTranslucent() {
+    return new LetterIcon(size, 'J', TRANSLUCENT).getImage();
+  }
+
+}
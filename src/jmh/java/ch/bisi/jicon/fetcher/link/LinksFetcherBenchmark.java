@@ -0,0 +1,99 @@
+package ch.bisi.jicon.fetcher.link;
+
+import static ch.bisi.jicon.TestUtil.getResourceStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the extraction of the favicons links from the html fixtures, through
+ * {@link JsoupFaviconsLinksFetcher} on an already parsed {@link Document}, parsing the whole
+ * page with Jsoup, and scanning only the head with {@link HeadFaviconsLinksFetcher}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinksFetcherBenchmark {
+
+  private static final String LOCATION = "http://www.example.com";
+
+  @Param({"newyorker.html", "daringfireball.html"})
+  private String fixture;
+
+  private String html;
+  private Document document;
+
+  /**
+   * Reads and parses the fixture.
+   *
+   * @throws IOException in case of problems reading the fixture
+   */
+  @Setup
+  public void setUp() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = getResourceStream("/" + fixture)) {
+      final byte[] buffer = new byte[8192];
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+        out.write(buffer, 0, read);
+      }
+    }
+    html = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    document = Jsoup.parse(html, LOCATION);
+  }
+
+  /**
+   * Benchmarks {@link JsoupFaviconsLinksFetcher#fetchLinks()} on the parsed {@link Document}.
+   *
+   * @return the favicons {@link URL}s
+   * @throws IOException in case of malformed links
+   */
+  @Benchmark
+  public List<URL> fetchLinks() throws IOException {
+    return new JsoupFaviconsLinksFetcher(document).fetchLinks();
+  }
+
+  /**
+   * Benchmarks {@link JsoupFaviconsLinksFetcher#fetchLinks()} including the parsing of the page.
+   *
+   * @return the favicons {@link URL}s
+   * @throws IOException in case of malformed links
+   */
+  @Benchmark
+  public List<URL> parseAndFetchLinks() throws IOException {
+    return new JsoupFaviconsLinksFetcher(Jsoup.parse(html, LOCATION)).fetchLinks();
+  }
+
+  /**
+   * Benchmarks {@link HeadFaviconsLinksFetcher}, which scans the page up to the end of the head.
+   *
+   * @return the favicons {@link URL}s
+   * @throws IOException in case of problems scanning the page
+   */
+  @Benchmark
+  public List<URL> scanHead() throws IOException {
+    return HeadFaviconsLinksFetcher.scan(new StringReader(html), new URL(LOCATION)).fetchLinks();
+  }
+
+}
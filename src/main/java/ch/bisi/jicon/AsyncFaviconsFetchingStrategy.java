@@ -0,0 +1,49 @@
+package ch.bisi.jicon;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * The asynchronous favicons fetching strategy.
+ * It has the single responsibility of retrieving the favicons of an {@link URL} without blocking
+ * the calling thread.
+ */
+@FunctionalInterface
+public interface AsyncFaviconsFetchingStrategy {
+
+  /**
+   * Starts retrieving the favicons of an {@link URL}.
+   *
+   * @param url the {@link URL} of an HTML document
+   * @return a {@link CompletableFuture} completed with the found favicons, or exceptionally with
+   *         an {@link IOException} in case of problems retrieving them
+   */
+  CompletableFuture<List<JiconIcon>> retrieveAll(URL url);
+
+  /**
+   * Adapts a blocking {@link FaviconsFetchingStrategy}, running it on an {@link Executor}, e.g.
+   * one of {@link ExecutionMode#VIRTUAL_THREADS}.
+   *
+   * @param faviconsFetchingStrategy the blocking {@link FaviconsFetchingStrategy}
+   * @param executor the {@link Executor} running the blocking fetches
+   * @return the {@link AsyncFaviconsFetchingStrategy}
+   */
+  static AsyncFaviconsFetchingStrategy of(final FaviconsFetchingStrategy faviconsFetchingStrategy,
+      final Executor executor) {
+    return url -> CompletableFuture.supplyAsync(() -> {
+      try {
+        return faviconsFetchingStrategy.getFaviconsFetcher(url).getIcons()
+            .collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+}
@@ -0,0 +1,94 @@
+package ch.bisi.jicon;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Options of the retrieval of the favicons of a batch of {@link java.net.URL}s: the limits of
+ * retrievals in flight, the maximum time given to the retrieval of each domain and the
+ * {@link ExecutionMode} of the retrievals.
+ */
+public final class BatchOptions {
+
+  private final int maxConcurrency;
+  private final int maxConcurrencyPerHost;
+  private final Duration timeout;
+  private final ExecutionMode executionMode;
+
+  /**
+   * Instantiates new {@link BatchOptions} running the retrievals on platform threads, without
+   * limiting their duration.
+   *
+   * @param maxConcurrency the maximum number of retrievals in flight
+   * @param maxConcurrencyPerHost the maximum number of retrievals in flight for the same host
+   * @throws IllegalArgumentException if one of the limits is not positive
+   */
+  public BatchOptions(final int maxConcurrency, final int maxConcurrencyPerHost) {
+    this(maxConcurrency, maxConcurrencyPerHost, null, ExecutionMode.PLATFORM_THREADS);
+  }
+
+  /**
+   * Instantiates new {@link BatchOptions}.
+   *
+   * @param maxConcurrency the maximum number of retrievals in flight
+   * @param maxConcurrencyPerHost the maximum number of retrievals in flight for the same host
+   * @param timeout the maximum duration of the retrieval of a domain, after which the retrieval
+   *        and the probes it started are interrupted and a failure is reported, or {@code null}
+   *        for not limiting it
+   * @param executionMode the {@link ExecutionMode} of the retrievals
+   * @throws IllegalArgumentException if one of the limits or the timeout is not positive
+   */
+  public BatchOptions(final int maxConcurrency, final int maxConcurrencyPerHost,
+      final Duration timeout, final ExecutionMode executionMode) {
+    checkLimits(maxConcurrency, maxConcurrencyPerHost);
+    checkTimeout(timeout);
+    this.maxConcurrency = maxConcurrency;
+    this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+    this.timeout = timeout;
+    this.executionMode = executionMode;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMaxConcurrencyPerHost() {
+    return maxConcurrencyPerHost;
+  }
+
+  /**
+   * Gets the maximum duration of the retrieval of a domain.
+   *
+   * @return an {@link Optional} {@link Duration}, empty if the duration is not limited
+   */
+  public Optional<Duration> getTimeout() {
+    return Optional.ofNullable(timeout);
+  }
+
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  private static void checkLimits(final int maxConcurrency, final int maxConcurrencyPerHost) {
+    if (maxConcurrency < 1 || maxConcurrencyPerHost < 1) {
+      throw new IllegalArgumentException("Concurrency limits must be positive: "
+          + maxConcurrency + ", " + maxConcurrencyPerHost);
+    }
+  }
+
+  private static void checkTimeout(final Duration timeout) {
+    if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+      throw new IllegalArgumentException("timeout must be positive: " + timeout);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BatchOptions{"
+        + "maxConcurrency=" + maxConcurrency
+        + ", maxConcurrencyPerHost=" + maxConcurrencyPerHost
+        + ", timeout=" + timeout
+        + ", executionMode=" + executionMode
+        + '}';
+  }
+}
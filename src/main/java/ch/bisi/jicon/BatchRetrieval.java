@@ -0,0 +1,354 @@
+package ch.bisi.jicon;
+
+import ch.bisi.jicon.common.Util;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retrieval of the favicons of a batch of {@link URL}s, one retrieval per domain, with a bounded
+ * number of retrievals in flight overall and for each host.
+ *
+ * <p>The {@link URL}s are consumed lazily by a dispatcher thread, which skips the domains already
+ * seen and waits while the global limit of retrievals is reached, so that arbitrarily long
+ * {@link Stream}s of {@link URL}s are processed with bounded memory, apart from the set of the
+ * seen domains. The retrievals of a host at its limit are queued and started as the running ones
+ * complete, without holding a thread. The {@link RetrievalResult}s are produced in completion
+ * order; when they are not consumed the retrievals stop once the global limit is reached.</p>
+ */
+final class BatchRetrieval {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchRetrieval.class);
+  private static final AtomicInteger batchCount = new AtomicInteger();
+
+  /**
+   * Marker following the last {@link RetrievalResult}.
+   */
+  private static final Object END = new Object();
+
+  private final FaviconsFetchingStrategy faviconsFetchingStrategy;
+  private final int maxConcurrency;
+  private final Duration timeout;
+  private final Semaphore permits;
+  private final BlockingQueue<Object> results;
+  private final ExecutorService executor;
+  private final ScheduledExecutorService scheduler;
+  private final HostLimiter hostLimiter;
+  private final Set<String> domains = new HashSet<>();
+
+  private final Thread dispatcher;
+  private volatile RuntimeException inputFailure;
+
+  /**
+   * Instantiates a new {@link BatchRetrieval}.
+   *
+   * @param faviconsFetchingStrategy the {@link FaviconsFetchingStrategy} retrieving the favicons
+   *        of each domain
+   * @param urls the {@link URL}s, consumed lazily
+   * @param options the {@link BatchOptions}
+   */
+  private BatchRetrieval(final FaviconsFetchingStrategy faviconsFetchingStrategy,
+      final Stream<URL> urls, final BatchOptions options) {
+    this.faviconsFetchingStrategy = faviconsFetchingStrategy;
+    this.maxConcurrency = options.getMaxConcurrency();
+    this.timeout = options.getTimeout().orElse(null);
+    this.permits = new Semaphore(maxConcurrency);
+    this.results = new ArrayBlockingQueue<>(maxConcurrency + 1);
+    final String name = "jicon-batch-" + batchCount.incrementAndGet();
+    this.executor = options.getExecutionMode().newExecutor(name, maxConcurrency);
+    this.hostLimiter = new HostLimiter(executor, options.getMaxConcurrencyPerHost());
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory(name + "-deadlines"));
+    this.dispatcher = new DaemonThreadFactory(name + "-dispatcher")
+        .newThread(() -> dispatch(urls.iterator()));
+  }
+
+  /**
+   * Starts retrieving the favicons of a batch of {@link URL}s.
+   *
+   * @param faviconsFetchingStrategy the {@link FaviconsFetchingStrategy} retrieving the favicons
+   *        of each domain
+   * @param urls the {@link URL}s, consumed lazily
+   * @param options the {@link BatchOptions}
+   * @return the {@link Stream} of the {@link RetrievalResult}s in completion order, which stops
+   *         all the retrievals when closed
+   * @throws UnsupportedOperationException if the runtime does not support the
+   *         {@link ExecutionMode} of the options
+   */
+  static Stream<RetrievalResult> start(final FaviconsFetchingStrategy faviconsFetchingStrategy,
+      final Stream<URL> urls, final BatchOptions options) {
+    final BatchRetrieval batch = new BatchRetrieval(faviconsFetchingStrategy, urls, options);
+    batch.dispatcher.start();
+    return StreamSupport.stream(batch.new ResultsSpliterator(), false).onClose(batch::cancel);
+  }
+
+  /**
+   * Starts a retrieval for the first {@link URL} of each domain, then waits for all the
+   * retrievals to complete.
+   *
+   * @param urls the {@link Iterator} over the {@link URL}s
+   */
+  private void dispatch(final Iterator<URL> urls) {
+    try {
+      dispatchAll(urls);
+      permits.acquire(maxConcurrency);
+      results.put(END);
+    } catch (InterruptedException e) {
+      logger.debug("Batch retrieval cancelled", e);
+    } finally {
+      executor.shutdown();
+      scheduler.shutdownNow();
+    }
+  }
+
+  /**
+   * Starts a retrieval for the first {@link URL} of each domain, waiting while the global limit
+   * of retrievals is reached. Exceptions thrown while consuming the {@link URL}s are rethrown to
+   * the consumer of the {@link RetrievalResult}s after the last one.
+   *
+   * @param urls the {@link Iterator} over the {@link URL}s
+   * @throws InterruptedException if the batch is cancelled
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void dispatchAll(final Iterator<URL> urls) throws InterruptedException {
+    try {
+      while (urls.hasNext()) {
+        final URL url = urls.next();
+        final String domain = getDomain(url);
+        if (domains.add(domain)) {
+          permits.acquire();
+          submit(url, domain);
+        }
+      }
+    } catch (RuntimeException e) {
+      inputFailure = e;
+    }
+  }
+
+  /**
+   * Starts the retrieval of a domain, or queues it if its host is at its limit.
+   *
+   * @param url the {@link URL} of the domain
+   * @param domain the domain
+   */
+  private void submit(final URL url, final String domain) {
+    hostLimiter.submit(url.getHost(), () -> retrieve(url, domain));
+  }
+
+  /**
+   * Retrieves the favicons of a domain and publishes the {@link RetrievalResult}, then starts the
+   * next retrieval queued for the same host. The permits of the retrieval are released whatever
+   * happens, so that a failed retrieval never stalls the batch.
+   *
+   * @param url the {@link URL} of the domain
+   * @param domain the domain
+   */
+  private void retrieve(final URL url, final String domain) {
+    try {
+      results.put(getResultWithinTimeout(url, domain));
+    } catch (InterruptedException e) {
+      logger.debug("Retrieval of {} cancelled", domain, e);
+    } finally {
+      hostLimiter.complete(url.getHost());
+      permits.release();
+    }
+  }
+
+  /**
+   * Retrieves the favicons of a domain, interrupting the retrieval and reporting a failure if it
+   * does not complete within the timeout. Interrupting the retrieval cancels the probes it is
+   * waiting for and, on virtual threads, aborts its blocking I/O.
+   *
+   * @param url the {@link URL} of the domain
+   * @param domain the domain
+   * @return the {@link RetrievalResult}
+   */
+  private RetrievalResult getResultWithinTimeout(final URL url, final String domain) {
+    if (timeout == null) {
+      return getResult(url, domain);
+    }
+    final Deadline deadline = new Deadline(Thread.currentThread());
+    final ScheduledFuture<?> expiration = scheduler.schedule(deadline::expire,
+        timeout.toNanos(), TimeUnit.NANOSECONDS);
+    final RetrievalResult result = getResult(url, domain);
+    expiration.cancel(false);
+    if (!deadline.finish()) {
+      return result;
+    }
+    return RetrievalResult.failure(url, domain, (InterruptedIOException) new InterruptedIOException(
+        "Retrieval of " + domain + " did not complete within " + timeout)
+        .initCause(result.getFailure().orElse(null)));
+  }
+
+  /**
+   * Retrieves the favicons of a domain. {@link Error}s thrown by the retrieval are reported as
+   * failures too, wrapped in an {@link ExecutionException}, so that the consumer gets a result
+   * for each domain.
+   *
+   * @param url the {@link URL} of the domain
+   * @param domain the domain
+   * @return the {@link RetrievalResult}
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private RetrievalResult getResult(final URL url, final String domain) {
+    try {
+      return RetrievalResult.success(url, domain, faviconsFetchingStrategy.getFaviconsFetcher(url)
+          .getIcons().collect(Collectors.toList()));
+    } catch (Exception e) {
+      logger.debug("Favicons of {} could not be retrieved", domain, e);
+      return RetrievalResult.failure(url, domain, e);
+    } catch (Error e) {
+      logger.warn("Retrieval of the favicons of {} failed", domain, e);
+      return RetrievalResult.failure(url, domain, new ExecutionException(e));
+    }
+  }
+
+  /**
+   * Stops the dispatching and the running retrievals.
+   */
+  private void cancel() {
+    dispatcher.interrupt();
+    executor.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Gets the domain of an {@link URL}, falling back to the string representation of the
+   * {@link URL} if it cannot be built.
+   *
+   * @param url the {@link URL}
+   * @return the domain
+   */
+  private static String getDomain(final URL url) {
+    try {
+      return Util.getDomain(url);
+    } catch (MalformedURLException e) {
+      logger.debug("Cannot get the domain of {}", url, e);
+      return url.toString();
+    }
+  }
+
+  /**
+   * Deadline of a retrieval, interrupting the thread running it when it expires.
+   */
+  private static final class Deadline {
+
+    private final Thread thread;
+    private boolean finished;
+    private boolean expired;
+
+    /**
+     * Instantiates a new {@link Deadline}.
+     *
+     * @param thread the {@link Thread} running the retrieval
+     */
+    private Deadline(final Thread thread) {
+      this.thread = thread;
+    }
+
+    /**
+     * Interrupts the retrieval, unless it has already finished.
+     */
+    private synchronized void expire() {
+      if (!finished) {
+        expired = true;
+        thread.interrupt();
+      }
+    }
+
+    /**
+     * Marks the retrieval as finished, clearing the interruption of the current thread if the
+     * deadline has expired. Called by the thread running the retrieval.
+     *
+     * @return {@code true} if the deadline has expired, {@code false} otherwise
+     */
+    private synchronized boolean finish() {
+      finished = true;
+      if (expired) {
+        Thread.interrupted();
+      }
+      return expired;
+    }
+
+  }
+
+  /**
+   * {@link Spliterator} waiting for the {@link RetrievalResult}s as they are published.
+   */
+  private final class ResultsSpliterator extends Spliterators.AbstractSpliterator<RetrievalResult> {
+
+    private boolean ended;
+
+    /**
+     * Instantiates a new {@link ResultsSpliterator}.
+     */
+    private ResultsSpliterator() {
+      super(Long.MAX_VALUE, Spliterator.NONNULL);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super RetrievalResult> action) {
+      if (ended) {
+        return false;
+      }
+      final Object result = take();
+      if (result == END) {
+        ended = true;
+        rethrowInputFailure();
+        return false;
+      }
+      action.accept((RetrievalResult) result);
+      return true;
+    }
+
+    /**
+     * Rethrows the exception thrown while consuming the {@link URL}s, if any.
+     */
+    private void rethrowInputFailure() {
+      if (inputFailure != null) {
+        throw inputFailure;
+      }
+    }
+
+    /**
+     * Waits for the next {@link RetrievalResult}.
+     *
+     * @return the {@link RetrievalResult} or {@link #END}
+     */
+    private Object take() {
+      try {
+        return results.take();
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new UncheckedIOException((InterruptedIOException) new InterruptedIOException(
+            "Interrupted while waiting for the favicons").initCause(e));
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,53 @@
+package ch.bisi.jicon;
+
+import ch.bisi.jicon.cache.FaviconsCache;
+import ch.bisi.jicon.common.Util;
+import ch.bisi.jicon.fetcher.icon.IconsFetcher;
+import java.io.IOException;
+import java.net.URL;
+import java.util.stream.Collectors;
+
+/**
+ * Favicons fetching strategy caching the favicons found by another
+ * {@link FaviconsFetchingStrategy} in a {@link FaviconsCache}, keyed by the domain of the
+ * {@link URL}.
+ *
+ * <p>The favicons of a domain are fetched by the other strategy only on a cache miss, so that
+ * {@link Jicon#retrieveAll(URL)} and {@link Jicon#getLetterIcon} do not repeat the html fetch,
+ * the links extraction and the icons probing for domains looked up recently.</p>
+ */
+public class CachingFaviconsFetchingStrategy implements FaviconsFetchingStrategy {
+
+  private final FaviconsFetchingStrategy faviconsFetchingStrategy;
+  private final FaviconsCache cache;
+
+  /**
+   * Instantiates a new {@link CachingFaviconsFetchingStrategy}.
+   *
+   * @param faviconsFetchingStrategy the {@link FaviconsFetchingStrategy} fetching the favicons
+   *        on a cache miss
+   * @param cache the {@link FaviconsCache}
+   */
+  public CachingFaviconsFetchingStrategy(final FaviconsFetchingStrategy faviconsFetchingStrategy,
+      final FaviconsCache cache) {
+    this.faviconsFetchingStrategy = faviconsFetchingStrategy;
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the {@link FaviconsCache}, e.g. for reading its counters.
+   *
+   * @return the {@link FaviconsCache}
+   */
+  public FaviconsCache getCache() {
+    return cache;
+  }
+
+  @Override
+  public IconsFetcher getFaviconsFetcher(final URL url) throws IOException {
+    final String domain = Util.getDomain(url);
+    return () -> cache.get(domain, () -> faviconsFetchingStrategy.getFaviconsFetcher(url)
+        .getIcons().collect(Collectors.toList())).stream();
+  }
+
+}
@@ -0,0 +1,31 @@
+package ch.bisi.jicon;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ThreadFactory} of daemon platform threads, named after a prefix and a sequence number, so
+ * that the threads of Jicon do not prevent the JVM from exiting.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+  private final String name;
+  private final AtomicInteger threadCount = new AtomicInteger();
+
+  /**
+   * Instantiates a new {@link DaemonThreadFactory}.
+   *
+   * @param name the prefix of the names of the threads
+   */
+  DaemonThreadFactory(final String name) {
+    this.name = name;
+  }
+
+  @Override
+  public Thread newThread(final Runnable runnable) {
+    final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+}
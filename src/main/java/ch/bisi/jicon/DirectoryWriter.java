@@ -0,0 +1,216 @@
+package ch.bisi.jicon;
+
+import static ch.bisi.jicon.common.ImageUtil.writeEmbeddedImagesToFiles;
+
+import ch.bisi.jicon.common.ImageFormatNotSupportedException;
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Saving of {@link JiconIcon}s in a directory, one file per icon or per embedded image.
+ *
+ * <p>The icons are saved concurrently on a bounded pool of its own, each one to its own files, so
+ * that saving from a callback of the asynchronous API cannot starve the {@link Executor} running
+ * it. The bytes of an icon file are transferred to the target file as they are, through
+ * {@link FileChannel}s, without going through ImageIO; the embedded images are decoded and
+ * written one at a time. Once saving an icon fails, the icons not started yet are skipped, and
+ * the failure is thrown after the icons being saved are done.</p>
+ */
+final class DirectoryWriter {
+
+  /**
+   * The maximum number of bytes transferred to a file at once.
+   */
+  private static final long TRANSFER_BYTES = 64 * 1024;
+
+  /**
+   * The {@link Executor} saving the icons.
+   */
+  private static final Executor WRITER_EXECUTOR = Futures.newBoundedExecutor(
+      Math.max(2, Runtime.getRuntime().availableProcessors()), "jicon-writer");
+
+  private final Path directory;
+
+  /**
+   * Instantiates a new {@link DirectoryWriter}.
+   *
+   * @param targetDirPath the directory where to save the files
+   * @throws NotDirectoryException if the target path is not a directory
+   */
+  DirectoryWriter(final String targetDirPath) throws NotDirectoryException {
+    this.directory = Paths.get(targetDirPath);
+    if (!Files.isDirectory(directory)) {
+      throw new NotDirectoryException(targetDirPath);
+    }
+  }
+
+  /**
+   * Saves the file of each {@link JiconIcon} in a file named after its index in the list and the
+   * name of its {@link URL}.
+   *
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @throws IOException in case of problems reading the icons or writing the files
+   */
+  void save(final List<JiconIcon> icons) throws IOException {
+    try {
+      forEachIcon(icons, this::save);
+    } catch (ImageFormatNotSupportedException e) {
+      throw new IllegalStateException("Icons saved without decoding them", e);
+    }
+  }
+
+  /**
+   * Saves the file of a {@link JiconIcon}, transferring the kept bytes if any, or else the
+   * fetched ones.
+   *
+   * @param index the index of the icon in the list
+   * @param icon the {@link JiconIcon}
+   * @throws IOException in case of problems reading the icon or writing the file
+   */
+  private void save(final int index, final JiconIcon icon) throws IOException {
+    final Path target = directory.resolve(index + "_" + getFileName(icon));
+    try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      final Optional<ByteBuffer> payload = icon.getPayload();
+      if (payload.isPresent()) {
+        write(payload.get(), out);
+      } else {
+        try (ReadableByteChannel in = Channels.newChannel(icon.openStream())) {
+          transfer(in, out);
+        }
+      }
+    }
+  }
+
+  /**
+   * Saves each image embedded in the file of each {@link JiconIcon} in a file named after the
+   * index of the icon in the list, the index of the image within the file and the name of the
+   * {@link URL} of the icon.
+   *
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @throws IOException in case of problems reading the icons or writing the files
+   * @throws ImageFormatNotSupportedException if the format of some of the icons is not supported
+   */
+  void saveEachEmbeddedImage(final List<JiconIcon> icons)
+      throws IOException, ImageFormatNotSupportedException {
+    forEachIcon(icons, (index, icon) -> writeEmbeddedImagesToFiles(icon,
+        image -> directory.resolve(index + "_" + image + "_" + getFileName(icon)).toString()));
+  }
+
+  /**
+   * Runs a task for each {@link JiconIcon} on the writer pool, then waits for all the tasks to
+   * complete. If a task fails or the current thread is interrupted, the tasks not started yet are
+   * skipped and the running ones are waited for before throwing.
+   *
+   * @param icons the {@link List} of {@link JiconIcon}s
+   * @param task the {@link IconTask}
+   * @throws IOException the {@link IOException} thrown by one of the tasks, or an
+   *         {@link java.io.InterruptedIOException} if the current thread is interrupted
+   * @throws ImageFormatNotSupportedException if one of the tasks does not support the format of
+   *         its icon
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  private void forEachIcon(final List<JiconIcon> icons, final IconTask task)
+      throws IOException, ImageFormatNotSupportedException {
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    final CompletableFuture<?>[] tasks = IntStream.range(0, icons.size())
+        .mapToObj(index -> CompletableFuture.runAsync(
+            () -> run(task, index, icons.get(index), cancelled), WRITER_EXECUTOR))
+        .toArray(CompletableFuture[]::new);
+    try {
+      Futures.await(CompletableFuture.allOf(tasks));
+    } catch (IOException e) {
+      cancelled.set(true);
+      CompletableFuture.allOf(tasks).handle((result, failure) -> result).join();
+      if (e.getCause() instanceof ImageFormatNotSupportedException) {
+        throw (ImageFormatNotSupportedException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the task of an icon unless the saving has been cancelled, cancelling it if the task
+   * fails.
+   *
+   * @param task the {@link IconTask}
+   * @param index the index of the icon in the list
+   * @param icon the {@link JiconIcon}
+   * @param cancelled whether the saving has been cancelled
+   */
+  private static void run(final IconTask task, final int index, final JiconIcon icon,
+      final AtomicBoolean cancelled) {
+    if (cancelled.get()) {
+      return;
+    }
+    try {
+      task.run(index, icon);
+    } catch (IOException | ImageFormatNotSupportedException e) {
+      cancelled.set(true);
+      throw new CompletionException(e);
+    }
+  }
+
+  private static void write(final ByteBuffer bytes, final FileChannel out) throws IOException {
+    while (bytes.hasRemaining()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void transfer(final ReadableByteChannel in, final FileChannel out)
+      throws IOException {
+    long position = 0;
+    long transferred;
+    do {
+      transferred = out.transferFrom(in, position, TRANSFER_BYTES);
+      position += transferred;
+    } while (transferred > 0);
+  }
+
+  /**
+   * Gets the name of the file of a {@link JiconIcon}, that is the last segment of its
+   * {@link URL}.
+   *
+   * @param icon the {@link JiconIcon}
+   * @return the file name
+   */
+  private static Path getFileName(final JiconIcon icon) {
+    return Paths.get(icon.getUrl().toString()).getFileName();
+  }
+
+  /**
+   * Task saving the files of a {@link JiconIcon}.
+   */
+  @FunctionalInterface
+  private interface IconTask {
+
+    /**
+     * Saves the files of a {@link JiconIcon}.
+     *
+     * @param index the index of the icon in the list
+     * @param icon the {@link JiconIcon}
+     * @throws IOException in case of problems reading the icon or writing the files
+     * @throws ImageFormatNotSupportedException if the format of the icon is not supported
+     */
+    void run(int index, JiconIcon icon) throws IOException, ImageFormatNotSupportedException;
+
+  }
+
+}
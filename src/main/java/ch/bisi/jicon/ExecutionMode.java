@@ -0,0 +1,62 @@
+package ch.bisi.jicon;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The kind of threads running the blocking fetches of Jicon, e.g. the retrievals of a batch or
+ * the probes of a {@link ch.bisi.jicon.fetcher.icon.ConcurrentFaviconsFetcher}.
+ */
+public enum ExecutionMode {
+
+  /**
+   * A bounded pool of platform (daemon) threads, available on every runtime.
+   */
+  PLATFORM_THREADS {
+    @Override
+    public boolean isSupported() {
+      return true;
+    }
+
+    @Override
+    public ExecutorService newExecutor(final String threadName, final int maxThreads) {
+      return Executors.newFixedThreadPool(maxThreads, new DaemonThreadFactory(threadName));
+    }
+  },
+
+  /**
+   * A new virtual thread for each task, available on Java 21 and later. Blocking on I/O does not
+   * hold a platform thread, and interrupting a virtual thread blocked on a socket aborts the
+   * I/O operation, so that tens of thousands of fetches can be in flight and cancelled.
+   */
+  VIRTUAL_THREADS {
+    @Override
+    public boolean isSupported() {
+      return VirtualThreads.isSupported();
+    }
+
+    @Override
+    public ExecutorService newExecutor(final String threadName, final int maxThreads) {
+      return VirtualThreads.newExecutor(threadName);
+    }
+  };
+
+  /**
+   * Checks whether the current runtime supports this mode.
+   *
+   * @return {@code true} if the mode is supported, {@code false} otherwise
+   */
+  public abstract boolean isSupported();
+
+  /**
+   * Creates an {@link ExecutorService} running its tasks on threads of this mode.
+   *
+   * @param threadName the prefix of the names of the threads
+   * @param maxThreads the maximum number of threads of a pool, ignored by the modes starting a
+   *        thread for each task, for which the callers bound the number of submitted tasks
+   * @return the {@link ExecutorService}
+   * @throws UnsupportedOperationException if the current runtime does not support this mode
+   */
+  public abstract ExecutorService newExecutor(String threadName, int maxThreads);
+
+}
@@ -0,0 +1,82 @@
+package ch.bisi.jicon;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support for the asynchronous API and for waiting for {@link CompletableFuture}s from the
+ * blocking one.
+ */
+final class Futures {
+
+  /**
+   * The number of threads of the {@link #DEFAULT_EXECUTOR}.
+   */
+  static final int DEFAULT_POOL_SIZE = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+
+  /**
+   * The {@link Executor} running the blocking steps of the asynchronous API, unless another one
+   * is given. The steps still block a thread each, e.g. while downloading a favicon, so at most
+   * {@link #DEFAULT_POOL_SIZE} of them run at once and the others wait in an unbounded queue. The
+   * idle threads are stopped after a minute.
+   */
+  static final Executor DEFAULT_EXECUTOR = newBoundedExecutor(DEFAULT_POOL_SIZE, "jicon-async");
+
+  private Futures() {
+    // hide public constructor
+  }
+
+  /**
+   * Creates an {@link Executor} of at most a given number of daemon threads, queueing the tasks
+   * submitted while all of them are busy and stopping them after a minute of idleness.
+   *
+   * @param poolSize the maximum number of threads
+   * @param name the prefix of the names of the threads
+   * @return the {@link Executor}
+   */
+  static Executor newBoundedExecutor(final int poolSize, final String name) {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 1,
+        TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new DaemonThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Waits for the result of a {@link CompletableFuture}, cancelling it if the current thread is
+   * interrupted.
+   *
+   * @param future the {@link CompletableFuture}
+   * @param <T> the type of the result
+   * @return the result
+   * @throws IOException the {@link IOException} completing the future exceptionally, an
+   *         {@link IOException} wrapping any other failure, or an {@link InterruptedIOException}
+   *         if the current thread is interrupted while waiting
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  static <T> T await(final CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException("Interrupted while waiting for the favicons")
+          .initCause(e);
+    } catch (ExecutionException e) {
+      throw toIoException(e.getCause());
+    }
+  }
+
+  private static IOException toIoException(final Throwable failure) {
+    if (failure instanceof IOException) {
+      return (IOException) failure;
+    }
+    return new IOException(failure);
+  }
+
+}
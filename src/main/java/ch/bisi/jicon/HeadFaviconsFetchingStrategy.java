@@ -0,0 +1,117 @@
+package ch.bisi.jicon;
+
+import ch.bisi.jicon.common.Util;
+import ch.bisi.jicon.fetcher.icon.FaviconsFetcher;
+import ch.bisi.jicon.fetcher.icon.IconsFetcher;
+import ch.bisi.jicon.fetcher.link.HeadFaviconsLinksFetcher;
+import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import ch.bisi.jicon.http.HttpResponse;
+import ch.bisi.jicon.http.HttpTransport;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Favicons fetching strategy which streams the html page at the {@link URL} and only scans its
+ * {@code <head>} with a {@link HeadFaviconsLinksFetcher}.
+ *
+ * <p>Unlike the {@link JsoupFaviconsFetchingStrategy}, which downloads and parses the whole page,
+ * the page is closed as soon as {@code </head>} or {@code <body>} is read, which saves
+ * bandwidth, parsing time and memory on large pages. Favicons declared outside the
+ * {@code <head>} are not found.</p>
+ *
+ * <p>The page is fetched through an {@link HttpTransport}, which follows the redirects, and is
+ * decoded with the charset of its {@code Content-Type}, falling back to UTF-8.</p>
+ */
+public class HeadFaviconsFetchingStrategy implements FaviconsFetchingStrategy {
+
+  /**
+   * The default connect and read timeout, the same as the {@link org.jsoup.Jsoup} one.
+   */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+  private final BiFunction<LinksFetcher, HttpTransport, IconsFetcher> iconsFetcherFactory;
+  private final Duration timeout;
+  private final HttpTransport transport;
+
+  /**
+   * Instantiates a new {@link HeadFaviconsFetchingStrategy} probing the favicons {@link URL}s
+   * with a {@link FaviconsFetcher}.
+   */
+  public HeadFaviconsFetchingStrategy() {
+    this(HttpTransport.getDefault());
+  }
+
+  /**
+   * Instantiates a new {@link HeadFaviconsFetchingStrategy} fetching the page and the favicons
+   * through the given {@link HttpTransport}, probing the favicons {@link URL}s with a
+   * {@link FaviconsFetcher}.
+   *
+   * @param transport the {@link HttpTransport} fetching the page and the favicons
+   */
+  public HeadFaviconsFetchingStrategy(final HttpTransport transport) {
+    this(FaviconsFetcher.factory(), DEFAULT_TIMEOUT, transport);
+  }
+
+  /**
+   * Instantiates a new {@link HeadFaviconsFetchingStrategy} probing the favicons {@link URL}s
+   * with the {@link IconsFetcher} built by the given factory.
+   *
+   * @param iconsFetcherFactory the function building the {@link IconsFetcher} from the
+   *        {@link LinksFetcher} of the scanned page
+   */
+  public HeadFaviconsFetchingStrategy(
+      final Function<LinksFetcher, IconsFetcher> iconsFetcherFactory) {
+    this(iconsFetcherFactory, DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Instantiates a new {@link HeadFaviconsFetchingStrategy} probing the favicons {@link URL}s
+   * with the {@link IconsFetcher} built by the given factory.
+   *
+   * @param iconsFetcherFactory the function building the {@link IconsFetcher} from the
+   *        {@link LinksFetcher} of the scanned page
+   * @param timeout the connect and read timeout used when fetching the page
+   */
+  public HeadFaviconsFetchingStrategy(
+      final Function<LinksFetcher, IconsFetcher> iconsFetcherFactory, final Duration timeout) {
+    this((linksFetcher, transport) -> iconsFetcherFactory.apply(linksFetcher), timeout,
+        HttpTransport.getDefault());
+  }
+
+  /**
+   * Instantiates a new {@link HeadFaviconsFetchingStrategy} fetching the page through the given
+   * {@link HttpTransport} and probing the favicons {@link URL}s with the {@link IconsFetcher}
+   * built by the given factory, which is given the same {@link HttpTransport} for fetching the
+   * favicons.
+   *
+   * @param iconsFetcherFactory the function building the {@link IconsFetcher} from the
+   *        {@link LinksFetcher} of the scanned page and the {@link HttpTransport}
+   * @param timeout the connect and read timeout used when fetching the page
+   * @param transport the {@link HttpTransport} fetching the page and the favicons
+   */
+  public HeadFaviconsFetchingStrategy(
+      final BiFunction<LinksFetcher, HttpTransport, IconsFetcher> iconsFetcherFactory,
+      final Duration timeout, final HttpTransport transport) {
+    this.iconsFetcherFactory = iconsFetcherFactory;
+    this.timeout = timeout;
+    this.transport = transport;
+  }
+
+  @Override
+  public IconsFetcher getFaviconsFetcher(final URL url) throws IOException {
+    try (HttpResponse response = transport.get(Util.getOrigin(url), timeout)) {
+      final HeadFaviconsLinksFetcher linksFetcher = HeadFaviconsLinksFetcher.scan(
+          new BufferedReader(new InputStreamReader(response.getBody(),
+              response.getCharset().orElse(StandardCharsets.UTF_8))),
+          response.getUrl());
+      return iconsFetcherFactory.apply(linksFetcher, transport);
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+package ch.bisi.jicon;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limiter of the tasks running at the same time for each host. The tasks of a host at its limit
+ * are queued, without holding a thread, and started as the running ones complete.
+ */
+final class HostLimiter {
+
+  private static final Logger logger = LoggerFactory.getLogger(HostLimiter.class);
+
+  private final Executor executor;
+  private final int maxConcurrencyPerHost;
+
+  /**
+   * The running and queued tasks of each host with running tasks, guarded by itself.
+   **/
+  private final Map<String, HostTasks> hosts = new HashMap<>();
+
+  /**
+   * Instantiates a new {@link HostLimiter}.
+   *
+   * @param executor the {@link Executor} running the tasks
+   * @param maxConcurrencyPerHost the maximum number of tasks running for the same host
+   */
+  HostLimiter(final Executor executor, final int maxConcurrencyPerHost) {
+    this.executor = executor;
+    this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+  }
+
+  /**
+   * Starts a task of a host, or queues it if the host is at its limit. The task must call
+   * {@link #complete(String)} when done.
+   *
+   * @param host the name of the host
+   * @param task the task
+   */
+  void submit(final String host, final Runnable task) {
+    synchronized (hosts) {
+      final HostTasks tasks = hosts.computeIfAbsent(host, name -> new HostTasks());
+      if (tasks.running < maxConcurrencyPerHost) {
+        tasks.running++;
+        execute(task);
+      } else {
+        tasks.queued.add(task);
+      }
+    }
+  }
+
+  /**
+   * Completes a task of a host, starting the next queued one if any.
+   *
+   * @param host the name of the host
+   */
+  void complete(final String host) {
+    synchronized (hosts) {
+      final HostTasks tasks = hosts.get(host);
+      final Runnable next = tasks.queued.poll();
+      if (next != null) {
+        execute(next);
+      } else if (--tasks.running == 0) {
+        hosts.remove(host);
+      }
+    }
+  }
+
+  /**
+   * Runs a task on the executor, unless the executor has been shut down.
+   *
+   * @param task the task
+   */
+  private void execute(final Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      logger.debug("Task not started, the executor has been shut down", e);
+    }
+  }
+
+  /**
+   * The running and queued tasks of a host.
+   */
+  private static final class HostTasks {
+
+    private final Queue<Runnable> queued = new ArrayDeque<>();
+    private int running;
+
+  }
+
+}
@@ -1,54 +1,89 @@
 package ch.bisi.jicon;
 
-import static ch.bisi.jicon.common.ImageUtil.executeOperationForEachEmbeddedImage;
-import static ch.bisi.jicon.common.ImageUtil.writeImagesToFiles;
-
 import ch.bisi.jicon.colorfinder.EmptyImageException;
 import ch.bisi.jicon.colorfinder.JiconColorFinder;
+import ch.bisi.jicon.colorfinder.SamplingPolicy;
 import ch.bisi.jicon.common.ImageFormatNotSupportedException;
+import ch.bisi.jicon.common.ImageUtil;
 import ch.bisi.jicon.common.JiconIcon;
 import ch.bisi.jicon.common.LetterIcon;
 import ch.bisi.jicon.common.Util;
+import ch.bisi.jicon.fetcher.icon.IconSelector;
+import ch.bisi.jicon.store.SegmentBlobStore;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.NotDirectoryException;
-import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.stream.Stream;
 
 /**
  * The core public access point to the Jicon functionality.
  */
 public final class Jicon {
 
-  private static final Logger logger = LoggerFactory.getLogger(Jicon.class);
-
   private final FaviconsFetchingStrategy faviconsFetchingStrategy;
+  private final AsyncFaviconsFetchingStrategy asyncFaviconsFetchingStrategy;
+  private final Executor executor;
 
   /**
    * Constructor which build a new {@link Jicon} instance using the default
    * {@link JsoupFaviconsFetchingStrategy}.
    */
   public Jicon() {
-    this.faviconsFetchingStrategy = new JsoupFaviconsFetchingStrategy();
+    this(new JsoupFaviconsFetchingStrategy());
   }
 
   /**
-   * Constructor which allows to specify a {@link FaviconsFetchingStrategy}.
+   * Constructor which allows to specify a {@link FaviconsFetchingStrategy}. The asynchronous
+   * methods run it on a shared pool with a bounded number of threads, each blocked while a
+   * retrieval is in progress; give an {@link Executor} to control how many run at once.
    * @param faviconsFetchingStrategy the favicons fetching strategy
    */
   public Jicon(final FaviconsFetchingStrategy faviconsFetchingStrategy) {
+    this(faviconsFetchingStrategy, Futures.DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * Constructor which allows to specify a {@link FaviconsFetchingStrategy} and the
+   * {@link Executor} on which the asynchronous methods run it.
+   *
+   * @param faviconsFetchingStrategy the favicons fetching strategy
+   * @param executor the {@link Executor} running the blocking steps of the asynchronous methods
+   */
+  public Jicon(final FaviconsFetchingStrategy faviconsFetchingStrategy, final Executor executor) {
+    this(faviconsFetchingStrategy,
+        AsyncFaviconsFetchingStrategy.of(faviconsFetchingStrategy, executor), executor);
+  }
+
+  private Jicon(final FaviconsFetchingStrategy faviconsFetchingStrategy,
+      final AsyncFaviconsFetchingStrategy asyncFaviconsFetchingStrategy,
+      final Executor executor) {
     this.faviconsFetchingStrategy = faviconsFetchingStrategy;
+    this.asyncFaviconsFetchingStrategy = asyncFaviconsFetchingStrategy;
+    this.executor = executor;
+  }
+
+  /**
+   * Builds a new {@link Jicon} instance retrieving the favicons with an
+   * {@link AsyncFaviconsFetchingStrategy}. The synchronous methods wait for its results.
+   *
+   * @param asyncFaviconsFetchingStrategy the asynchronous favicons fetching strategy
+   * @param executor the {@link Executor} running the blocking steps which follow the retrieval of
+   *        the favicons, e.g. finding the main color of a favicon
+   * @return the {@link Jicon} instance
+   */
+  public static Jicon ofAsync(final AsyncFaviconsFetchingStrategy asyncFaviconsFetchingStrategy,
+      final Executor executor) {
+    return new Jicon(
+        url -> () -> Futures.await(asyncFaviconsFetchingStrategy.retrieveAll(url)).stream(),
+        asyncFaviconsFetchingStrategy, executor);
   }
 
   /**
@@ -62,6 +97,89 @@ public final class Jicon {
     return faviconsFetchingStrategy.getFaviconsFetcher(url).getIcons().collect(Collectors.toList());
   }
 
+  /**
+   * Retrieves the favicons of a batch of {@link URL}s, once for each domain, with a bounded number
+   * of retrievals in flight overall and for each host.
+   *
+   * <p>The {@link URL}s are consumed lazily, as the retrievals complete, and the returned
+   * {@link Stream} produces a {@link RetrievalResult}, holding either the favicons or the failure,
+   * for the first {@link URL} of each domain as soon as it is available. The returned
+   * {@link Stream} should be closed if it is not consumed until its end, so that the remaining
+   * retrievals are stopped.</p>
+   *
+   * @param urls the {@link URL}s of HTML documents
+   * @param options the {@link BatchOptions}, e.g. the limits of retrievals in flight
+   * @return the {@link Stream} of the {@link RetrievalResult}s, in completion order
+   * @throws UnsupportedOperationException if the runtime does not support the
+   *         {@link ExecutionMode} of the options
+   */
+  public Stream<RetrievalResult> retrieveAll(final Stream<URL> urls,
+      final BatchOptions options) {
+    return BatchRetrieval.start(faviconsFetchingStrategy, urls, options);
+  }
+
+  /**
+   * Retrieves the favicons of a batch of {@link URL}s, once for each domain, with a bounded number
+   * of retrievals in flight overall and for each host, running the retrievals on platform
+   * threads.
+   *
+   * @param urls the {@link URL}s of HTML documents
+   * @param maxConcurrency the maximum number of retrievals in flight
+   * @param maxConcurrencyPerHost the maximum number of retrievals in flight for the same host
+   * @return the {@link Stream} of the {@link RetrievalResult}s, in completion order
+   * @throws IllegalArgumentException if one of the limits is not positive
+   * @see #retrieveAll(Stream, BatchOptions)
+   */
+  public Stream<RetrievalResult> retrieveAll(final Stream<URL> urls, final int maxConcurrency,
+      final int maxConcurrencyPerHost) {
+    return retrieveAll(urls, new BatchOptions(maxConcurrency, maxConcurrencyPerHost));
+  }
+
+  /**
+   * Retrieves the favicons of a batch of {@link URL}s, once for each domain, with a bounded number
+   * of retrievals in flight overall and for each host.
+   *
+   * @param urls the {@link URL}s of HTML documents
+   * @param maxConcurrency the maximum number of retrievals in flight
+   * @param maxConcurrencyPerHost the maximum number of retrievals in flight for the same host
+   * @return the {@link Stream} of the {@link RetrievalResult}s, in completion order
+   * @throws IllegalArgumentException if one of the limits is not positive
+   * @see #retrieveAll(Stream, BatchOptions)
+   */
+  public Stream<RetrievalResult> retrieveAll(final Collection<URL> urls,
+      final int maxConcurrency, final int maxConcurrencyPerHost) {
+    return retrieveAll(urls.stream(), maxConcurrency, maxConcurrencyPerHost);
+  }
+
+  /**
+   * Retrieves the favicon closest to a target size for the given {@link URL}. Unlike
+   * {@link #retrieveAll(URL)}, the favicons declared with a suitable size are fetched first and
+   * the retrieval stops at the first favicon at least as big as the target, if the
+   * {@link FaviconsFetchingStrategy} supports it.
+   *
+   * @param url the URL of an HTML document
+   * @param targetSize the target width and height, in pixels
+   * @return the {@link Optional} closest favicon, empty if no favicons are found
+   * @throws IOException in case of problems retrieving the icons from the given {@link URL}
+   * @throws IllegalArgumentException if the target size is not positive
+   * @see IconSelector
+   */
+  public Optional<JiconIcon> retrieveBest(final URL url, final int targetSize)
+      throws IOException {
+    return faviconsFetchingStrategy.getFaviconsFetcher(url).getBestIcon(targetSize);
+  }
+
+  /**
+   * Retrieves all the favicons for the given {@link URL} without blocking the calling thread.
+   *
+   * @param url the URL of an HTML document
+   * @return a {@link CompletableFuture} completed with all the found favicons, or exceptionally
+   *         with an {@link IOException} in case of problems retrieving them
+   */
+  public CompletableFuture<List<JiconIcon>> retrieveAllAsync(final URL url) {
+    return asyncFaviconsFetchingStrategy.retrieveAll(url);
+  }
+
   /**
    * Creates a {@link LetterIcon} for the given {@link URL}.
    *
@@ -75,24 +193,79 @@ public final class Jicon {
    */
   public LetterIcon getLetterIcon(final URL url, final Color fallbackColor,
       final Integer size) throws IOException, EmptyImageException {
-    final List<JiconIcon> favicons = retrieveAll(url);
-    if (favicons.isEmpty()) {
+    return toLetterIcon(url, retrieveBest(url, size), fallbackColor, size);
+  }
+
+  /**
+   * Creates a {@link LetterIcon} for the given {@link URL} without blocking the calling thread.
+   * Finding the main color of the favicon runs on the {@link Executor} of this instance.
+   *
+   * @param url the URL of the website from which to extract the lettericon.
+   * @param fallbackColor a fallback color in case no favicon can be found for the given {@link
+   * URL}.
+   * @param size the size of the lettericon to create.
+   * @return a {@link CompletableFuture} completed with the lettericon, or exceptionally with an
+   *         {@link IOException} in case of problems retrieving a base favicon or with an
+   *         {@link EmptyImageException} in case the extracted favicons are malformed.
+   */
+  public CompletableFuture<LetterIcon> getLetterIconAsync(final URL url,
+      final Color fallbackColor, final Integer size) {
+    return retrieveAllAsync(url).thenApplyAsync(favicons -> {
+      try {
+        return toLetterIcon(url, IconSelector.selectBest(favicons, size), fallbackColor, size);
+      } catch (IOException | EmptyImageException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * Creates a {@link LetterIcon} colored as a favicon of an {@link URL}.
+   *
+   * @param url the URL of the website from which to extract the lettericon.
+   * @param favicon the favicon of the website closest to the size of the lettericon
+   * @param fallbackColor a fallback color in case there is no favicon
+   * @param size the size of the lettericon to create.
+   * @return the lettericon as a {@link LetterIcon}.
+   * @throws IOException in case of problems reading the favicon
+   * @throws EmptyImageException in case the favicon is malformed.
+   */
+  private static LetterIcon toLetterIcon(final URL url, final Optional<JiconIcon> favicon,
+      final Color fallbackColor, final Integer size) throws IOException, EmptyImageException {
+    if (!favicon.isPresent()) {
       return new LetterIcon(size, Util.getFirstLetter(url), fallbackColor);
     }
-    final BufferedImage faviconImage;
-    try (InputStream in = favicons.get(0).getUrl().openStream()) {
-      faviconImage = ImageIO.read(in);
-    }
+    final BufferedImage faviconImage = readForColorFinding(favicon.get());
     final JiconColorFinder colorFinder = new JiconColorFinder(faviconImage);
     final Color mainFaviconColor = colorFinder.findMainColor();
     return new LetterIcon(size, Util.getFirstLetter(url), mainFaviconColor);
   }
 
+  /**
+   * Decodes a favicon no bigger than the {@link JiconColorFinder} needs, that is the smallest of
+   * its images at least as big as the fully sampled size, subsampled while decoding down to that
+   * size.
+   *
+   * @param favicon the favicon
+   * @return the decoded favicon
+   * @throws IOException in case of problems reading the favicon or if its format is not
+   *         supported
+   */
+  private static BufferedImage readForColorFinding(final JiconIcon favicon) throws IOException {
+    try {
+      return ImageUtil.readImage(favicon, SamplingPolicy.FULL_SAMPLING_SIZE);
+    } catch (ImageFormatNotSupportedException e) {
+      throw new IOException("Cannot decode the favicon " + favicon.getUrl(), e);
+    }
+  }
+
   /**
    * Saves in separated files all the images embedded in each input {@link JiconIcon}.
    * The purpose of this method is to extract multiple images files for those formats which embed
    * multiple images in the same file (see for example ico). For this reason the number of
-   * files saved may be greater than the number of {@link JiconIcon}s given as input.
+   * files saved may be greater than the number of {@link JiconIcon}s given as input. The icons
+   * are saved concurrently on a bounded pool dedicated to saving, and the images of each icon
+   * are decoded and written one at a time.
    *
    * <p>
    * The files are saved using the original name of the icon prepended with two indexes
@@ -122,24 +295,7 @@ public final class Jicon {
   public void saveEachEmbeddedImageInDir(final List<JiconIcon> icons,
       final String targetDirPath)
       throws IOException, ImageFormatNotSupportedException {
-    if (!Files.isDirectory(Paths.get(targetDirPath))) {
-      throw new NotDirectoryException(targetDirPath);
-    }
-    for (int i = 0; i < icons.size(); i++) {
-      final JiconIcon icon = icons.get(i);
-      final List<BufferedImage> images = executeOperationForEachEmbeddedImage(icon.getUrl(),
-          ImageReader::read);
-      logger.trace("{} BufferedImage(s) retrieved for Icon {}", images.size(), icon);
-      final List<String> imagesFormats = IntStream.range(0, images.size())
-          .mapToObj(index -> icon.getImages().get(index).getFormat()).collect(Collectors.toList());
-      final int finalI = i;
-      final List<String> outputFilesPaths = IntStream.range(0, images.size())
-          .mapToObj(
-              index -> targetDirPath + File.separator + finalI + "_" + index + "_" + Paths.get(
-                  icons.get(finalI).getUrl().toString())
-                  .getFileName()).collect(Collectors.toList());
-      writeImagesToFiles(images, imagesFormats, outputFilesPaths);
-    }
+    new DirectoryWriter(targetDirPath).saveEachEmbeddedImage(icons);
   }
 
   /**
@@ -148,7 +304,8 @@ public final class Jicon {
    * <p>
    * The files are saved using the original name of the icon prepended with an index indicating
    * the processing order. This is needed because multiple {@link JiconIcon}s may be
-   * associated with files with the same names.
+   * associated with files with the same names. The icons are saved concurrently on a bounded
+   * pool dedicated to saving and their bytes are copied as they are.
    * </p>
    *
    * <p>
@@ -168,17 +325,39 @@ public final class Jicon {
    */
   public void saveInDir(final List<JiconIcon> icons, final String targetDirPath)
       throws IOException {
-    if (!Files.isDirectory(Paths.get(targetDirPath))) {
-      throw new NotDirectoryException(targetDirPath);
-    }
-    for (int i = 0; i < icons.size(); i++) {
-      try (InputStream in = icons.get(i).getUrl().openStream()) {
-        Files.copy(in, Paths
-            .get(targetDirPath + File.separator + i + "_" + Paths.get(
-                icons.get(i).getUrl().toString())
-                .getFileName()));
-      }
-    }
+    new DirectoryWriter(targetDirPath).save(icons);
+  }
+
+  /**
+   * Saves in a {@link SegmentBlobStore} all the images embedded in each input {@link JiconIcon},
+   * as {@link #saveEachEmbeddedImageInDir} does in a directory. Each image is keyed by the domain
+   * of the given {@link URL}, the {@link URL} of the icon and its index within the icon file.
+   *
+   * @param url the URL of the website the icons have been retrieved for
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @param store the {@link SegmentBlobStore}
+   * @throws IOException in case of problems saving the {@link JiconIcon}s
+   * @throws ImageFormatNotSupportedException if the format of some of the input icons is not
+   *         supported
+   */
+  public void saveEachEmbeddedImageInStore(final URL url, final List<JiconIcon> icons,
+      final SegmentBlobStore store) throws IOException, ImageFormatNotSupportedException {
+    StoreWriter.saveEachEmbeddedImage(Util.getDomain(url), icons, store);
+  }
+
+  /**
+   * Saves the files associated to each {@link JiconIcon} in a {@link SegmentBlobStore}, as
+   * {@link #saveInDir} does in a directory. Each file is keyed by the domain of the given
+   * {@link URL} and the {@link URL} of the icon.
+   *
+   * @param url the URL of the website the icons have been retrieved for
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @param store the {@link SegmentBlobStore}
+   * @throws IOException in case of problems saving the {@link JiconIcon}s
+   */
+  public void saveInStore(final URL url, final List<JiconIcon> icons,
+      final SegmentBlobStore store) throws IOException {
+    StoreWriter.save(Util.getDomain(url), icons, store);
   }
 
 }
@@ -2,22 +2,93 @@ package ch.bisi.jicon;
 
 import ch.bisi.jicon.common.Util;
 import ch.bisi.jicon.fetcher.icon.FaviconsFetcher;
+import ch.bisi.jicon.fetcher.icon.IconsFetcher;
 import ch.bisi.jicon.fetcher.link.JsoupFaviconsLinksFetcher;
+import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import ch.bisi.jicon.http.HttpResponse;
+import ch.bisi.jicon.http.HttpTransport;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 /**
- * Favicons fetching strategy which establish and HTTP connection to the {@link URL} and uses
- * {@link Jsoup} for parsing the {@link Document}.
+ * Favicons fetching strategy which fetches the html page at the {@link URL} through an
+ * {@link HttpTransport} and uses {@link Jsoup} for parsing the {@link Document}.
  */
 public class JsoupFaviconsFetchingStrategy implements FaviconsFetchingStrategy {
 
+  /**
+   * The connect and read timeout used when fetching the page, the same as the {@link Jsoup}
+   * one.
+   */
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+  private final BiFunction<LinksFetcher, HttpTransport, IconsFetcher> iconsFetcherFactory;
+  private final HttpTransport transport;
+
+  /**
+   * Instantiates a new {@link JsoupFaviconsFetchingStrategy} probing the favicons {@link URL}s
+   * with a {@link FaviconsFetcher}.
+   */
+  public JsoupFaviconsFetchingStrategy() {
+    this(HttpTransport.getDefault());
+  }
+
+  /**
+   * Instantiates a new {@link JsoupFaviconsFetchingStrategy} fetching the page and the favicons
+   * through the given {@link HttpTransport}, probing the favicons {@link URL}s with a
+   * {@link FaviconsFetcher}.
+   *
+   * @param transport the {@link HttpTransport} fetching the page and the favicons
+   */
+  public JsoupFaviconsFetchingStrategy(final HttpTransport transport) {
+    this(FaviconsFetcher.factory(), transport);
+  }
+
+  /**
+   * Instantiates a new {@link JsoupFaviconsFetchingStrategy} probing the favicons {@link URL}s
+   * with the {@link IconsFetcher} built by the given factory, e.g. a
+   * {@link ch.bisi.jicon.fetcher.icon.ConcurrentFaviconsFetcher}.
+   *
+   * @param iconsFetcherFactory the function building the {@link IconsFetcher} from the
+   *        {@link LinksFetcher} of the parsed {@link Document}
+   */
+  public JsoupFaviconsFetchingStrategy(
+      final Function<LinksFetcher, IconsFetcher> iconsFetcherFactory) {
+    this((linksFetcher, transport) -> iconsFetcherFactory.apply(linksFetcher),
+        HttpTransport.getDefault());
+  }
+
+  /**
+   * Instantiates a new {@link JsoupFaviconsFetchingStrategy} fetching the page through the given
+   * {@link HttpTransport} and probing the favicons {@link URL}s with the {@link IconsFetcher}
+   * built by the given factory, which is given the same {@link HttpTransport} for fetching the
+   * favicons.
+   *
+   * @param iconsFetcherFactory the function building the {@link IconsFetcher} from the
+   *        {@link LinksFetcher} of the parsed {@link Document} and the {@link HttpTransport}
+   * @param transport the {@link HttpTransport} fetching the page and the favicons
+   */
+  public JsoupFaviconsFetchingStrategy(
+      final BiFunction<LinksFetcher, HttpTransport, IconsFetcher> iconsFetcherFactory,
+      final HttpTransport transport) {
+    this.iconsFetcherFactory = iconsFetcherFactory;
+    this.transport = transport;
+  }
+
   @Override
-  public FaviconsFetcher getFaviconsFetcher(final URL url) throws IOException {
-    final Document document = Jsoup.connect(Util.getDomain(url)).get();
-    return new FaviconsFetcher(new JsoupFaviconsLinksFetcher(document));
+  public IconsFetcher getFaviconsFetcher(final URL url) throws IOException {
+    final Document document;
+    try (HttpResponse response = transport.get(Util.getOrigin(url), DEFAULT_TIMEOUT)) {
+      document = Jsoup.parse(response.getBody(),
+          response.getCharset().map(Charset::name).orElse(null), response.getUrl().toString());
+    }
+    return iconsFetcherFactory.apply(new JsoupFaviconsLinksFetcher(document), transport);
   }
 
 }
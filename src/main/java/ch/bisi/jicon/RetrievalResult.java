@@ -0,0 +1,117 @@
+package ch.bisi.jicon;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outcome of retrieving the favicons of a domain within a batch, either the found favicons or the
+ * reason why they could not be retrieved.
+ */
+public final class RetrievalResult {
+
+  private final URL url;
+  private final String domain;
+  private final List<JiconIcon> icons;
+  private final Exception failure;
+
+  /**
+   * Instantiates a new {@link RetrievalResult}.
+   *
+   * @param url the {@link URL} whose favicons have been retrieved
+   * @param domain the domain of the {@link URL}
+   * @param icons the found favicons, empty on failure
+   * @param failure the reason of the failure or {@code null} on success
+   */
+  private RetrievalResult(final URL url, final String domain, final List<JiconIcon> icons,
+      final Exception failure) {
+    this.url = url;
+    this.domain = domain;
+    this.icons = icons;
+    this.failure = failure;
+  }
+
+  /**
+   * Builds the result of a successful retrieval.
+   *
+   * @param url the {@link URL} whose favicons have been retrieved
+   * @param domain the domain of the {@link URL}
+   * @param icons the found favicons
+   * @return the {@link RetrievalResult}
+   */
+  static RetrievalResult success(final URL url, final String domain,
+      final List<JiconIcon> icons) {
+    return new RetrievalResult(url, domain, Collections.unmodifiableList(icons), null);
+  }
+
+  /**
+   * Builds the result of a failed retrieval.
+   *
+   * @param url the {@link URL} whose favicons could not be retrieved
+   * @param domain the domain of the {@link URL}
+   * @param failure the reason of the failure
+   * @return the {@link RetrievalResult}
+   */
+  static RetrievalResult failure(final URL url, final String domain, final Exception failure) {
+    return new RetrievalResult(url, domain, Collections.emptyList(), failure);
+  }
+
+  /**
+   * Gets the {@link URL} whose favicons have been retrieved, that is the first {@link URL} of its
+   * domain in the batch.
+   *
+   * @return the {@link URL}
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the domain of the {@link URL}, as given by
+   * {@link ch.bisi.jicon.common.Util#getDomain(URL)}.
+   *
+   * @return the domain
+   */
+  public String getDomain() {
+    return domain;
+  }
+
+  /**
+   * Checks whether the favicons have been retrieved.
+   *
+   * @return {@code true} if the favicons have been retrieved, {@code false} otherwise
+   */
+  public boolean isSuccess() {
+    return failure == null;
+  }
+
+  /**
+   * Gets the found favicons.
+   *
+   * @return the unmodifiable {@link List} of {@link JiconIcon}s, empty on failure
+   */
+  public List<JiconIcon> getIcons() {
+    return icons;
+  }
+
+  /**
+   * Gets the reason why the favicons could not be retrieved.
+   *
+   * @return an {@link Optional} {@link Exception}, empty on success
+   */
+  public Optional<Exception> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+
+  @Override
+  public String toString() {
+    return "RetrievalResult{"
+        + "url=" + url
+        + ", domain='" + domain + '\''
+        + ", icons=" + icons
+        + ", failure=" + failure
+        + '}';
+  }
+}
@@ -0,0 +1,58 @@
+package ch.bisi.jicon;
+
+import static ch.bisi.jicon.common.ImageUtil.executeOperationForEachEncodedImage;
+
+import ch.bisi.jicon.common.ImageFormatNotSupportedException;
+import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.store.BlobKey;
+import ch.bisi.jicon.store.SegmentBlobStore;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Saving of {@link JiconIcon}s in a {@link SegmentBlobStore}.
+ */
+final class StoreWriter {
+
+  private StoreWriter() {
+    // hide public constructor
+  }
+
+  /**
+   * Saves the file of each {@link JiconIcon}, keyed by {@link BlobKey#ofFile}.
+   *
+   * @param domain the domain the icons have been retrieved for
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @param store the {@link SegmentBlobStore}
+   * @throws IOException in case of problems reading the icons or writing the store
+   */
+  static void save(final String domain, final List<JiconIcon> icons,
+      final SegmentBlobStore store) throws IOException {
+    for (final JiconIcon icon : icons) {
+      store.put(BlobKey.ofFile(domain, icon.getUrl()), icon.readPayload());
+    }
+  }
+
+  /**
+   * Saves each image embedded in the file of each {@link JiconIcon}, keyed by its index within
+   * the file. The images embedded into an .ico file as PNG are saved as they are, the other ones
+   * are decoded and saved one at a time.
+   *
+   * @param domain the domain the icons have been retrieved for
+   * @param icons the {@link List} of {@link JiconIcon}s to save
+   * @param store the {@link SegmentBlobStore}
+   * @throws IOException in case of problems reading the icons or writing the store
+   * @throws ImageFormatNotSupportedException if the format of some of the icons is not
+   *         supported
+   */
+  static void saveEachEmbeddedImage(final String domain, final List<JiconIcon> icons,
+      final SegmentBlobStore store) throws IOException, ImageFormatNotSupportedException {
+    for (final JiconIcon icon : icons) {
+      executeOperationForEachEncodedImage(icon, (index, image) -> {
+        store.put(new BlobKey(domain, icon.getUrl(), index), image);
+        return index;
+      });
+    }
+  }
+
+}
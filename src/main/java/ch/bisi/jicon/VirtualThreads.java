@@ -0,0 +1,88 @@
+package ch.bisi.jicon;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle; // NOPMD java.lang.invoke is not implicitly imported
+import java.lang.invoke.MethodHandles; // NOPMD java.lang.invoke is not implicitly imported
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21 and later from code compiled for Java 8. The virtual
+ * threads API is looked up once through {@link MethodHandles} and is not available on older
+ * runtimes.
+ */
+final class VirtualThreads {
+
+  private static final MethodHandle ofVirtual;
+  private static final MethodHandle name;
+  private static final MethodHandle factory;
+  private static final MethodHandle newThreadPerTaskExecutor;
+
+  static {
+    MethodHandle[] handles;
+    try {
+      handles = lookup();
+    } catch (ReflectiveOperationException e) {
+      handles = new MethodHandle[4];
+    }
+    ofVirtual = handles[0];
+    name = handles[1];
+    factory = handles[2];
+    newThreadPerTaskExecutor = handles[3];
+  }
+
+  private VirtualThreads() {
+    // hide public constructor
+  }
+
+  /**
+   * Checks whether the runtime supports virtual threads.
+   *
+   * @return {@code true} on Java 21 and later, {@code false} otherwise
+   */
+  static boolean isSupported() {
+    return newThreadPerTaskExecutor != null;
+  }
+
+  /**
+   * Creates an {@link ExecutorService} running each task on a new virtual thread.
+   *
+   * @param threadName the prefix of the names of the threads
+   * @return the {@link ExecutorService}
+   * @throws UnsupportedOperationException if the runtime does not support virtual threads
+   */
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  static ExecutorService newExecutor(final String threadName) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+    try {
+      final Object builder = name.invoke(ofVirtual.invoke(), threadName + "-", 1L);
+      return (ExecutorService) newThreadPerTaskExecutor.invoke(factory.invoke(builder));
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create virtual threads", e);
+    }
+  }
+
+  /**
+   * Looks up the virtual threads API.
+   *
+   * @return the handles of {@code Thread.ofVirtual()}, {@code Thread.Builder.OfVirtual.name},
+   *         {@code Thread.Builder.factory()} and {@code Executors.newThreadPerTaskExecutor}
+   * @throws ReflectiveOperationException if the runtime does not support virtual threads
+   */
+  private static MethodHandle[] lookup() throws ReflectiveOperationException {
+    final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+    return new MethodHandle[] {
+        lookup.findStatic(Thread.class, "ofVirtual", methodType(ofVirtualClass)),
+        lookup.findVirtual(ofVirtualClass, "name",
+            methodType(ofVirtualClass, String.class, long.class)),
+        lookup.findVirtual(ofVirtualClass, "factory", methodType(ThreadFactory.class)),
+        lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+            methodType(ExecutorService.class, ThreadFactory.class))};
+  }
+
+}
@@ -0,0 +1,62 @@
+package ch.bisi.jicon.cache;
+
+/**
+ * Snapshot of the counters of a cache.
+ */
+public final class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+
+  /**
+   * Instantiates a new {@link CacheStats}.
+   *
+   * @param hitCount the number of lookups served from the cache
+   * @param missCount the number of lookups which required a load
+   * @param evictionCount the number of entries evicted to keep the cache within its bounds
+   */
+  public CacheStats(final long hitCount, final long missCount, final long evictionCount) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+  }
+
+  /**
+   * Gets the number of lookups served from the cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Gets the number of lookups which required a load. Concurrent lookups collapsed into a single
+   * load are all counted as misses.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Gets the number of entries evicted to keep the cache within its bounds. Expired entries are
+   * not counted.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{"
+        + "hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + ", evictionCount=" + evictionCount
+        + '}';
+  }
+}
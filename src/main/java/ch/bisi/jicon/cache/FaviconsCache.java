@@ -0,0 +1,38 @@
+package ch.bisi.jicon.cache;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Cache of the favicons found for each domain.
+ */
+public interface FaviconsCache {
+
+  /**
+   * Gets the favicons of a domain, loading them with the given {@link FaviconsLoader} if they
+   * are not cached.
+   *
+   * @param domain the domain, as given by {@link ch.bisi.jicon.common.Util#getDomain}
+   * @param loader the {@link FaviconsLoader} used on a miss
+   * @return the unmodifiable {@link List} of {@link JiconIcon}s of the domain
+   * @throws IOException in case of problems loading the favicons, or if a previous failure to
+   *         load them is still cached
+   */
+  List<JiconIcon> get(String domain, FaviconsLoader loader) throws IOException;
+
+  /**
+   * Removes the cached favicons of a domain, if any.
+   *
+   * @param domain the domain
+   */
+  void invalidate(String domain);
+
+  /**
+   * Gets a snapshot of the cache counters.
+   *
+   * @return the {@link CacheStats}
+   */
+  CacheStats getStats();
+
+}
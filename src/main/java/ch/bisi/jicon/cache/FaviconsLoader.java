@@ -0,0 +1,21 @@
+package ch.bisi.jicon.cache;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Loads the favicons of a domain on a {@link FaviconsCache} miss.
+ */
+@FunctionalInterface
+public interface FaviconsLoader {
+
+  /**
+   * Loads the favicons.
+   *
+   * @return the {@link List} of loaded {@link JiconIcon}s, possibly empty
+   * @throws IOException in case of problems loading the favicons
+   */
+  List<JiconIcon> load() throws IOException;
+
+}
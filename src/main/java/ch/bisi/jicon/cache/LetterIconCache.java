@@ -0,0 +1,102 @@
+package ch.bisi.jicon.cache;
+
+import ch.bisi.jicon.common.LetterIcon;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of rendered {@link LetterIcon}s, keyed by their size, letter and background color.
+ *
+ * <p>The key space of the letter icons is small, so a single instance shared by all the callers
+ * serves the hot icons from memory instead of rendering them through Java2D on every request.
+ * The cache keeps up to a maximum number of icons, evicting the least recently used one when
+ * full. Icons are rendered outside of any lock, so concurrent misses for the same icon may render
+ * it more than once, but only one rendering is kept.</p>
+ */
+public class LetterIconCache {
+
+  private final int maximumSize;
+
+  /**
+   * The rendered icons in access order, guarded by itself.
+   **/
+  private final Map<LetterIcon, RenderedLetterIcon> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Instantiates a new {@link LetterIconCache}.
+   *
+   * @param maximumSize the maximum number of cached icons
+   */
+  public LetterIconCache(final int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Gets a rendered {@link LetterIcon}, rendering it if it is not cached.
+   *
+   * @param letterIcon the {@link LetterIcon}
+   * @return the {@link RenderedLetterIcon}
+   */
+  public RenderedLetterIcon get(final LetterIcon letterIcon) {
+    synchronized (entries) {
+      final RenderedLetterIcon cached = entries.get(letterIcon);
+      if (cached != null) {
+        hitCount.increment();
+        return cached;
+      }
+    }
+    missCount.increment();
+    return put(RenderedLetterIcon.render(letterIcon));
+  }
+
+  /**
+   * Gets a snapshot of the cache counters.
+   *
+   * @return the {@link CacheStats}
+   */
+  public CacheStats getStats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+  }
+
+  /**
+   * Gets the number of cached icons.
+   *
+   * @return the number of cached icons
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Caches a rendered icon, unless another rendering of the same icon has been cached in the
+   * meantime, evicting the least recently used icons if the cache is full.
+   *
+   * @param rendered the {@link RenderedLetterIcon}
+   * @return the cached {@link RenderedLetterIcon}
+   */
+  private RenderedLetterIcon put(final RenderedLetterIcon rendered) {
+    synchronized (entries) {
+      final RenderedLetterIcon cached = entries.putIfAbsent(rendered.getLetterIcon(), rendered);
+      final Iterator<LetterIcon> eldest = entries.keySet().iterator();
+      while (entries.size() > maximumSize) {
+        eldest.next();
+        eldest.remove();
+        evictionCount.increment();
+      }
+      return cached == null ? rendered : cached;
+    }
+  }
+
+}
@@ -0,0 +1,298 @@
+package ch.bisi.jicon.cache;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FaviconsCache} keeping up to a maximum number of domains, evicting the least recently
+ * used one when full.
+ *
+ * <p>Domains with at least one favicon are kept for the positive time to live, while domains
+ * without favicons or whose favicons failed to load are kept for the negative time to live, so
+ * that unreachable domains are not retried on every lookup. Concurrent misses for the same
+ * domain are collapsed into a single load, whose result is shared by all the callers.</p>
+ *
+ * <p>Note that the cached {@link JiconIcon}s keep their bytes only if they have been fetched with
+ * a {@link ch.bisi.jicon.common.PayloadBuffering}, otherwise reading them fetches their
+ * {@link java.net.URL} again.</p>
+ */
+public class LruFaviconsCache implements FaviconsCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(LruFaviconsCache.class);
+
+  private final int maximumSize;
+  private final long positiveTtlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier ticker;
+
+  /**
+   * The cached entries in access order, guarded by itself.
+   **/
+  private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final ConcurrentMap<String, FutureTask<CacheEntry>> loads = new ConcurrentHashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Instantiates a new {@link LruFaviconsCache}.
+   *
+   * @param maximumSize the maximum number of cached domains
+   * @param positiveTtl how long the favicons of a domain are cached
+   * @param negativeTtl how long a domain without favicons, or whose favicons failed to load, is
+   *        cached
+   */
+  public LruFaviconsCache(final int maximumSize, final Duration positiveTtl,
+      final Duration negativeTtl) {
+    this(maximumSize, positiveTtl, negativeTtl, System::nanoTime);
+  }
+
+  /**
+   * Instantiates a new {@link LruFaviconsCache} reading the time from the given ticker.
+   *
+   * @param maximumSize the maximum number of cached domains
+   * @param positiveTtl how long the favicons of a domain are cached
+   * @param negativeTtl how long a domain without favicons, or whose favicons failed to load, is
+   *        cached
+   * @param ticker the source of the time in nanoseconds, as {@link System#nanoTime()}
+   */
+  LruFaviconsCache(final int maximumSize, final Duration positiveTtl,
+      final Duration negativeTtl, final LongSupplier ticker) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+    }
+    this.maximumSize = maximumSize;
+    this.positiveTtlNanos = positiveTtl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.ticker = ticker;
+  }
+
+  @Override
+  public List<JiconIcon> get(final String domain, final FaviconsLoader loader)
+      throws IOException {
+    final CacheEntry cached = getIfFresh(domain);
+    if (cached != null) {
+      hitCount.increment();
+      return cached.getIcons(domain);
+    }
+    missCount.increment();
+    return load(domain, loader).getIcons(domain);
+  }
+
+  @Override
+  public void invalidate(final String domain) {
+    synchronized (entries) {
+      entries.remove(domain);
+    }
+  }
+
+  @Override
+  public CacheStats getStats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+  }
+
+  /**
+   * Gets the number of cached domains, including the expired ones not removed yet.
+   *
+   * @return the number of cached domains
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the cached entry of a domain, removing it if expired.
+   *
+   * @param domain the domain
+   * @return the {@link CacheEntry} or {@code null} if the domain is not cached or expired
+   */
+  private CacheEntry getIfFresh(final String domain) {
+    synchronized (entries) {
+      final CacheEntry entry = entries.get(domain);
+      if (entry != null && entry.isExpired(ticker.getAsLong())) {
+        entries.remove(domain);
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Loads the favicons of a domain, or waits for the load already started by another thread.
+   *
+   * @param domain the domain
+   * @param loader the {@link FaviconsLoader}
+   * @return the loaded {@link CacheEntry}
+   * @throws IOException if the current thread is interrupted while waiting for the load
+   */
+  private CacheEntry load(final String domain, final FaviconsLoader loader) throws IOException {
+    final FutureTask<CacheEntry> task = new FutureTask<>(() -> loadEntry(domain, loader));
+    final FutureTask<CacheEntry> running = loads.putIfAbsent(domain, task);
+    if (running != null) {
+      return await(domain, running);
+    }
+    try {
+      task.run();
+    } finally {
+      loads.remove(domain, task);
+    }
+    return await(domain, task);
+  }
+
+  /**
+   * Loads the favicons of a domain and caches the result, unless a load which completed in the
+   * meantime already cached it. Loads failed because of an interruption are not cached, so that
+   * the next lookup loads the domain again.
+   *
+   * @param domain the domain
+   * @param loader the {@link FaviconsLoader}
+   * @return the {@link CacheEntry}
+   */
+  private CacheEntry loadEntry(final String domain, final FaviconsLoader loader) {
+    final CacheEntry cached = getIfFresh(domain);
+    if (cached != null) {
+      return cached;
+    }
+    final CacheEntry entry;
+    try {
+      entry = newEntry(loader.load());
+    } catch (IOException e) {
+      return newFailureEntry(domain, e);
+    }
+    put(domain, entry);
+    return entry;
+  }
+
+  /**
+   * Creates the entry of loaded favicons, kept for the negative time to live if there are none.
+   *
+   * @param icons the loaded {@link JiconIcon}s
+   * @return the {@link CacheEntry}
+   */
+  private CacheEntry newEntry(final List<JiconIcon> icons) {
+    final long ttl = icons.isEmpty() ? negativeTtlNanos : positiveTtlNanos;
+    return new CacheEntry(Collections.unmodifiableList(icons), null, ticker.getAsLong() + ttl);
+  }
+
+  /**
+   * Creates the entry of a failed load, caching it unless the load was interrupted.
+   *
+   * @param domain the domain
+   * @param failure the failure of the load
+   * @return the {@link CacheEntry}
+   */
+  private CacheEntry newFailureEntry(final String domain, final IOException failure) {
+    final CacheEntry entry =
+        new CacheEntry(null, failure, ticker.getAsLong() + negativeTtlNanos);
+    if (failure instanceof InterruptedIOException || Thread.currentThread().isInterrupted()) {
+      logger.debug("Not caching interrupted load of the favicons of {}", domain, failure);
+    } else {
+      logger.debug("Caching failure to load the favicons of {}", domain, failure);
+      put(domain, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Caches an entry, evicting the least recently used ones if the cache is full.
+   *
+   * @param domain the domain
+   * @param entry the {@link CacheEntry}
+   */
+  private void put(final String domain, final CacheEntry entry) {
+    synchronized (entries) {
+      entries.put(domain, entry);
+      final Iterator<String> eldest = entries.keySet().iterator();
+      while (entries.size() > maximumSize) {
+        eldest.next();
+        eldest.remove();
+        evictionCount.increment();
+      }
+    }
+  }
+
+  /**
+   * Waits for a load to complete.
+   *
+   * @param domain the loaded domain
+   * @param task the {@link FutureTask} loading the domain
+   * @return the loaded {@link CacheEntry}
+   * @throws IOException if the current thread is interrupted while waiting
+   */
+  private static CacheEntry await(final String domain, final FutureTask<CacheEntry> task)
+      throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted while loading the favicons of " + domain).initCause(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unexpected failure loading the favicons of " + domain, e);
+    }
+  }
+
+  /**
+   * Cached result of a load.
+   */
+  private static final class CacheEntry {
+
+    private final List<JiconIcon> icons;
+    private final IOException failure;
+    private final long expiresAt;
+
+    /**
+     * Instantiates a new {@link CacheEntry}.
+     *
+     * @param icons the loaded {@link JiconIcon}s or {@code null} if the load failed
+     * @param failure the failure of the load or {@code null} if the load succeeded
+     * @param expiresAt the expiration time, as given by the ticker
+     */
+    CacheEntry(final List<JiconIcon> icons, final IOException failure, final long expiresAt) {
+      this.icons = icons;
+      this.failure = failure;
+      this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the loaded icons.
+     *
+     * @param domain the domain of the entry
+     * @return the {@link List} of loaded {@link JiconIcon}s
+     * @throws IOException wrapping the failure of the load, if the load failed, or the
+     *         {@link InterruptedIOException} itself if the load was interrupted
+     */
+    List<JiconIcon> getIcons(final String domain) throws IOException {
+      if (failure instanceof InterruptedIOException) {
+        throw failure;
+      }
+      if (failure != null) {
+        throw new IOException("Loading the favicons of " + domain + " failed", failure);
+      }
+      return icons;
+    }
+
+    boolean isExpired(final long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+
+}
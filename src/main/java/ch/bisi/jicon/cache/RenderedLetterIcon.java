@@ -0,0 +1,88 @@
+package ch.bisi.jicon.cache;
+
+import ch.bisi.jicon.common.LetterIcon;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import javax.imageio.ImageIO;
+
+/**
+ * A {@link LetterIcon} rendered once, keeping both its raster and its PNG encoding.
+ */
+public final class RenderedLetterIcon {
+
+  private final LetterIcon letterIcon;
+  private final BufferedImage image;
+  private final byte[] png;
+
+  /**
+   * Instantiates a new {@link RenderedLetterIcon}.
+   *
+   * @param letterIcon the rendered {@link LetterIcon}
+   * @param image the rendered image, not exposed to avoid modifications
+   * @param png the PNG encoding of the rendered image
+   */
+  private RenderedLetterIcon(final LetterIcon letterIcon, final BufferedImage image,
+      final byte[] png) {
+    this.letterIcon = letterIcon;
+    this.image = image;
+    this.png = png;
+  }
+
+  /**
+   * Renders a {@link LetterIcon} and encodes it as PNG.
+   *
+   * @param letterIcon the {@link LetterIcon} to render
+   * @return the {@link RenderedLetterIcon}
+   */
+  static RenderedLetterIcon render(final LetterIcon letterIcon) {
+    final BufferedImage image = letterIcon.getImage();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      ImageIO.write(image, "png", out);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode " + letterIcon + " as PNG", e);
+    }
+    return new RenderedLetterIcon(letterIcon, image, out.toByteArray());
+  }
+
+  /**
+   * Gets the rendered {@link LetterIcon}.
+   *
+   * @return the {@link LetterIcon}
+   */
+  public LetterIcon getLetterIcon() {
+    return letterIcon;
+  }
+
+  /**
+   * Gets a copy of the rendered image, which can be freely modified.
+   *
+   * @return a new {@link BufferedImage} with the rendered pixels
+   */
+  public BufferedImage getImage() {
+    final ColorModel colorModel = image.getColorModel();
+    return new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(),
+        null);
+  }
+
+  /**
+   * Gets the PNG encoding of the rendered image.
+   *
+   * @return a read only {@link ByteBuffer} positioned at the beginning of the PNG file
+   */
+  public ByteBuffer getPng() {
+    return ByteBuffer.wrap(png).asReadOnlyBuffer();
+  }
+
+  @Override
+  public String toString() {
+    return "RenderedLetterIcon{"
+        + "letterIcon=" + letterIcon
+        + ", pngLength=" + png.length
+        + '}';
+  }
+}
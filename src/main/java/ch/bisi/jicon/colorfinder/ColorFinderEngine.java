@@ -0,0 +1,40 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Strategy implementing the main color search executed by a {@link ColorFinder}.
+ * Different implementations trade memory for speed but must all find the same main color.
+ */
+@FunctionalInterface
+public interface ColorFinderEngine {
+
+  /**
+   * Finds the main color of a {@link BufferedImage}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the function giving the weight of each {@link Color} of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  Color findMainColor(BufferedImage image, ToDoubleFunction<Color> weigher)
+      throws EmptyImageException;
+
+  /**
+   * Finds the main color of a {@link BufferedImage}, weighing the colors as packed RGB
+   * {@code int}s. Engines working on packed colors override this method to avoid creating a
+   * {@link Color} for each weighed color.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the {@link ColorWeigher} giving the weight of each color of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  default Color findMainColorPacked(final BufferedImage image, final ColorWeigher weigher)
+      throws EmptyImageException {
+    return findMainColor(image, color -> weigher.getWeight(color.getRGB()));
+  }
+
+}
@@ -0,0 +1,18 @@
+package ch.bisi.jicon.colorfinder;
+
+/**
+ * Weighing strategy of the colors of an image, working on packed {@code 0xRRGGBB} {@code int}s
+ * so that colors can be weighed without creating a {@link java.awt.Color} for each of them.
+ */
+@FunctionalInterface
+public interface ColorWeigher {
+
+  /**
+   * Gets the weight of a packed color.
+   *
+   * @param rgb the packed RGB color, the alpha bits if any are ignored
+   * @return the weight of the color
+   */
+  double getWeight(int rgb);
+
+}
@@ -0,0 +1,239 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link ColorFinderEngine} reading the image only once. A single raster pass builds the
+ * histogram of the distinct colors of the image, storing for each color both the number of
+ * pixels and the number of sampled pixels. The refinement steps of the search then run over the
+ * distinct colors of the histogram instead of over the pixels, so their cost depends on the
+ * number of colors and not on the size of the image.
+ *
+ * <p>Each step adds the contribution of a color once multiplied by its number of samples,
+ * instead of once per sampled pixel as the {@link MapColorFinderEngine} does. The floating point
+ * weights may therefore differ in the last digits, which can only change the winner of groups
+ * whose weights are equal up to rounding.</p>
+ *
+ * <p>Images with at least a given number of pixels are counted on a {@link ForkJoinPool}: the
+ * rows are split into bands, each band is counted in its own histogram and the histograms are
+ * merged in band order. Since the merged histogram holds its colors in the same slots as a
+ * histogram built by a single pass, the refinement steps and therefore the found color are the
+ * same whether the image is counted in parallel or not.</p>
+ */
+public class HistogramColorFinderEngine extends PackedColorFinderEngine {
+
+  /**
+   * The default number of pixels from which images are counted in parallel.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 512 * 512;
+
+  /**
+   * The number of pixels under which a band of rows is not split further.
+   */
+  private static final int BAND_PIXELS = 64 * 1024;
+
+  private final long parallelThreshold;
+  private final ForkJoinPool pool;
+
+  /**
+   * Instantiates a new {@link HistogramColorFinderEngine} sampling the pixels as decided by the
+   * {@link SamplingPolicy#DEFAULT} policy and counting the images with at least
+   * {@link #DEFAULT_PARALLEL_THRESHOLD} pixels on the common {@link ForkJoinPool}.
+   */
+  public HistogramColorFinderEngine() {
+    this(DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Instantiates a new {@link HistogramColorFinderEngine} sampling the pixels as decided by a
+   * given policy and counting the images with at least {@link #DEFAULT_PARALLEL_THRESHOLD}
+   * pixels on the common {@link ForkJoinPool}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy} deciding which pixels are sampled
+   */
+  public HistogramColorFinderEngine(final SamplingPolicy samplingPolicy) {
+    this(samplingPolicy, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Instantiates a new {@link HistogramColorFinderEngine} counting the images with at least a
+   * given number of pixels on the common {@link ForkJoinPool}.
+   *
+   * @param parallelThreshold the number of pixels from which images are counted in parallel
+   * @throws IllegalArgumentException if the threshold is not positive
+   */
+  public HistogramColorFinderEngine(final int parallelThreshold) {
+    this(parallelThreshold, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Instantiates a new {@link HistogramColorFinderEngine} counting the images with at least a
+   * given number of pixels on a given {@link ForkJoinPool}.
+   *
+   * @param parallelThreshold the number of pixels from which images are counted in parallel
+   * @param pool the {@link ForkJoinPool} counting the bands of rows
+   * @throws IllegalArgumentException if the threshold is not positive
+   */
+  public HistogramColorFinderEngine(final int parallelThreshold, final ForkJoinPool pool) {
+    this(SamplingPolicy.DEFAULT, parallelThreshold, pool);
+  }
+
+  /**
+   * Instantiates a new {@link HistogramColorFinderEngine} sampling the pixels as decided by a
+   * given policy and counting the images with at least a given number of pixels on a given
+   * {@link ForkJoinPool}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy} deciding which pixels are sampled
+   * @param parallelThreshold the number of pixels from which images are counted in parallel
+   * @param pool the {@link ForkJoinPool} counting the bands of rows
+   * @throws IllegalArgumentException if the threshold is not positive
+   */
+  public HistogramColorFinderEngine(final SamplingPolicy samplingPolicy,
+      final int parallelThreshold, final ForkJoinPool pool) {
+    super(samplingPolicy);
+    if (parallelThreshold <= 0) {
+      throw new IllegalArgumentException(
+          "The parallel threshold must be positive: " + parallelThreshold);
+    }
+    this.parallelThreshold = parallelThreshold;
+    this.pool = pool;
+  }
+
+  @Override
+  PackedColorTable countColors(final BufferedImage image, final SamplingGrid grid) {
+    if ((long) image.getWidth() * image.getHeight() < parallelThreshold) {
+      return countRows(image, grid, 0, image.getHeight());
+    }
+    final int bandRows = Math.max(1, BAND_PIXELS / image.getWidth());
+    return pool.invoke(new CountBandTask(image, grid, bandRows, 0, image.getHeight()));
+  }
+
+  @Override
+  void weighColors(final BufferedImage image, final SamplingGrid grid,
+      final PackedColorTable colorStats, final PackedColorTable weightedColors, final int shift,
+      final int targetShift, final int targetColor) {
+    for (int slot = 0; slot < colorStats.capacity(); slot++) {
+      if (isSampledMatch(colorStats, slot, targetShift, targetColor)) {
+        weightedColors.addWeight(weightedColors.slotOf(shiftColor(colorStats.getKey(slot), shift)),
+            colorStats.getWeight(slot) * colorStats.getSamples(slot));
+      }
+    }
+  }
+
+  /**
+   * Counts the colors of a band of rows of the image.
+   *
+   * @param image the {@link BufferedImage}
+   * @param grid the {@link SamplingGrid} of the image
+   * @param fromY the first row of the band, inclusive
+   * @param toY the last row of the band, exclusive
+   * @return the colors statistics table of the band
+   */
+  private static PackedColorTable countRows(final BufferedImage image, final SamplingGrid grid,
+      final int fromY, final int toY) {
+    final RgbRowReader reader = RgbRowReader.forImage(image);
+    final int[] row = new int[image.getWidth()];
+    final PackedColorTable colorStats = new PackedColorTable(256);
+    for (int y = fromY; y < toY; y++) {
+      if (grid.isCountedRow(y)) {
+        reader.readRow(y, row);
+        countRow(colorStats, row, grid, y);
+      }
+    }
+    return colorStats;
+  }
+
+  /**
+   * Counts the colors of a row of the image.
+   *
+   * @param colorStats the colors statistics table to update
+   * @param row the packed RGB colors of the row
+   * @param grid the {@link SamplingGrid} of the image
+   * @param ycoord the row
+   */
+  private static void countRow(final PackedColorTable colorStats, final int[] row,
+      final SamplingGrid grid, final int ycoord) {
+    final boolean sampledRow = grid.isSampledRow(ycoord);
+    final int sampleOffset = grid.getColumnOffset(ycoord);
+    for (int x = grid.getCountedColumnOffset(ycoord); x < row.length;
+        x += grid.getCountedStepLength()) {
+      final int slot = colorStats.slotOf(row[x]);
+      colorStats.addCount(slot, grid.getCountScale());
+      if (sampledRow && (x - sampleOffset) % grid.getStepLength() == 0) {
+        colorStats.addSamples(slot, 1);
+      }
+    }
+  }
+
+  /**
+   * Checks if the color in a given slot has been sampled and matches the target color.
+   *
+   * @param colorStats the colors statistics table
+   * @param slot the slot to check
+   * @param targetShift the right shift of the target color
+   * @param targetColor the target color to match or {@link #ANY_COLOR}
+   * @return {@code true} if the color has samples and matches the target, {@code false} otherwise
+   */
+  private static boolean isSampledMatch(final PackedColorTable colorStats, final int slot,
+      final int targetShift, final int targetColor) {
+    return colorStats.isUsed(slot) && colorStats.getSamples(slot) > 0
+        && matchTargetColor(colorStats.getKey(slot), targetShift, targetColor);
+  }
+
+  /**
+   * Task counting the colors of a band of rows, splitting it in two halves counted in parallel
+   * while it is bigger than the band size.
+   */
+  private static final class CountBandTask extends RecursiveTask<PackedColorTable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient BufferedImage image;
+    private final transient SamplingGrid grid;
+    private final int bandRows;
+    private final int fromY;
+    private final int toY;
+
+    /**
+     * Instantiates a new {@link CountBandTask}.
+     *
+     * @param image the {@link BufferedImage}
+     * @param grid the {@link SamplingGrid} of the image
+     * @param bandRows the number of rows under which the band is not split
+     * @param fromY the first row of the band, inclusive
+     * @param toY the last row of the band, exclusive
+     */
+    private CountBandTask(final BufferedImage image, final SamplingGrid grid,
+        final int bandRows, final int fromY, final int toY) {
+      this.image = image;
+      this.grid = grid;
+      this.bandRows = bandRows;
+      this.fromY = fromY;
+      this.toY = toY;
+    }
+
+    /**
+     * Counts the band, merging the histogram of the lower half into the one of the upper half
+     * when split, so that the colors keep the order in which a single pass finds them.
+     *
+     * @return the colors statistics table of the band
+     */
+    @Override
+    protected PackedColorTable compute() {
+      if (toY - fromY <= bandRows) {
+        return countRows(image, grid, fromY, toY);
+      }
+      final int middleY = (fromY + toY) >>> 1;
+      final CountBandTask lower = new CountBandTask(image, grid, bandRows, middleY, toY);
+      lower.fork();
+      final PackedColorTable colorStats =
+          new CountBandTask(image, grid, bandRows, fromY, middleY).compute();
+      colorStats.addAll(lower.join());
+      return colorStats;
+    }
+
+  }
+
+}
@@ -1,7 +1,5 @@
 package ch.bisi.jicon.colorfinder;
 
-import static java.lang.StrictMath.abs;
-
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 
@@ -19,6 +17,17 @@ public class JiconColorFinder extends ColorFinder {
     super(image);
   }
 
+  /**
+   * Instantiates a new {@link JiconColorFinder} executing the color search with the given
+   * {@link ColorFinderEngine}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param engine the {@link ColorFinderEngine} executing the color search
+   */
+  public JiconColorFinder(final BufferedImage image, final ColorFinderEngine engine) {
+    super(image, engine);
+  }
+
   /**
    * Implements the {@link JiconColorFinder} weighing strategy.
    *
@@ -27,14 +36,19 @@ public class JiconColorFinder extends ColorFinder {
    */
   @Override
   public double getWeight(final Color color) {
-    final int red = color.getRed();
-    final int green = color.getGreen();
-    final int blue = color.getBlue();
+    return getWeight(color.getRGB());
+  }
+
+  /**
+   * Implements the {@link JiconColorFinder} weighing strategy on packed colors.
+   *
+   * @param rgb the packed RGB color
+   * @return the weight of the given color.
+   */
+  @Override
+  public double getWeight(final int rgb) {
     final double weight =
-        (abs(red - green) * abs(red - green)
-            + abs(red - blue) * abs(red - blue)
-            + abs(green - blue) * abs(green - blue))
-            / 65535.0d * 1000.0d + 1.0d;
+        PackedColorKernel.getChannelSpread(rgb) / 65535.0d * 1000.0d + 1.0d;
     if (weight <= 0) {
       return 1E-10d;
     }
@@ -0,0 +1,291 @@
+package ch.bisi.jicon.colorfinder;
+
+import static java.lang.StrictMath.floor;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * {@link ColorFinderEngine} keeping the color statistics in {@link Map}s of {@link Color}s.
+ * This is the reference implementation of the color finding algorithm.
+ */
+public class MapColorFinderEngine implements ColorFinderEngine {
+
+  /** The right shift applied to the color components at the first step of the search. */
+  private static final int FIRST_SHIFT = 6;
+
+  private final SamplingPolicy samplingPolicy;
+
+  /**
+   * Instantiates a new {@link MapColorFinderEngine} sampling the pixels as decided by the
+   * {@link SamplingPolicy#DEFAULT} policy.
+   */
+  public MapColorFinderEngine() {
+    this(SamplingPolicy.DEFAULT);
+  }
+
+  /**
+   * Instantiates a new {@link MapColorFinderEngine}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy} deciding which pixels are sampled
+   */
+  public MapColorFinderEngine(final SamplingPolicy samplingPolicy) {
+    this.samplingPolicy = samplingPolicy;
+  }
+
+  /**
+   * Finds the main color of a {@link BufferedImage}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the function giving the weight of each {@link Color} of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  @Override
+  public Color findMainColor(final BufferedImage image, final ToDoubleFunction<Color> weigher)
+      throws EmptyImageException {
+    final SamplingGrid grid = samplingPolicy.getGrid(image.getWidth(), image.getHeight());
+    final Map<Color, ColorStats> colorStatsMap = buildColorMap(image, grid, weigher);
+    ShiftedColor result = null;
+    int shift = FIRST_SHIFT;
+    while (shift >= 0) {
+      final Map<ShiftedColor, Double> weightedColors = new HashMap<>();
+      result = findMainColorStep(image, grid, colorStatsMap, shift, result, weightedColors);
+      shift = getNextShift(grid, weightedColors, result);
+    }
+    return result.getColor();
+  }
+
+  /**
+   * Finds the main color of a {@link BufferedImage}, memoizing the weights in a
+   * {@link WeightTable} since the colors are weighed once per pixel.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the {@link ColorWeigher} giving the weight of each color of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  @Override
+  public Color findMainColorPacked(final BufferedImage image, final ColorWeigher weigher)
+      throws EmptyImageException {
+    final WeightTable weights = new WeightTable(weigher);
+    return findMainColor(image, color -> weights.getWeight(color.getRGB()));
+  }
+
+
+  /**
+   * Builds the {@link Color}s statistics map from a {@link BufferedImage}. The created {@link Map}
+   * of statics associates to each {@link Color} in the image a {@link ColorStats}. The weight
+   * stored in each {@link ColorStats} is computed using the {@code weigher} function. The
+   * method is used to build the set of statistics given as initial input to the color finding
+   * algorithm.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param grid the {@link SamplingGrid} of the image, telling which pixels are counted
+   * @param weigher the function giving the weight of each {@link Color} of the image
+   * @return the {@link Map} of {@link ColorStats} extracted from the input {@link BufferedImage}
+   */
+  private Map<Color, ColorStats> buildColorMap(final BufferedImage image,
+      final SamplingGrid grid, final ToDoubleFunction<Color> weigher) {
+    final Map<Color, ColorStats> colorStats = new HashMap<>();
+    final int countScale = grid.getCountScale();
+    for (int y = image.getMinY(); y < image.getHeight(); y++) {
+      if (grid.isCountedRow(y)) {
+        for (int x = grid.getCountedColumnOffset(y); x < image.getWidth();
+            x += grid.getCountedStepLength()) {
+          final Color color = getPixelColor(image, x, y);
+          colorStats.merge(color, new ColorStats(countScale, weigher.applyAsDouble(color)),
+              (stat1, stat2) -> new ColorStats(stat1.getCount() + countScale, stat1.getWeight()));
+        }
+      }
+    }
+    return colorStats;
+  }
+
+  // @formatter:off
+  /**
+   * Executes a step of of the color finding algorithm.
+   *
+   * <p>Processes a {@link BufferedImage} in the following way:</p>
+   * <ul>
+   *  <li>Loop over the {@code image} pixels sampled by the {@link SamplingGrid}</li>
+   *  <li>At each sampling step:</li>
+   *    <ul>
+   *       <li>Retrieves the {@link Color} of the processed pixel</li>
+   *       <li>
+   *           If the retrieved {@link Color} matches the {@code targetColor} or if the
+   *           {@code targetColor} is {@code null} increases the weight of the given Color
+   *        </li>
+   *     </ul>
+   *  <li>
+   *      Inspects the built {@link Map} of weights ans returns the
+   *      {@link ShiftedColor} with the maximum weight
+   *  </li>
+   * </ul>
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param grid the {@link SamplingGrid} of the image
+   * @param colorStatsMap the initial set of statistics storing frequency and weight
+   *                      for each {@link Color} of the {@code image}.
+   * @param shift right shift to apply to image {@link Color}s RGB values.
+   * @param targetColor the target color to match or {@code null} if there is no
+   * @param weightedColors the empty {@link Map} where to sum the weights of the shifted colors
+   * @return the {@link ShiftedColor} which has the maximum weight at the end of the process
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  // @formatter:on
+  private ShiftedColor findMainColorStep(final BufferedImage image, final SamplingGrid grid,
+      final Map<Color, ColorStats> colorStatsMap, final int shift,
+      final ShiftedColor targetColor, final Map<ShiftedColor, Double> weightedColors)
+      throws EmptyImageException {
+    for (int y = image.getMinY(); y < image.getHeight(); y++) {
+      if (grid.isSampledRow(y)) {
+        weighRow(image, grid, y, colorStatsMap, shift, targetColor, weightedColors);
+      }
+    }
+    return getColorWithMaxWeightOrThrow(image, weightedColors);
+  }
+
+  /**
+   * Sums the weights of the sampled pixels of a row matching the target color.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param grid the {@link SamplingGrid} of the image
+   * @param ycoord the sampled row
+   * @param colorStatsMap the {@link Map} of the {@link Color}s statistics
+   * @param shift right shift to apply to image {@link Color}s RGB values.
+   * @param targetColor the target color to match or {@code null} if there is no
+   * @param weightedColors the {@link Map} of weighted colors to update
+   */
+  private void weighRow(final BufferedImage image, final SamplingGrid grid, final int ycoord,
+      final Map<Color, ColorStats> colorStatsMap, final int shift,
+      final ShiftedColor targetColor, final Map<ShiftedColor, Double> weightedColors) {
+    for (int x = grid.getColumnOffset(ycoord); x < image.getWidth(); x += grid.getStepLength()) {
+      final Color color = getPixelColor(image, x, ycoord);
+      if (matchTargetColor(targetColor, color)) {
+        increaseColorWeight(weightedColors, colorStatsMap, color, shift);
+      }
+    }
+  }
+
+  /**
+   * Gets the right shift of the next step of the search, skipping to the last step if the
+   * winning group is decisive.
+   *
+   * @param grid the {@link SamplingGrid} of the image
+   * @param weightedColors the {@link Map} of weighted colors of the current step
+   * @param winner the winning {@link ShiftedColor} of the current step
+   * @return the shift of the next step or {@code -1} if the current step is the last one
+   */
+  private static int getNextShift(final SamplingGrid grid,
+      final Map<ShiftedColor, Double> weightedColors, final ShiftedColor winner) {
+    if (winner.getShift() == 0) {
+      return -1;
+    }
+    final double totalWeight = weightedColors.values().stream()
+        .mapToDouble(Double::doubleValue).sum();
+    return grid.isDecisive(weightedColors.get(winner), totalWeight) ? 0 : winner.getShift() - 2;
+  }
+
+
+  /**
+   * Gets the {@link ShiftedColor} with the maximum weight from {@code weightedColors}.
+   *
+   * @param image the {@link BufferedImage} being processed
+   * @param weightedColors the {@link Map} of weighted {@link ShiftedColor} to process.
+   * @return the {@link ShiftedColor} with the maximum weight in the input map
+   * @throws EmptyImageException in case {@code weightedColors} is empty
+   */
+  private ShiftedColor getColorWithMaxWeightOrThrow(final BufferedImage image,
+      final Map<ShiftedColor, Double> weightedColors) throws EmptyImageException {
+    final Optional<ShiftedColor> winningColor = getColorWithMaxWeight(weightedColors);
+    return winningColor.orElseThrow(() -> new EmptyImageException("Image " + image + " is empty"));
+  }
+
+  /**
+   * Gets the {@link ShiftedColor} with the maxium weight from {@code weightedColors}.
+   *
+   * @param weightedColors the {@link Map} of weighted {@link ShiftedColor} to process.
+   * @return the {@link Optional} {@link ShiftedColor} with the maximum weight in the input map or
+   * {@link Optional#empty()} if {@code weightedColors} is empty.
+   */
+  private Optional<ShiftedColor> getColorWithMaxWeight(
+      final Map<ShiftedColor, Double> weightedColors) {
+    final Optional<Entry<ShiftedColor, Double>> winningColor = weightedColors.entrySet().stream()
+        .max(Comparator.comparingDouble(Entry::getValue));
+    if (!winningColor.isPresent()) {
+      return Optional.empty();
+    }
+    return Optional.of(winningColor.get().getKey());
+  }
+
+  /**
+   * Gets the {@link Color} of a given pixel of an image.
+   *
+   * @param image the {@link BufferedImage} from which to extract the color
+   * @param xcoord x coordinate of the pixel
+   * @param ycoord coordinate of the pixel
+   * @return the {@link Color} at the given coordinates
+   */
+  private Color getPixelColor(final BufferedImage image, final int xcoord, final int ycoord) {
+    return new Color(image.getRGB(xcoord, ycoord));
+  }
+
+  /**
+   * Checks if a given color matches another target color.
+   *
+   * @param targetColor the {@link Color} to match
+   * @param color the {@link Color} to match against the target
+   * @return true if they match or if {@code targetColor} is {@code null}, false otherwise
+   */
+  private boolean matchTargetColor(final ShiftedColor targetColor, final Color color) {
+    return targetColor == null || targetColor.getRed() == (color.getRed() >> targetColor.getShift())
+        && targetColor.getGreen() == (color.getGreen() >> targetColor.getShift())
+        && targetColor.getBlue() == (color.getBlue() >> targetColor.getShift());
+  }
+
+  /**
+   * Increases the weight of a given {@link Color} in the weighted colors {@link Map}.
+   *
+   * @param weightedColors the {@link Map} of weighted colors to update
+   * @param colorStatsMap the {@link Color}s {@link Map} containing {@link Color}s statistics
+   * @param color the {@link Color} entry to update
+   * @param shift the shifting of the colors in the weighed colors {@link Map}
+   */
+  private void increaseColorWeight(final Map<ShiftedColor, Double> weightedColors,
+      final Map<Color, ColorStats> colorStatsMap, final Color color, final int shift) {
+    final ShiftedColor pixelGroup = getShiftedColor(color, shift);
+    final ColorStats colorStats = colorStatsMap.get(color);
+    weightedColors
+        .compute(pixelGroup, (key, value) -> {
+          final double toAdd =
+              floor(colorStats.getWeight() * colorStats.getCount() * 100.0) / 100.0;
+          if (value == null) {
+            return toAdd;
+          }
+          return value + toAdd;
+        });
+  }
+
+  /**
+   * Builds a {@link ShiftedColor} instance.
+   *
+   * @param color the {@link Color}
+   * @param shift the shift to apply to the input {@link Color}
+   * @return an instance of {@link ShiftedColor} containing the shift value and a {@link Color} with
+   *         right shifted RGB values.
+   */
+  private ShiftedColor getShiftedColor(final Color color, final int shift) {
+    return new ShiftedColor(shift,
+        new Color(color.getRed() >> shift,
+            color.getGreen() >> shift,
+            color.getBlue() >> shift));
+  }
+
+}
@@ -0,0 +1,225 @@
+package ch.bisi.jicon.colorfinder;
+
+import static java.lang.StrictMath.floor;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Base class of the {@link ColorFinderEngine}s working on packed {@code 0xRRGGBB} {@code int}s
+ * and primitive {@link PackedColorTable}s instead of {@link Color} objects and boxed weights.
+ *
+ * <p>Subclasses decide how the colors of the image are counted and how the weights of the
+ * shifted color groups are summed at each step of the search. When two groups share the maximum
+ * weight the one added first to the table of weighted colors wins, so that the result does not
+ * depend on the slots of the table.</p>
+ *
+ * <p>The pixels are sampled as decided by the {@link SamplingPolicy} given on construction.</p>
+ */
+abstract class PackedColorFinderEngine implements ColorFinderEngine {
+
+  /** Value of the target color of the first step, matching any color. */
+  static final int ANY_COLOR = -1;
+
+  /** The right shifts applied to the color components at each step of the search. */
+  private static final int[] SHIFTS = {6, 4, 2, 0};
+
+  private final SamplingPolicy samplingPolicy;
+
+  /**
+   * Instantiates a new {@link PackedColorFinderEngine}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy} deciding which pixels are sampled
+   */
+  PackedColorFinderEngine(final SamplingPolicy samplingPolicy) {
+    this.samplingPolicy = samplingPolicy;
+  }
+
+  /**
+   * Finds the main color of a {@link BufferedImage}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the function giving the weight of each {@link Color} of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  @Override
+  public Color findMainColor(final BufferedImage image, final ToDoubleFunction<Color> weigher)
+      throws EmptyImageException {
+    return findMainColorPacked(image, rgb -> weigher.applyAsDouble(new Color(rgb)));
+  }
+
+  /**
+   * Finds the main color of a {@link BufferedImage}, weighing each distinct color once.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param weigher the {@link ColorWeigher} giving the weight of each color of the image
+   * @return the main {@link Color} of the image
+   * @throws EmptyImageException if the input {@code image} is empty
+   */
+  @Override
+  public Color findMainColorPacked(final BufferedImage image, final ColorWeigher weigher)
+      throws EmptyImageException {
+    final SamplingGrid grid = samplingPolicy.getGrid(image.getWidth(), image.getHeight());
+    final PackedColorTable colorStats = countColors(image, grid);
+    setContributions(colorStats, weigher);
+    final PackedColorTable weightedColors = new PackedColorTable(colorStats.size());
+    int targetColor = ANY_COLOR;
+    int targetShift = 0;
+    int step = 0;
+    while (step < SHIFTS.length) {
+      weightedColors.clear();
+      weighColors(image, grid, colorStats, weightedColors, SHIFTS[step], targetShift,
+          targetColor);
+      final int winningSlot = getWinningSlot(image, weightedColors);
+      targetColor = weightedColors.getKey(winningSlot);
+      targetShift = SHIFTS[step];
+      step = getNextStep(grid, weightedColors, winningSlot, step);
+    }
+    return new Color(targetColor);
+  }
+
+  /**
+   * Builds the colors statistics table of a {@link BufferedImage}, counting the occurrences of
+   * each color of the image.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param grid the {@link SamplingGrid} of the image
+   * @return the {@link PackedColorTable} of the image colors
+   */
+  abstract PackedColorTable countColors(BufferedImage image, SamplingGrid grid);
+
+  /**
+   * Executes a step of the color finding algorithm, summing the contribution of each sampled
+   * pixel matching the target color to the weight of its shifted color group.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @param grid the {@link SamplingGrid} of the image
+   * @param colorStats the colors statistics table, the weight of each color is the contribution
+   *        of a single pixel of that color
+   * @param weightedColors the table where to sum the weights of the shifted colors
+   * @param shift right shift to apply to the pixels colors
+   * @param targetShift the right shift of the target color
+   * @param targetColor the target color to match or {@link #ANY_COLOR}
+   */
+  abstract void weighColors(BufferedImage image, SamplingGrid grid, PackedColorTable colorStats,
+      PackedColorTable weightedColors, int shift, int targetShift, int targetColor);
+
+  /**
+   * Sets as weight of each color of the statistics table the contribution the color gives to
+   * the weight of its group, that is its weight multiplied by its frequency.
+   *
+   * @param colorStats the colors statistics table
+   * @param weigher the {@link ColorWeigher} giving the weight of each color of the image
+   */
+  private static void setContributions(final PackedColorTable colorStats,
+      final ColorWeigher weigher) {
+    for (int slot = 0; slot < colorStats.capacity(); slot++) {
+      if (colorStats.isUsed(slot)) {
+        final double weight = weigher.getWeight(colorStats.getKey(slot));
+        colorStats.setWeight(slot,
+            floor(weight * colorStats.getCount(slot) * 100.0) / 100.0);
+      }
+    }
+  }
+
+  /**
+   * Checks if a given color matches the target color.
+   *
+   * @param rgb the packed RGB color to match against the target
+   * @param targetShift the right shift of the target color
+   * @param targetColor the target color to match or {@link #ANY_COLOR}
+   * @return true if they match or if {@code targetColor} is {@link #ANY_COLOR}, false otherwise
+   */
+  static boolean matchTargetColor(final int rgb, final int targetShift,
+      final int targetColor) {
+    return targetColor == ANY_COLOR || shiftColor(rgb, targetShift) == targetColor;
+  }
+
+  /**
+   * Right shifts each component of a packed RGB color.
+   *
+   * @param rgb the packed RGB color
+   * @param shift the right shift to apply to each component
+   * @return the packed shifted color
+   */
+  static int shiftColor(final int rgb, final int shift) {
+    return (rgb >>> shift) & PackedColorKernel.getShiftedMask(shift);
+  }
+
+  /**
+   * Gets the slot of the color group with the maximum weight.
+   *
+   * @param image the {@link BufferedImage} being processed
+   * @param weightedColors the table of weighted colors
+   * @return the slot with the maximum weight
+   * @throws EmptyImageException if the table is empty
+   */
+  private static int getWinningSlot(final BufferedImage image,
+      final PackedColorTable weightedColors) throws EmptyImageException {
+    final int winningSlot = getSlotWithMaxWeight(weightedColors);
+    if (winningSlot == -1) {
+      throw new EmptyImageException("Image " + image + " is empty");
+    }
+    return winningSlot;
+  }
+
+  /**
+   * Gets the next step of the search, that is the last one if the winning group is decisive.
+   *
+   * @param grid the {@link SamplingGrid} of the image
+   * @param weightedColors the table of weighted colors
+   * @param winningSlot the slot with the maximum weight
+   * @param step the index of the current step
+   * @return the index of the next step
+   */
+  private static int getNextStep(final SamplingGrid grid, final PackedColorTable weightedColors,
+      final int winningSlot, final int step) {
+    if (grid.isDecisive(weightedColors.getWeight(winningSlot), getTotalWeight(weightedColors))) {
+      return Math.max(step + 1, SHIFTS.length - 1);
+    }
+    return step + 1;
+  }
+
+  private static double getTotalWeight(final PackedColorTable weightedColors) {
+    double totalWeight = 0;
+    for (int slot = 0; slot < weightedColors.capacity(); slot++) {
+      totalWeight += weightedColors.getWeight(slot);
+    }
+    return totalWeight;
+  }
+
+  /**
+   * Gets the slot of the color with the maximum weight, the first color added to the table
+   * winning the ties.
+   *
+   * @param weightedColors the table of weighted colors
+   * @return the slot with the maximum weight or {@code -1} if the table is empty
+   */
+  private static int getSlotWithMaxWeight(final PackedColorTable weightedColors) {
+    int winningSlot = -1;
+    for (int i = 0; i < weightedColors.size(); i++) {
+      final int slot = weightedColors.find(weightedColors.getInsertedKey(i));
+      if (isHeavier(weightedColors, slot, winningSlot)) {
+        winningSlot = slot;
+      }
+    }
+    return winningSlot;
+  }
+
+  /**
+   * Checks if the color in a given slot is heavier than the current winner.
+   *
+   * @param weightedColors the table of weighted colors
+   * @param slot the slot to check
+   * @param winningSlot the slot of the current winner or {@code -1} if there is no winner yet
+   * @return {@code true} if the color in {@code slot} is heavier, {@code false} otherwise
+   */
+  private static boolean isHeavier(final PackedColorTable weightedColors, final int slot,
+      final int winningSlot) {
+    return winningSlot == -1
+        || weightedColors.getWeight(slot) > weightedColors.getWeight(winningSlot);
+  }
+
+}
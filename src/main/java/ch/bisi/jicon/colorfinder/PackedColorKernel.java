@@ -0,0 +1,84 @@
+package ch.bisi.jicon.colorfinder;
+
+/**
+ * Kernels processing whole rows of packed {@code 0xRRGGBB} colors at once.
+ *
+ * <p>Each kernel is a single loop over the lanes of primitive arrays, without calls and with
+ * branch-free bodies, so that the JIT compiler can unroll it and run it on SIMD registers where
+ * the platform allows it, and runs it as a plain scalar loop otherwise.</p>
+ */
+final class PackedColorKernel {
+
+  private PackedColorKernel() {
+    // hide public constructor
+  }
+
+  /**
+   * Right shifts each component of the packed colors of a row.
+   *
+   * @param rgbs the packed RGB colors of the row
+   * @param length the number of colors to shift
+   * @param shift the right shift to apply to each component
+   * @param shifted the array where to store the packed shifted colors
+   */
+  static void shiftColors(final int[] rgbs, final int length, final int shift,
+      final int[] shifted) {
+    final int mask = getShiftedMask(shift);
+    for (int x = 0; x < length; x++) {
+      shifted[x] = (rgbs[x] >>> shift) & mask;
+    }
+  }
+
+  /**
+   * Selects the sampled colors of a row matching the target color, storing their indexes in
+   * increasing order.
+   *
+   * @param rgbs the packed RGB colors of the row
+   * @param fromX the first sampled color of the row
+   * @param length the number of colors of the row
+   * @param stepLength the sampling step of the row
+   * @param targetShift the right shift of the target color
+   * @param targetColor the target color to match or {@link PackedColorFinderEngine#ANY_COLOR}
+   * @param matches the array where to store the indexes of the matching colors
+   * @return the number of matching colors
+   */
+  static int selectMatches(final int[] rgbs, final int fromX, final int length,
+      final int stepLength, final int targetShift, final int targetColor, final int[] matches) {
+    final int mask = getShiftedMask(targetShift);
+    final boolean anyColor = targetColor == PackedColorFinderEngine.ANY_COLOR;
+    int count = 0;
+    for (int x = fromX; x < length; x += stepLength) {
+      matches[count] = x;
+      count += anyColor || ((rgbs[x] >>> targetShift) & mask) == targetColor ? 1 : 0;
+    }
+    return count;
+  }
+
+  /**
+   * Gets how much the components of a packed color differ from each other, as the sum of the
+   * squared differences between each pair of components.
+   *
+   * @param rgb the packed RGB color
+   * @return the sum of the squared differences, from 0 for grays to 130050
+   */
+  static int getChannelSpread(final int rgb) {
+    final int red = (rgb >> 16) & 0xFF;
+    final int green = (rgb >> 8) & 0xFF;
+    final int blue = rgb & 0xFF;
+    return (red - green) * (red - green) + (red - blue) * (red - blue)
+        + (green - blue) * (green - blue);
+  }
+
+  /**
+   * Gets the mask keeping the bits of the components of a packed color right shifted by a given
+   * amount.
+   *
+   * @param shift the right shift of the components
+   * @return the mask
+   */
+  static int getShiftedMask(final int shift) {
+    final int componentMask = 0xFF >> shift;
+    return componentMask << 16 | componentMask << 8 | componentMask;
+  }
+
+}
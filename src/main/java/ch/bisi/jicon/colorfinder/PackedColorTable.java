@@ -0,0 +1,211 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table associating a count, a number of samples and a weight to packed
+ * {@code 0xRRGGBB} colors. Keys, counts, samples and weights are kept in primitive arrays, so that
+ * updating the table never allocates unless the table has to grow.
+ *
+ * <p>The slots of the colors depend on the order in which the colors are added, so the table also
+ * keeps the colors in insertion order: adding the colors of another table in that order gives the
+ * same slots a single table would have given.</p>
+ */
+final class PackedColorTable {
+
+  /** Marker of an empty slot, packed RGB keys are never negative. */
+  private static final int EMPTY = -1;
+
+  private static final int MIN_CAPACITY = 64;
+
+  private int[] keys;
+  private int[] counts;
+  private int[] samples;
+  private double[] weights;
+  private int[] insertionOrder;
+  private int size;
+
+  /**
+   * Instantiates a new {@link PackedColorTable}.
+   *
+   * @param expectedSize the number of colors the table is expected to contain
+   */
+  PackedColorTable(final int expectedSize) {
+    allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2));
+  }
+
+  /**
+   * Gets the slot of the given color, adding the color to the table if absent.
+   *
+   * @param key the packed RGB color
+   * @return the slot of the color
+   */
+  int slotOf(final int key) {
+    final int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        if ((size + 1) * 2 > keys.length) {
+          grow();
+          return slotOf(key);
+        }
+        keys[slot] = key;
+        insertionOrder[size++] = key;
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Finds the slot of the given color.
+   *
+   * @param key the packed RGB color
+   * @return the slot of the color or {@code -1} if the color is not in the table
+   */
+  int find(final int key) {
+    final int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return -1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Adds the counts and samples of the colors of another table, adding the missing colors in
+   * the order they have been added to the other table. Weights are not added.
+   *
+   * @param other the {@link PackedColorTable} whose colors to add
+   */
+  void addAll(final PackedColorTable other) {
+    for (int i = 0; i < other.size; i++) {
+      final int otherSlot = other.find(other.insertionOrder[i]);
+      final int slot = slotOf(other.insertionOrder[i]);
+      counts[slot] += other.counts[otherSlot];
+      samples[slot] += other.samples[otherSlot];
+    }
+  }
+
+  /**
+   * Removes all the colors from the table, keeping the allocated capacity.
+   */
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    Arrays.fill(counts, 0);
+    Arrays.fill(samples, 0);
+    Arrays.fill(weights, 0.0d);
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Gets a color of the table by its position in insertion order.
+   *
+   * @param index the position of the color, from 0 to size - 1
+   * @return the packed RGB color added at that position
+   */
+  int getInsertedKey(final int index) {
+    return insertionOrder[index];
+  }
+
+  /**
+   * Gets the number of slots of the table, the valid slots range from 0 to capacity - 1.
+   *
+   * @return the number of slots
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  boolean isUsed(final int slot) {
+    return keys[slot] != EMPTY;
+  }
+
+  int getKey(final int slot) {
+    return keys[slot];
+  }
+
+  int getCount(final int slot) {
+    return counts[slot];
+  }
+
+  void addCount(final int slot, final int count) {
+    counts[slot] += count;
+  }
+
+  int getSamples(final int slot) {
+    return samples[slot];
+  }
+
+  void addSamples(final int slot, final int count) {
+    samples[slot] += count;
+  }
+
+  double getWeight(final int slot) {
+    return weights[slot];
+  }
+
+  void setWeight(final int slot, final double weight) {
+    weights[slot] = weight;
+  }
+
+  void addWeight(final int slot, final double weight) {
+    weights[slot] += weight;
+  }
+
+  /**
+   * Doubles the capacity of the table, rehashing all the colors.
+   */
+  private void grow() {
+    final int[] oldKeys = keys;
+    final int[] oldCounts = counts;
+    final int[] oldSamples = samples;
+    final double[] oldWeights = weights;
+    final int[] oldInsertionOrder = insertionOrder;
+    allocate(oldKeys.length << 1);
+    System.arraycopy(oldInsertionOrder, 0, insertionOrder, 0, size);
+    final int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = mix(oldKeys[i]) & mask;
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        counts[slot] = oldCounts[i];
+        samples[slot] = oldSamples[i];
+        weights[slot] = oldWeights[i];
+      }
+    }
+  }
+
+  private void allocate(final int capacity) {
+    keys = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    counts = new int[capacity];
+    samples = new int[capacity];
+    weights = new double[capacity];
+    insertionOrder = new int[capacity >> 1];
+  }
+
+  /**
+   * Spreads the bits of a packed color over the whole {@code int}, so that similar colors do not
+   * end up in adjacent slots.
+   *
+   * @param key the packed RGB color
+   * @return the mixed hash
+   */
+  private static int mix(final int key) {
+    final int hash = key * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+}
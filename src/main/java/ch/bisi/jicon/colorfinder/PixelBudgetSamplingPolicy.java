@@ -0,0 +1,73 @@
+package ch.bisi.jicon.colorfinder;
+
+/**
+ * {@link SamplingPolicy} sampling about a fixed number of pixels whatever the size of the image,
+ * estimating the counts of the colors from the sampled pixels, so that the cost of the search is
+ * bounded.
+ *
+ * <p>The samples form a regular grid, or are drawn at random within each band of the grid when a
+ * seed is given. Smaller budgets and decisive shares make the search faster and less accurate,
+ * see {@link SamplingGrid}.</p>
+ */
+public final class PixelBudgetSamplingPolicy implements SamplingPolicy {
+
+  private final int pixelBudget;
+  private final Long jitterSeed;
+  private final double decisiveShare;
+
+  /**
+   * Instantiates a new {@link PixelBudgetSamplingPolicy} sampling a regular grid and never
+   * terminating the search early.
+   *
+   * @param pixelBudget the maximum number of pixels to sample
+   * @throws IllegalArgumentException if the budget is not positive
+   */
+  public PixelBudgetSamplingPolicy(final int pixelBudget) {
+    this(pixelBudget, null, SamplingGrid.NEVER_DECISIVE);
+  }
+
+  /**
+   * Instantiates a new {@link PixelBudgetSamplingPolicy}.
+   *
+   * @param pixelBudget the maximum number of pixels to sample
+   * @param jitterSeed the seed of the random positions of the samples, or {@code null} to
+   *        sample a regular grid
+   * @param decisiveShare the share of the weight of a step from which the heaviest group is
+   *        decisive, or {@link SamplingGrid#NEVER_DECISIVE}
+   * @throws IllegalArgumentException if the budget or the decisive share are not positive
+   */
+  public PixelBudgetSamplingPolicy(final int pixelBudget, final Long jitterSeed,
+      final double decisiveShare) {
+    if (pixelBudget <= 0 || !(decisiveShare > 0)) {
+      throw new IllegalArgumentException("Pixel budget and decisive share must be positive: "
+          + pixelBudget + ", " + decisiveShare);
+    }
+    this.pixelBudget = pixelBudget;
+    this.jitterSeed = jitterSeed;
+    this.decisiveShare = decisiveShare;
+  }
+
+  /**
+   * Gets the {@link SamplingGrid} of an image, whose step length is the smallest one for which
+   * a sample stands for at least as many pixels as the budget requires.
+   *
+   * @param width the width of the image
+   * @param height the height of the image
+   * @return the {@link SamplingGrid}
+   */
+  @Override
+  public SamplingGrid getGrid(final int width, final int height) {
+    final double pixelsPerSample = (double) width * height / pixelBudget;
+    final int stepLength = (int) Math.max(1, Math.ceil(Math.sqrt(pixelsPerSample)));
+    return new SamplingGrid(stepLength, jitterSeed, false, decisiveShare);
+  }
+
+  @Override
+  public String toString() {
+    return "PixelBudgetSamplingPolicy{"
+        + "pixelBudget=" + pixelBudget
+        + ", jitterSeed=" + jitterSeed
+        + ", decisiveShare=" + decisiveShare
+        + '}';
+  }
+}
@@ -0,0 +1,77 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link ColorFinderEngine} working on packed {@code 0xRRGGBB} {@code int}s and primitive
+ * {@link PackedColorTable}s instead of {@link Color} objects and boxed weights. Pixels are read
+ * straight from the backing array of the raster whenever the image type allows it.
+ *
+ * <p>The engine finds the same main color of the {@link MapColorFinderEngine}: pixels are
+ * visited and weights are summed in the same order. Only ties between groups of equal weight
+ * may be broken differently, in favour of the group of the first visited pixel.</p>
+ *
+ * <p>Each step shifts and matches the pixels a row at a time through the lane kernels of
+ * {@link PackedColorKernel}, then sums the weights of the matching pixels in row order.</p>
+ */
+public class PrimitiveColorFinderEngine extends PackedColorFinderEngine {
+
+  /**
+   * Instantiates a new {@link PrimitiveColorFinderEngine} sampling the pixels as decided by the
+   * {@link SamplingPolicy#DEFAULT} policy.
+   */
+  public PrimitiveColorFinderEngine() {
+    this(SamplingPolicy.DEFAULT);
+  }
+
+  /**
+   * Instantiates a new {@link PrimitiveColorFinderEngine}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy} deciding which pixels are sampled
+   */
+  public PrimitiveColorFinderEngine(final SamplingPolicy samplingPolicy) {
+    super(samplingPolicy);
+  }
+
+  @Override
+  PackedColorTable countColors(final BufferedImage image, final SamplingGrid grid) {
+    final RgbRowReader reader = RgbRowReader.forImage(image);
+    final int[] row = new int[image.getWidth()];
+    final PackedColorTable colorStats = new PackedColorTable(256);
+    for (int y = 0; y < image.getHeight(); y++) {
+      if (grid.isCountedRow(y)) {
+        reader.readRow(y, row);
+        for (int x = grid.getCountedColumnOffset(y); x < row.length;
+            x += grid.getCountedStepLength()) {
+          colorStats.addCount(colorStats.slotOf(row[x]), grid.getCountScale());
+        }
+      }
+    }
+    return colorStats;
+  }
+
+  @Override
+  void weighColors(final BufferedImage image, final SamplingGrid grid,
+      final PackedColorTable colorStats, final PackedColorTable weightedColors, final int shift,
+      final int targetShift, final int targetColor) {
+    final RgbRowReader reader = RgbRowReader.forImage(image);
+    final int[] row = new int[image.getWidth()];
+    final int[] shifted = new int[row.length];
+    final int[] matches = new int[row.length];
+    for (int y = 0; y < image.getHeight(); y++) {
+      if (grid.isSampledRow(y)) {
+        reader.readRow(y, row);
+        PackedColorKernel.shiftColors(row, row.length, shift, shifted);
+        final int matchCount = PackedColorKernel.selectMatches(row, grid.getColumnOffset(y),
+            row.length, grid.getStepLength(), targetShift, targetColor, matches);
+        for (int i = 0; i < matchCount; i++) {
+          final int x = matches[i];
+          weightedColors.addWeight(weightedColors.slotOf(shifted[x]),
+              colorStats.getWeight(colorStats.find(row[x])));
+        }
+      }
+    }
+  }
+
+}
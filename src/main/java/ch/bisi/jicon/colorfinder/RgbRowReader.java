@@ -0,0 +1,210 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Reads the pixels of a {@link BufferedImage} one row at a time as packed {@code 0xRRGGBB}
+ * {@code int}s. For the common image types the backing {@code int[]}/{@code byte[]} of the raster
+ * is read directly, any other image goes through {@link BufferedImage#getRGB}. In both cases the
+ * values are the same returned by {@link BufferedImage#getRGB(int, int)} without the alpha
+ * channel.
+ */
+abstract class RgbRowReader {
+
+  /** Mask removing the alpha channel from an ARGB value. */
+  static final int RGB_MASK = 0xFFFFFF;
+
+  /**
+   * Gets the most efficient {@link RgbRowReader} for the given {@link BufferedImage}.
+   *
+   * @param image the {@link BufferedImage} to read
+   * @return the {@link RgbRowReader} for the image
+   */
+  static RgbRowReader forImage(final BufferedImage image) {
+    if (IntRowReader.isSupported(image)) {
+      return new IntRowReader(image);
+    }
+    if (ByteRowReader.isSupported(image)) {
+      return new ByteRowReader(image);
+    }
+    if (IndexedRowReader.isSupported(image)) {
+      return new IndexedRowReader(image);
+    }
+    return new GenericRowReader(image);
+  }
+
+  /**
+   * Checks if the raster of the given image uses the given {@link SampleModel} and a single bank
+   * {@link DataBuffer} of the given type.
+   *
+   * @param image the {@link BufferedImage} to check
+   * @param sampleModelType the expected type of {@link SampleModel}
+   * @param dataBufferType the expected type of {@link DataBuffer}
+   * @return {@code true} if the raster matches the given types, {@code false} otherwise
+   */
+  private static boolean isBackedBySingleBank(final BufferedImage image,
+      final Class<? extends SampleModel> sampleModelType,
+      final Class<? extends DataBuffer> dataBufferType) {
+    final WritableRaster raster = image.getRaster();
+    return sampleModelType.isInstance(raster.getSampleModel())
+        && dataBufferType.isInstance(raster.getDataBuffer())
+        && raster.getDataBuffer().getNumBanks() == 1;
+  }
+
+  /**
+   * Reads a row of the image.
+   *
+   * @param ycoord the y coordinate of the row
+   * @param rgbs the destination of the packed RGB values, at least as long as the image width
+   */
+  abstract void readRow(int ycoord, int[] rgbs);
+
+  /**
+   * Reads the pixels of images backed by a single {@code int} per pixel.
+   */
+  private static final class IntRowReader extends RgbRowReader {
+
+    private final int[] data;
+    private final int width;
+    private final int offset;
+    private final int scanlineStride;
+
+    private IntRowReader(final BufferedImage image) {
+      final WritableRaster raster = image.getRaster();
+      final SinglePixelPackedSampleModel sampleModel =
+          (SinglePixelPackedSampleModel) raster.getSampleModel();
+      final DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+      this.data = dataBuffer.getData();
+      this.width = image.getWidth();
+      this.scanlineStride = sampleModel.getScanlineStride();
+      this.offset = dataBuffer.getOffset()
+          - raster.getSampleModelTranslateY() * scanlineStride
+          - raster.getSampleModelTranslateX();
+    }
+
+    private static boolean isSupported(final BufferedImage image) {
+      final int type = image.getType();
+      return (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+          && isBackedBySingleBank(image, SinglePixelPackedSampleModel.class, DataBufferInt.class);
+    }
+
+    @Override
+    void readRow(final int ycoord, final int[] rgbs) {
+      final int rowStart = offset + ycoord * scanlineStride;
+      for (int x = 0; x < width; x++) {
+        rgbs[x] = data[rowStart + x] & RGB_MASK;
+      }
+    }
+  }
+
+  /**
+   * Reads the pixels of images storing each color component in its own {@code byte}.
+   */
+  private static class ByteRowReader extends RgbRowReader {
+
+    final byte[] data;
+    final int width;
+    final int offset;
+    final int scanlineStride;
+    final int pixelStride;
+    private final int redOffset;
+    private final int greenOffset;
+    private final int blueOffset;
+
+    ByteRowReader(final BufferedImage image) {
+      final WritableRaster raster = image.getRaster();
+      final ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+      final DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+      this.data = dataBuffer.getData();
+      this.width = image.getWidth();
+      this.scanlineStride = sampleModel.getScanlineStride();
+      this.pixelStride = sampleModel.getPixelStride();
+      this.offset = dataBuffer.getOffset()
+          - raster.getSampleModelTranslateY() * scanlineStride
+          - raster.getSampleModelTranslateX() * pixelStride;
+      final int[] bandOffsets = sampleModel.getBandOffsets();
+      this.redOffset = bandOffsets[0];
+      this.greenOffset = bandOffsets[Math.min(1, bandOffsets.length - 1)];
+      this.blueOffset = bandOffsets[Math.min(2, bandOffsets.length - 1)];
+    }
+
+    private static boolean isSupported(final BufferedImage image) {
+      final int type = image.getType();
+      return (type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+          && isBackedBySingleBank(image, ComponentSampleModel.class, DataBufferByte.class);
+    }
+
+    @Override
+    void readRow(final int ycoord, final int[] rgbs) {
+      int index = offset + ycoord * scanlineStride;
+      for (int x = 0; x < width; x++) {
+        rgbs[x] = (data[index + redOffset] & 0xFF) << 16
+            | (data[index + greenOffset] & 0xFF) << 8
+            | data[index + blueOffset] & 0xFF;
+        index += pixelStride;
+      }
+    }
+  }
+
+  /**
+   * Reads the pixels of images storing a {@code byte} index into an {@link IndexColorModel} per
+   * pixel.
+   */
+  private static final class IndexedRowReader extends ByteRowReader {
+
+    private final int[] palette = new int[256];
+
+    private static boolean isSupported(final BufferedImage image) {
+      return image.getType() == BufferedImage.TYPE_BYTE_INDEXED
+          && image.getColorModel() instanceof IndexColorModel
+          && isBackedBySingleBank(image, ComponentSampleModel.class, DataBufferByte.class);
+    }
+
+    private IndexedRowReader(final BufferedImage image) {
+      super(image);
+      final IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+      for (int i = 0; i < palette.length; i++) {
+        palette[i] = colorModel.getRGB(i) & RGB_MASK;
+      }
+    }
+
+    @Override
+    void readRow(final int ycoord, final int[] rgbs) {
+      int index = offset + ycoord * scanlineStride;
+      for (int x = 0; x < width; x++) {
+        rgbs[x] = palette[data[index] & 0xFF];
+        index += pixelStride;
+      }
+    }
+  }
+
+  /**
+   * Reads the pixels of any image through {@link BufferedImage#getRGB}.
+   */
+  private static final class GenericRowReader extends RgbRowReader {
+
+    private final BufferedImage image;
+
+    private GenericRowReader(final BufferedImage image) {
+      this.image = image;
+    }
+
+    @Override
+    void readRow(final int ycoord, final int[] rgbs) {
+      final int width = image.getWidth();
+      image.getRGB(0, ycoord, width, 1, rgbs, 0, width);
+      for (int x = 0; x < width; x++) {
+        rgbs[x] &= RGB_MASK;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.util.OptionalLong;
+
+/**
+ * Pixels of an image sampled by the {@link ColorFinderEngine}s, as decided by a
+ * {@link SamplingPolicy}.
+ *
+ * <p>The rows of the image are split in bands of as many rows as the step length and a single
+ * row of each band is sampled, in which every pixel at a multiple of the step length from the
+ * column offset of the band is sampled. Without jitter the first row and the first column of
+ * each band are sampled, so that the samples form a regular grid; with jitter the row and the
+ * column offset of each band are drawn from a pseudo random sequence given by the seed, so that
+ * each band is sampled at random positions while the samples remain spread over the image.</p>
+ *
+ * <p>The colors can be counted over all the pixels of the image, as the reference algorithm
+ * does, or estimated from the sampled pixels only, each one counting for as many pixels as the
+ * square of the step length: in this case the cost of the search only depends on the number of
+ * samples and not on the size of the image.</p>
+ *
+ * <p>The search can also stop refining the color groups early: once the heaviest group of a step
+ * holds at least the decisive share of the weight of the step, the search directly looks for the
+ * main color within that group.</p>
+ */
+public final class SamplingGrid {
+
+  /**
+   * Decisive share never reached, disabling the early termination of the search.
+   */
+  public static final double NEVER_DECISIVE = Double.POSITIVE_INFINITY;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final int stepLength;
+  private final Long jitterSeed;
+  private final boolean countingAllPixels;
+  private final double decisiveShare;
+
+  /**
+   * Instantiates a new regular {@link SamplingGrid} counting all the pixels of the image and
+   * never terminating the search early.
+   *
+   * @param stepLength the distance between two sampled rows and columns
+   * @throws IllegalArgumentException if the step length is not positive
+   */
+  public SamplingGrid(final int stepLength) {
+    this(stepLength, null, true, NEVER_DECISIVE);
+  }
+
+  /**
+   * Instantiates a new {@link SamplingGrid}.
+   *
+   * @param stepLength the distance between two sampled rows and columns
+   * @param jitterSeed the seed of the positions of the samples within each band, or
+   *        {@code null} for a regular grid
+   * @param countingAllPixels {@code true} to count the colors over all the pixels,
+   *        {@code false} to estimate the counts from the sampled pixels
+   * @param decisiveShare the share of the weight of a step from which the heaviest group is
+   *        decisive, or {@link #NEVER_DECISIVE}
+   * @throws IllegalArgumentException if the step length or the decisive share are not positive
+   */
+  public SamplingGrid(final int stepLength, final Long jitterSeed,
+      final boolean countingAllPixels, final double decisiveShare) {
+    if (stepLength <= 0 || !(decisiveShare > 0)) {
+      throw new IllegalArgumentException("Step length and decisive share must be positive: "
+          + stepLength + ", " + decisiveShare);
+    }
+    this.stepLength = stepLength;
+    this.jitterSeed = jitterSeed;
+    this.countingAllPixels = countingAllPixels;
+    this.decisiveShare = decisiveShare;
+  }
+
+  /**
+   * Gets the distance between two sampled rows and between two sampled columns.
+   *
+   * @return the step length
+   */
+  public int getStepLength() {
+    return stepLength;
+  }
+
+  /**
+   * Gets the seed of the positions of the samples within each band.
+   *
+   * @return an {@link OptionalLong} seed, empty for a regular grid
+   */
+  public OptionalLong getJitterSeed() {
+    return jitterSeed == null ? OptionalLong.empty() : OptionalLong.of(jitterSeed);
+  }
+
+  /**
+   * Checks whether the colors are counted over all the pixels of the image.
+   *
+   * @return {@code true} if all the pixels are counted, {@code false} if the counts are
+   *         estimated from the sampled pixels
+   */
+  public boolean isCountingAllPixels() {
+    return countingAllPixels;
+  }
+
+  /**
+   * Gets the share of the weight of a step from which the heaviest group is decisive.
+   *
+   * @return the decisive share, or {@link #NEVER_DECISIVE}
+   */
+  public double getDecisiveShare() {
+    return decisiveShare;
+  }
+
+  /**
+   * Gets the number of pixels a sampled pixel counts for when the counts are estimated.
+   *
+   * @return the square of the step length, or 1 if all the pixels are counted
+   */
+  int getCountScale() {
+    return countingAllPixels ? 1 : stepLength * stepLength;
+  }
+
+  /**
+   * Checks whether a row is sampled.
+   *
+   * @param ycoord the row
+   * @return {@code true} if the row is sampled, {@code false} otherwise
+   */
+  boolean isSampledRow(final int ycoord) {
+    return ycoord % stepLength == getJitter(2L * (ycoord / stepLength));
+  }
+
+  /**
+   * Gets the first sampled column of a sampled row.
+   *
+   * @param ycoord the sampled row
+   * @return the column offset, lower than the step length
+   */
+  int getColumnOffset(final int ycoord) {
+    return getJitter(2L * (ycoord / stepLength) + 1);
+  }
+
+  /**
+   * Checks whether the colors of a row are counted.
+   *
+   * @param ycoord the row
+   * @return {@code true} if all the pixels are counted or the row is sampled, {@code false}
+   *         otherwise
+   */
+  boolean isCountedRow(final int ycoord) {
+    return countingAllPixels || isSampledRow(ycoord);
+  }
+
+  /**
+   * Gets the first counted column of a counted row.
+   *
+   * @param ycoord the counted row
+   * @return the first counted column
+   */
+  int getCountedColumnOffset(final int ycoord) {
+    return countingAllPixels ? 0 : getColumnOffset(ycoord);
+  }
+
+  /**
+   * Gets the distance between two counted columns.
+   *
+   * @return 1 if all the pixels are counted, the step length otherwise
+   */
+  int getCountedStepLength() {
+    return countingAllPixels ? 1 : stepLength;
+  }
+
+  /**
+   * Checks whether a heaviest group is decisive.
+   *
+   * @param maxWeight the weight of the heaviest group
+   * @param totalWeight the weight of all the groups
+   * @return {@code true} if the heaviest group is decisive, {@code false} otherwise
+   */
+  boolean isDecisive(final double maxWeight, final double totalWeight) {
+    return maxWeight >= decisiveShare * totalWeight;
+  }
+
+  /**
+   * Gets the offset of a sample within a band, mixing the seed and the index of the sample.
+   *
+   * @param index the index of the offset
+   * @return the offset, from 0 to the step length excluded, always 0 for a regular grid
+   */
+  private int getJitter(final long index) {
+    if (jitterSeed == null) {
+      return 0;
+    }
+    long mixed = jitterSeed + index * GOLDEN_GAMMA;
+    mixed = (mixed ^ mixed >>> 30) * 0xBF58476D1CE4E5B9L;
+    mixed = (mixed ^ mixed >>> 27) * 0x94D049BB133111EBL;
+    return (int) Long.remainderUnsigned(mixed ^ mixed >>> 31, stepLength);
+  }
+
+  @Override
+  public String toString() {
+    return "SamplingGrid{"
+        + "stepLength=" + stepLength
+        + ", jitterSeed=" + jitterSeed
+        + ", countingAllPixels=" + countingAllPixels
+        + ", decisiveShare=" + decisiveShare
+        + '}';
+  }
+}
@@ -0,0 +1,32 @@
+package ch.bisi.jicon.colorfinder;
+
+/**
+ * Strategy deciding which pixels of an image the {@link ColorFinderEngine}s sample, trading the
+ * accuracy of the found color for speed.
+ */
+@FunctionalInterface
+public interface SamplingPolicy {
+
+  /**
+   * The size of the biggest square images whose pixels are all sampled by the {@link #DEFAULT}
+   * policy.
+   */
+  int FULL_SAMPLING_SIZE = 180;
+
+  /**
+   * Policy sampling every pixel of the images up to 180x180 pixels and every second pixel of
+   * every second row of bigger images, counting all the pixels in both cases.
+   */
+  SamplingPolicy DEFAULT = (width, height) ->
+      new SamplingGrid(width * height > FULL_SAMPLING_SIZE * FULL_SAMPLING_SIZE ? 2 : 1);
+
+  /**
+   * Gets the {@link SamplingGrid} to use for an image.
+   *
+   * @param width the width of the image
+   * @param height the height of the image
+   * @return the {@link SamplingGrid}
+   */
+  SamplingGrid getGrid(int width, int height);
+
+}
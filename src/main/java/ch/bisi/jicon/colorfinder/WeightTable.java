@@ -0,0 +1,58 @@
+package ch.bisi.jicon.colorfinder;
+
+import java.util.Arrays;
+
+/**
+ * {@link ColorWeigher} memoizing the weights given by another {@link ColorWeigher}, for
+ * weighings that are expensive or called many times for the same colors.
+ *
+ * <p>The weights are kept in a direct mapped table of {@code 2^15} entries indexed on the 5 most
+ * significant bits of each component of the color. Each entry stores the exact color it has been
+ * computed for, so colors sharing an entry are weighed again instead of getting an approximated
+ * weight: the weights are always the ones the memoized {@link ColorWeigher} gives.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ */
+public final class WeightTable implements ColorWeigher {
+
+  private static final int CAPACITY = 1 << 15;
+
+  /** Marker of an empty entry, masked RGB colors are never negative. */
+  private static final int EMPTY = -1;
+
+  private final ColorWeigher weigher;
+  private final int[] keys = new int[CAPACITY];
+  private final double[] weights = new double[CAPACITY];
+
+  /**
+   * Instantiates a new empty {@link WeightTable}.
+   *
+   * @param weigher the {@link ColorWeigher} giving the weights to memoize
+   */
+  public WeightTable(final ColorWeigher weigher) {
+    this.weigher = weigher;
+    Arrays.fill(keys, EMPTY);
+  }
+
+  @Override
+  public double getWeight(final int rgb) {
+    final int key = rgb & 0xFFFFFF;
+    final int index = quantize(key);
+    if (keys[index] != key) {
+      weights[index] = weigher.getWeight(key);
+      keys[index] = key;
+    }
+    return weights[index];
+  }
+
+  /**
+   * Quantizes a packed color to the 5 most significant bits of each of its components.
+   *
+   * @param rgb the packed RGB color
+   * @return the packed {@code 0bRRRRRGGGGGBBBBB} quantized color
+   */
+  private static int quantize(final int rgb) {
+    return rgb >> 9 & 0x7C00 | rgb >> 6 & 0x3E0 | rgb >> 3 & 0x1F;
+  }
+
+}
@@ -0,0 +1,40 @@
+package ch.bisi.jicon.common;
+
+/**
+ * 8 bit arithmetic of the Java2D software loops, used to composite pixels exactly as Java2D would.
+ */
+final class AlphaMath {
+
+  static final int MAX = 0xFF;
+
+  private AlphaMath() {
+    // hide public constructor
+  }
+
+  /**
+   * Multiplies two 8 bit values as the Java2D {@code mul8table} does.
+   *
+   * @param alpha the first value, usually an alpha
+   * @param value the second value
+   * @return the rounded {@code alpha * value / 255}
+   */
+  static int mul8(final int alpha, final int value) {
+    return (int) ((alpha * 0x10101L * value + (1 << 23)) >> 24);
+  }
+
+  /**
+   * Divides two 8 bit values as the Java2D {@code div8table} does.
+   *
+   * @param value the dividend
+   * @param alpha the divisor, in {@code 1..255}
+   * @return the rounded {@code value * 255 / alpha}, clamped to 255
+   */
+  static int div8(final int value, final int alpha) {
+    if (value >= alpha) {
+      return MAX;
+    }
+    final long increment = (((long) MAX << 24) + alpha / 2) / alpha;
+    return (int) ((increment * value + (1 << 23)) >> 24);
+  }
+
+}
@@ -0,0 +1,263 @@
+package ch.bisi.jicon.common;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Parser of the headers of ICO, PNG, GIF and BMP files, extracting the format and the size of the
+ * embedded images from the first bytes of a file without going through ImageIO.
+ *
+ * <p>The formats and the sizes are the ones that the ImageIO readers report for the same files.
+ * Files in other formats, or whose header does not fit into {@link #HEADER_BYTES}, are not
+ * parsed and have to be read through ImageIO.</p>
+ *
+ * <p>The {@code ICONDIRENTRY}s also locate the embedded images within an ICO file, so that the
+ * images stored as PNG can be sliced out of the file as they are.</p>
+ */
+final class ImageHeaders {
+
+  /**
+   * The number of bytes needed for parsing a header, enough for an ICO directory of 63 entries.
+   */
+  static final int HEADER_BYTES = 1024;
+
+  private static final byte[] PNG_SIGNATURE =
+      {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+  private static final byte[] PNG_IHDR = {'I', 'H', 'D', 'R'};
+  private static final byte[] GIF87A = {'G', 'I', 'F', '8', '7', 'a'};
+  private static final byte[] GIF89A = {'G', 'I', 'F', '8', '9', 'a'};
+  private static final byte[] BMP_SIGNATURE = {'B', 'M'};
+
+  private static final int ICO_DIRECTORY_BYTES = 6;
+  private static final int ICO_ENTRY_BYTES = 16;
+  private static final int ICO_TYPE = 1;
+  private static final int ICO_ENTRY_BYTES_OFFSET = 8;
+  private static final int ICO_ENTRY_IMAGE_OFFSET = 12;
+  private static final int ICO_MAX_SIZE = 256;
+  private static final int BMP_CORE_HEADER_BYTES = 12;
+  private static final int BMP_INFO_HEADER_BYTES = 40;
+  private static final int UNSIGNED_BYTE = 0xFF;
+  private static final int UNSIGNED_SHORT = 0xFFFF;
+
+  private static final List<Function<ByteBuffer, Optional<List<JiconIconImage>>>> parsers =
+      Arrays.asList(ImageHeaders::parsePng, ImageHeaders::parseIco, ImageHeaders::parseGif,
+          ImageHeaders::parseBmp);
+
+  private ImageHeaders() {
+    // hide public constructor
+  }
+
+  /**
+   * Reads from an {@link InputStream} the bytes needed for parsing the header of a file, that is
+   * at most {@link #HEADER_BYTES} bytes.
+   *
+   * @param in the {@link InputStream} to read
+   * @return the bytes read, fewer than {@link #HEADER_BYTES} only if the stream ended before
+   * @throws IOException in case of problems reading the {@link InputStream}
+   */
+  static byte[] readHeader(final InputStream in) throws IOException {
+    final byte[] header = new byte[HEADER_BYTES];
+    int length = 0;
+    int read = 0;
+    while (length < header.length && read != -1) {
+      read = in.read(header, length, header.length - length);
+      length += Math.max(read, 0);
+    }
+    return length == header.length ? header : Arrays.copyOf(header, length);
+  }
+
+  /**
+   * Parses the header of an ICO, PNG, GIF or BMP file.
+   *
+   * @param header the first bytes of the file
+   * @return the {@link List} of {@link JiconIconImage}s embedded in the file or an empty
+   *         {@link Optional} if the header is not a complete ICO, PNG, GIF or BMP header
+   */
+  static Optional<List<JiconIconImage>> parse(final byte[] header) {
+    return parsers.stream()
+        .map(parser -> parser.apply(ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN)))
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        .findFirst();
+  }
+
+  /**
+   * Parses the signature and the {@code IHDR} chunk of a PNG file.
+   *
+   * @param header the header, in little endian order
+   * @return the single PNG image or an empty {@link Optional}
+   */
+  private static Optional<List<JiconIconImage>> parsePng(final ByteBuffer header) {
+    if (header.remaining() < 24 || !startsWith(header, 0, PNG_SIGNATURE)
+        || !startsWith(header, 12, PNG_IHDR)) {
+      return Optional.empty();
+    }
+    header.order(ByteOrder.BIG_ENDIAN);
+    return single("png", header.getInt(16), header.getInt(20));
+  }
+
+  /**
+   * Parses the {@code ICONDIR} and the {@code ICONDIRENTRY}s of an ICO file, where a width or
+   * height of 0 means 256 pixels.
+   *
+   * @param header the header, in little endian order
+   * @return the images of the ICO file or an empty {@link Optional}
+   */
+  private static Optional<List<JiconIconImage>> parseIco(final ByteBuffer header) {
+    final int count = getIcoCount(header);
+    if (count == 0 || header.remaining() < ICO_DIRECTORY_BYTES + count * ICO_ENTRY_BYTES) {
+      return Optional.empty();
+    }
+    final List<JiconIconImage> images = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final int entry = ICO_DIRECTORY_BYTES + i * ICO_ENTRY_BYTES;
+      images.add(new JiconIconImage("ico",
+          new Dimension(getIcoSize(header, entry), getIcoSize(header, entry + 1))));
+    }
+    return Optional.of(images);
+  }
+
+  /**
+   * Slices out of an ICO file the embedded images stored as PNG, as they are.
+   *
+   * @param file the whole ICO file, from its position to its limit
+   * @return the {@link List} holding, for each embedded image, the {@link ByteBuffer} of the PNG
+   *         file or an empty {@link Optional} if the image is stored as a bitmap; an empty
+   *         {@link List} if the file is not an ICO file or if its entries do not lie within it
+   */
+  static List<Optional<ByteBuffer>> getPngEntries(final ByteBuffer file) {
+    final ByteBuffer ico = file.slice().order(ByteOrder.LITTLE_ENDIAN);
+    final int count = getIcoCount(ico);
+    if (ico.remaining() < ICO_DIRECTORY_BYTES + count * ICO_ENTRY_BYTES) {
+      return Collections.emptyList();
+    }
+    final List<Optional<ByteBuffer>> entries = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final int entry = ICO_DIRECTORY_BYTES + i * ICO_ENTRY_BYTES;
+      final long offset = ico.getInt(entry + ICO_ENTRY_IMAGE_OFFSET) & 0xFFFFFFFFL;
+      final long bytes = ico.getInt(entry + ICO_ENTRY_BYTES_OFFSET) & 0xFFFFFFFFL;
+      if (offset + bytes > ico.remaining()) {
+        return Collections.emptyList();
+      }
+      entries.add(slicePng(ico, (int) offset, (int) bytes));
+    }
+    return entries;
+  }
+
+  /**
+   * Slices an embedded image out of an ICO file, if it is stored as PNG.
+   *
+   * @param ico the ICO file
+   * @param offset the offset of the image
+   * @param bytes the size of the image
+   * @return the {@link ByteBuffer} of the PNG file or an empty {@link Optional}
+   */
+  private static Optional<ByteBuffer> slicePng(final ByteBuffer ico, final int offset,
+      final int bytes) {
+    final ByteBuffer image = ico.duplicate();
+    image.position(offset).limit(offset + bytes);
+    if (bytes < PNG_SIGNATURE.length || !startsWith(image, offset, PNG_SIGNATURE)) {
+      return Optional.empty();
+    }
+    return Optional.of(image.slice());
+  }
+
+  /**
+   * Gets the number of images declared by an {@code ICONDIR}.
+   *
+   * @param header the header, in little endian order
+   * @return the number of images or 0 if the header is not an {@code ICONDIR}
+   */
+  private static int getIcoCount(final ByteBuffer header) {
+    if (header.remaining() < ICO_DIRECTORY_BYTES || header.getShort(0) != 0
+        || header.getShort(2) != ICO_TYPE) {
+      return 0;
+    }
+    return header.getShort(4) & UNSIGNED_SHORT;
+  }
+
+  /**
+   * Parses the logical screen descriptor of a GIF file.
+   *
+   * @param header the header, in little endian order
+   * @return the single GIF image or an empty {@link Optional}
+   */
+  private static Optional<List<JiconIconImage>> parseGif(final ByteBuffer header) {
+    if (header.remaining() < 10
+        || !startsWith(header, 0, GIF87A) && !startsWith(header, 0, GIF89A)) {
+      return Optional.empty();
+    }
+    return single("gif", header.getShort(6) & UNSIGNED_SHORT,
+        header.getShort(8) & UNSIGNED_SHORT);
+  }
+
+  /**
+   * Parses the file header and the DIB header of a BMP file, for both the
+   * {@code BITMAPCOREHEADER} and the {@code BITMAPINFOHEADER} families. The height of top-down
+   * bitmaps is negative and is reported as its absolute value.
+   *
+   * @param header the header, in little endian order
+   * @return the single BMP image or an empty {@link Optional}
+   */
+  private static Optional<List<JiconIconImage>> parseBmp(final ByteBuffer header) {
+    if (header.remaining() < 26 || !startsWith(header, 0, BMP_SIGNATURE)) {
+      return Optional.empty();
+    }
+    final int dibHeaderBytes = header.getInt(14);
+    if (dibHeaderBytes == BMP_CORE_HEADER_BYTES) {
+      return single("bmp", header.getShort(18) & UNSIGNED_SHORT,
+          header.getShort(20) & UNSIGNED_SHORT);
+    }
+    return parseBmpInfoHeader(header, dibHeaderBytes);
+  }
+
+  /**
+   * Parses the size of a bitmap from a {@code BITMAPINFOHEADER}, or one of its later versions.
+   *
+   * @param header the header, in little endian order
+   * @param dibHeaderBytes the size of the DIB header
+   * @return the single BMP image or an empty {@link Optional}
+   */
+  private static Optional<List<JiconIconImage>> parseBmpInfoHeader(final ByteBuffer header,
+      final int dibHeaderBytes) {
+    if (dibHeaderBytes < BMP_INFO_HEADER_BYTES) {
+      return Optional.empty();
+    }
+    return single("bmp", header.getInt(18), Math.abs(header.getInt(22)));
+  }
+
+  private static int getIcoSize(final ByteBuffer header, final int index) {
+    final int size = header.get(index) & UNSIGNED_BYTE;
+    return size == 0 ? ICO_MAX_SIZE : size;
+  }
+
+  private static Optional<List<JiconIconImage>> single(final String format, final int width,
+      final int height) {
+    if (width <= 0 || height <= 0) {
+      return Optional.empty();
+    }
+    final List<JiconIconImage> images = new ArrayList<>(1);
+    images.add(new JiconIconImage(format, new Dimension(width, height)));
+    return Optional.of(images);
+  }
+
+  private static boolean startsWith(final ByteBuffer header, final int index,
+      final byte[] prefix) {
+    for (int i = 0; i < prefix.length; i++) {
+      if (header.get(index + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
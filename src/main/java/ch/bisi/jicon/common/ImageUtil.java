@@ -2,16 +2,28 @@ package ch.bisi.jicon.common;
 
 import static ch.bisi.jicon.common.Util.replaceExtension;
 
+import ch.bisi.jicon.http.HttpResponse;
+import ch.bisi.jicon.http.HttpTransport;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
 import org.slf4j.Logger;
@@ -23,6 +35,12 @@ import org.slf4j.LoggerFactory;
 public class ImageUtil {
 
   private static final Logger logger = LoggerFactory.getLogger(ImageUtil.class);
+  private static final String PNG = "png";
+
+  /**
+   * The key of the images smaller than the minimum size, ordering them after the big enough ones.
+   */
+  private static final long SMALLER_IMAGE = 1L << 32;
 
   private ImageUtil() {
     //hide public constructor
@@ -32,6 +50,7 @@ public class ImageUtil {
    * Generic method for executing a given operation for each image contained in the file at the
    * given {@link URL}. Results of the executed operations are collected and returned by the
    * method. Results are ordered as the images embedded in the file at the given {@link URL}.
+   * The file is fetched through the default {@link HttpTransport}.
    *
    * @param <T> the result of each executed operation
    * @param imageUrl the {@link URL} of the image resource
@@ -46,27 +65,262 @@ public class ImageUtil {
   public static <T> List<T> executeOperationForEachEmbeddedImage(final URL imageUrl,
       final ThrowableBiFunction<ImageReader, Integer, T, IOException> operation)
       throws ImageFormatNotSupportedException, IOException {
+    return executeOperationForEachEmbeddedImage(imageUrl, HttpTransport.getDefault(), operation);
+  }
 
-    try (ImageInputStream imageStream = ImageIO.createImageInputStream(imageUrl.openStream())) {
-      final ImageReader reader = getImageReader(imageUrl, imageStream)
-          .orElseThrow(() -> new ImageFormatNotSupportedException(
-              "Image format " + Util.getExtension(imageUrl.toString()) + " not supported"));
+  /**
+   * Generic method for executing a given operation for each image contained in the file at the
+   * given {@link URL}, fetched through the given {@link HttpTransport}, as
+   * {@link #executeOperationForEachEmbeddedImage(URL, ThrowableBiFunction)} does.
+   *
+   * @param <T> the result of each executed operation
+   * @param imageUrl the {@link URL} of the image resource
+   * @param transport the {@link HttpTransport} fetching the file
+   * @param operation the {@link ThrowableBiFunction} to execute for each image contained in the
+   *        file at the given {@link URL}
+   * @return a {@link List} of {@link T}s containing each result returned by the executed operations
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the image at the given {@link URL}
+   * @throws IOException if an error occurs fetching the file, retrieving the {@link ImageReader}
+   *         or executing the input {@code operation}.
+   */
+  public static <T> List<T> executeOperationForEachEmbeddedImage(final URL imageUrl,
+      final HttpTransport transport,
+      final ThrowableBiFunction<ImageReader, Integer, T, IOException> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    try (HttpResponse response = transport.get(imageUrl, null)) {
+      return executeOperationForEachEmbeddedImage(imageUrl, response.getBody(), operation);
+    }
+  }
 
+  /**
+   * Generic method for executing a given operation for each image contained in the file read
+   * from the given {@link InputStream}. Results of the executed operations are collected and
+   * returned by the method. Results are ordered as the images embedded in the file.
+   *
+   * @param <T> the result of each executed operation
+   * @param imageUrl the {@link URL} of the image resource, used for guessing the image format
+   * @param imageStream the {@link InputStream} for reading the image resource, the caller is
+   *        responsible for closing it
+   * @param operation the {@link ThrowableBiFunction} to execute for each image contained in the
+   *        file
+   * @return a {@link List} of {@link T}s containing each result returned by the executed operations
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the image at the given {@link URL}
+   * @throws IOException if an error occurs retrieving the {@link ImageReader} or executing the
+   *         input {@code operation}.
+   */
+  public static <T> List<T> executeOperationForEachEmbeddedImage(final URL imageUrl,
+      final InputStream imageStream,
+      final ThrowableBiFunction<ImageReader, Integer, T, IOException> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    return executeOperationOnImageReader(imageUrl, imageStream, reader -> {
       final List<T> images = new ArrayList<>();
+      final int imagesNum = reader.getNumImages(false);
+      logger.trace("File at URL {} contains {} embedded images", imageUrl, imagesNum);
+      for (int i = reader.getMinIndex(); i < imagesNum; i++) {
+        logger.trace("Processing image number {}", i);
+        images.add(operation.apply(reader, i));
+      }
+      return images;
+    });
+  }
+
+  /**
+   * Executes a given operation for each image embedded in the file of a {@link JiconIcon}, as
+   * {@link #executeOperationForEachEmbeddedImage(URL, InputStream, ThrowableBiFunction)} does.
+   * The file is read through {@link JiconIcon#openStream()}.
+   *
+   * @param <T> the result of each executed operation
+   * @param icon the {@link JiconIcon}
+   * @param operation the {@link ThrowableBiFunction} to execute for each image contained in the
+   *        file
+   * @return a {@link List} of {@link T}s containing each result returned by the executed operations
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException if an error occurs reading the icon file or executing the input
+   *         {@code operation}.
+   */
+  public static <T> List<T> executeOperationForEachEmbeddedImage(final JiconIcon icon,
+      final ThrowableBiFunction<ImageReader, Integer, T, IOException> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    try (InputStream in = icon.openStream()) {
+      return executeOperationForEachEmbeddedImage(icon.getUrl(), in, operation);
+    }
+  }
+
+  /**
+   * Reads an image embedded in the file of a {@link JiconIcon} decoded no bigger than needed by
+   * a consumer looking at images of a given size, like a color finder sampling a bounded number
+   * of pixels. The smallest embedded image whose sides are at least the given size is read, or
+   * the biggest one if none is big enough, and only every n-th pixel of every n-th row of the
+   * image is decoded, n being the smallest subsampling bringing its sides down to the given size.
+   *
+   * @param icon the {@link JiconIcon}
+   * @param size the size of the images looked at, which is the maximum width and height of the
+   *        decoded image
+   * @return the decoded {@link BufferedImage}
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException in case of problems reading the icon file
+   * @throws IllegalArgumentException if the size is not positive
+   */
+  public static BufferedImage readImage(final JiconIcon icon, final int size)
+      throws ImageFormatNotSupportedException, IOException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("size must be positive: " + size);
+    }
+    final int index = getSmallestAdequateImage(icon.getImages(), size);
+    try (InputStream in = icon.openStream()) {
+      return executeOperationOnImageReader(icon.getUrl(), in, reader -> {
+        final int side = Math.max(reader.getWidth(index), reader.getHeight(index));
+        final int subsampling = Math.max(1, (side + size - 1) / size);
+        logger.trace("Reading image number {} of {} subsampled by {}", index, icon.getUrl(),
+            subsampling);
+        final ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(index, param);
+      });
+    }
+  }
+
+  /**
+   * Gets the index of the smallest image whose sides are at least a minimum size, or of the
+   * biggest image if none is big enough.
+   *
+   * @param images the {@link JiconIconImage}s embedded in a file
+   * @param minSize the minimum size
+   * @return the index of the image, 0 if there are no images
+   */
+  private static int getSmallestAdequateImage(final List<JiconIconImage> images,
+      final int minSize) {
+    return IntStream.range(0, images.size()).boxed()
+        .min(Comparator.comparingLong(index -> getSizeKey(images.get(index), minSize)))
+        .orElse(0);
+  }
+
+  private static long getSizeKey(final JiconIconImage image, final int minSize) {
+    final long side = (long) Math.min(image.getWidth(), image.getHeight());
+    return side >= minSize ? side : SMALLER_IMAGE - side;
+  }
+
+  /**
+   * Executes a given operation with the {@link ImageReader} of the file read from the given
+   * {@link InputStream}, disposing the reader afterwards.
+   *
+   * @param <T> the result of the operation
+   * @param imageUrl the {@link URL} of the image resource, used for guessing the image format
+   * @param imageStream the {@link InputStream} for reading the image resource, the caller is
+   *        responsible for closing it
+   * @param operation the {@link ReaderOperation} to execute
+   * @return the result of the operation
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the image at the given {@link URL}
+   * @throws IOException if an error occurs retrieving the {@link ImageReader} or executing the
+   *         input {@code operation}.
+   */
+  private static <T> T executeOperationOnImageReader(final URL imageUrl,
+      final InputStream imageStream, final ReaderOperation<T> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(imageStream)) {
+      final ImageReader reader = getImageReader(imageUrl, imageInputStream)
+          .orElseThrow(() -> new ImageFormatNotSupportedException(
+              "Image format " + Util.getExtension(imageUrl.toString()) + " not supported"));
       try {
-        final int imagesNum = reader.getNumImages(false);
-        logger.trace("File at URL {} contains {} embedded images", imageUrl, imagesNum);
-        for (int i = reader.getMinIndex(); i < imagesNum; i++) {
-          logger.trace("Processing image number {}", i);
-          images.add(operation.apply(reader, i));
-        }
-        return images;
+        return operation.apply(reader);
       } finally {
         reader.dispose();
       }
     }
   }
 
+  /**
+   * Reads all the images embedded in the file of a {@link JiconIcon}.
+   *
+   * @param icon the {@link JiconIcon}
+   * @return the {@link List} of {@link BufferedImage}s, ordered as the images embedded in the file
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException in case of problems reading the icon file
+   */
+  public static List<BufferedImage> readEmbeddedImages(final JiconIcon icon)
+      throws ImageFormatNotSupportedException, IOException {
+    return executeOperationForEachEmbeddedImage(icon, ImageReader::read);
+  }
+
+  /**
+   * Writes each image embedded in the file of a {@link JiconIcon} to its own file, as
+   * {@link #writeImagesToFiles} does. The images embedded into an .ico file as PNG are copied as
+   * they are; the other images are decoded and written before the next one is decoded, so that
+   * only one image at a time is held in memory.
+   *
+   * @param icon the {@link JiconIcon}
+   * @param outputFilesPaths the path where to store the image at each index
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException in case of problems reading the icon file or writing the images to files
+   */
+  public static void writeEmbeddedImagesToFiles(final JiconIcon icon,
+      final IntFunction<String> outputFilesPaths)
+      throws ImageFormatNotSupportedException, IOException {
+    executeOperationForEachEncodedImage(icon, (reader, index, png) -> {
+      final String imageFormat = icon.getImages().get(index).getFormat();
+      final String outputFilePath = outputFilesPaths.apply(index);
+      logger.trace("Saving image at index {} and format {} in file {}", index, imageFormat,
+          outputFilePath);
+      final boolean write = png.isPresent()
+          ? writeBytesToFile(png.get(), replaceExtension(outputFilePath, PNG))
+          : writeImageToFile(reader.read(index), imageFormat, outputFilePath);
+      logger.trace("Image at index {} write result: {}", index, write);
+      return write;
+    });
+  }
+
+  /**
+   * Executes a given operation on the encoded bytes of each image embedded in the file of a
+   * {@link JiconIcon}. The images embedded into an .ico file as PNG are sliced out of the file as
+   * they are, the other images are decoded and encoded again as
+   * {@link #writeImageToBytes(BufferedImage, String)} does, one at a time.
+   *
+   * @param <T> the result of each executed operation
+   * @param icon the {@link JiconIcon}
+   * @param operation the {@link ThrowableBiFunction} to execute with the index and the encoded
+   *        bytes of each image contained in the file
+   * @return a {@link List} of {@link T}s containing each result returned by the executed operations
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException if an error occurs reading the icon file, encoding an image or executing
+   *         the input {@code operation}.
+   */
+  public static <T> List<T> executeOperationForEachEncodedImage(final JiconIcon icon,
+      final ThrowableBiFunction<Integer, ByteBuffer, T, IOException> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    return executeOperationForEachEncodedImage(icon, (reader, index, png) -> operation.apply(index,
+        png.isPresent() ? png.get() : ByteBuffer.wrap(writeImageToBytes(reader.read(index),
+            icon.getImages().get(index).getFormat()))));
+  }
+
+  /**
+   * Executes a given operation for each image embedded in the file of a {@link JiconIcon},
+   * giving it the bytes of the image if it is embedded into an .ico file as PNG.
+   *
+   * @param icon the {@link JiconIcon}
+   * @param operation the {@link EncodedImageOperation}
+   * @return the results of the operation
+   * @throws ImageFormatNotSupportedException if no registered {@link ImageReader} has been found
+   *         for the icon
+   * @throws IOException if an error occurs reading the icon file or executing the operation
+   */
+  private static <T> List<T> executeOperationForEachEncodedImage(final JiconIcon icon,
+      final EncodedImageOperation<T> operation)
+      throws ImageFormatNotSupportedException, IOException {
+    final ByteBuffer payload = icon.readPayload();
+    final List<Optional<ByteBuffer>> pngEntries = ImageHeaders.getPngEntries(payload);
+    return executeOperationForEachEmbeddedImage(icon.getUrl(),
+        new ByteBufferInputStream(payload.duplicate()), (reader, index) -> operation.apply(reader,
+            index, index < pngEntries.size() ? pngEntries.get(index) : Optional.empty()));
+  }
+
   /**
    * Writes a {@link List} of {@link BufferedImage}s to files.
    *
@@ -117,6 +371,48 @@ public class ImageUtil {
     return write;
   }
 
+  /**
+   * Writes encoded bytes to file, replacing the file if it exists.
+   *
+   * @param bytes the bytes to write
+   * @param outputFilePath the path of the file where to write the bytes
+   * @return {@code true}
+   * @throws IOException in case of problems writing the file
+   */
+  private static boolean writeBytesToFile(final ByteBuffer bytes, final String outputFilePath)
+      throws IOException {
+    try (FileChannel out = FileChannel.open(Paths.get(outputFilePath),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+      while (bytes.hasRemaining()) {
+        out.write(bytes);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Encodes a {@link BufferedImage} in memory. As for the files, images embedded into an .ico
+   * file are encoded as PNG or, if that is not possible, as BMP.
+   *
+   * @param image the {@link BufferedImage} to encode
+   * @param imageFormat the format of the {@link BufferedImage}
+   * @return the encoded bytes
+   * @throws IOException in case of problems encoding the image or if no writer is found for its
+   *         format
+   */
+  public static byte[] writeImageToBytes(final BufferedImage image, final String imageFormat)
+      throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final boolean written = imageFormat.equals("ico")
+        ? ImageIO.write(image, PNG, out) || ImageIO.write(image, "bmp", out)
+        : ImageIO.write(image, imageFormat, out);
+    if (!written) {
+      throw new IOException("No writer found for the image format " + imageFormat);
+    }
+    return out.toByteArray();
+  }
+
   /**
    * Tries to write an image embedded into an .ico file (technically called {@code ICONDIRENTRY})
    * into its own separate file. Since each {@code ICONDIRENTRY} can represent both a PNG or a BMP
@@ -129,13 +425,53 @@ public class ImageUtil {
   private static boolean writeIcoDirectoryEntry(final BufferedImage image,
       final String outputFilePath) throws IOException {
     boolean written = ImageIO
-        .write(image, "png", new File(replaceExtension(outputFilePath, "png")));
+        .write(image, PNG, new File(replaceExtension(outputFilePath, PNG)));
     if (!written) {
       written = ImageIO.write(image, "bmp", new File(replaceExtension(outputFilePath, "bmp")));
     }
     return written;
   }
 
+  /**
+   * Operation executed with the {@link ImageReader} of a file.
+   *
+   * @param <T> the result of the operation
+   */
+  @FunctionalInterface
+  private interface ReaderOperation<T> {
+
+    /**
+     * Executes the operation.
+     *
+     * @param reader the {@link ImageReader} reading the file
+     * @return the result
+     * @throws IOException in case of problems reading the file or executing the operation
+     */
+    T apply(ImageReader reader) throws IOException;
+
+  }
+
+  /**
+   * Operation executed for each image embedded in a file.
+   *
+   * @param <T> the result of the operation
+   */
+  @FunctionalInterface
+  private interface EncodedImageOperation<T> {
+
+    /**
+     * Executes the operation for an embedded image.
+     *
+     * @param reader the {@link ImageReader} reading the file
+     * @param index the index of the image
+     * @param png the bytes of the image, if it is embedded into an .ico file as PNG
+     * @return the result
+     * @throws IOException in case of problems reading the image or executing the operation
+     */
+    T apply(ImageReader reader, int index, Optional<ByteBuffer> png) throws IOException;
+
+  }
+
   /**
    * Returns the first valid {@link ImageReader} for the file at the given {@link URL}
    * and {@link ImageInputStream}.
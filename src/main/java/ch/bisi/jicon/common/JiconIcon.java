@@ -1,7 +1,12 @@
 package ch.bisi.jicon.common;
 
+import ch.bisi.jicon.http.HttpTransport;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Class representing an icon.
@@ -10,6 +15,8 @@ public class JiconIcon {
 
   private final URL url;
   private final List<JiconIconImage> images;
+  private final ByteBuffer payload;
+  private final HttpTransport transport;
 
   /**
    * Instantiates a new {@link JiconIcon}.
@@ -17,11 +24,29 @@ public class JiconIcon {
    * @param url the url of the icon
    * @param images a {@link List} of {@link JiconIconImage}s embedded in the file at the given
    *        {@link URL}.
+   * @param transport the {@link HttpTransport} fetching the icon file
    */
-  JiconIcon(final URL url, final List<JiconIconImage> images) {
+  JiconIcon(final URL url, final List<JiconIconImage> images, final HttpTransport transport) {
+    this(url, images, null, transport);
+  }
+
+  /**
+   * Instantiates a new {@link JiconIcon} keeping the bytes of the icon file.
+   *
+   * @param url the url of the icon
+   * @param images a {@link List} of {@link JiconIconImage}s embedded in the file at the given
+   *        {@link URL}.
+   * @param payload the read only {@link ByteBuffer} containing the bytes of the icon file or
+   *        {@code null} if the bytes have not been kept
+   * @param transport the {@link HttpTransport} fetching the icon file
+   */
+  JiconIcon(final URL url, final List<JiconIconImage> images, final ByteBuffer payload,
+      final HttpTransport transport) {
     super();
     this.url = url;
     this.images = images;
+    this.payload = payload;
+    this.transport = transport;
   }
 
   /**
@@ -43,6 +68,47 @@ public class JiconIcon {
     return images;
   }
 
+  /**
+   * Gets the bytes of the icon file, if they have been kept when the icon was fetched.
+   *
+   * @return an {@link Optional} read only {@link ByteBuffer} positioned at the beginning of the
+   *         icon file, an empty {@link Optional} if the bytes have not been kept
+   */
+  public Optional<ByteBuffer> getPayload() {
+    return Optional.ofNullable(payload).map(ByteBuffer::duplicate);
+  }
+
+  /**
+   * Opens an {@link InputStream} for reading the icon file. The kept bytes of the icon are read
+   * if available, otherwise the file is fetched again from the icon {@link URL}, through the
+   * {@link HttpTransport} which fetched the icon.
+   *
+   * @return the {@link InputStream} for reading the icon file
+   * @throws IOException in case of problems fetching the icon file
+   */
+  public InputStream openStream() throws IOException {
+    if (payload != null) {
+      return new ByteBufferInputStream(payload.duplicate());
+    }
+    return transport.get(url, null).getBody();
+  }
+
+  /**
+   * Reads the bytes of the icon file, without copying them if they have been kept.
+   *
+   * @return the read only {@link ByteBuffer} containing the bytes of the icon file
+   * @throws IOException in case of problems fetching the icon file
+   */
+  public ByteBuffer readPayload() throws IOException {
+    final Optional<ByteBuffer> kept = getPayload();
+    if (kept.isPresent()) {
+      return kept.get();
+    }
+    try (InputStream in = openStream()) {
+      return ByteBuffer.wrap(Util.readAtMost(in, Integer.MAX_VALUE)).asReadOnlyBuffer();
+    }
+  }
+
   @Override
   public String toString() {
     return "JiconIcon{"
@@ -2,10 +2,17 @@ package ch.bisi.jicon.common;
 
 import static ch.bisi.jicon.common.ImageUtil.executeOperationForEachEmbeddedImage;
 
+import ch.bisi.jicon.http.HttpResponse;
+import ch.bisi.jicon.http.HttpTransport;
 import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URL;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Factory of {@link JiconIcon} objects.
@@ -23,11 +30,164 @@ public class JiconIconFactory {
    */
   public static JiconIcon getIcon(final URL url)
       throws ImageFormatNotSupportedException, IOException {
-    final List<JiconIconImage> images = executeOperationForEachEmbeddedImage(url,
-        (reader, index) -> {
-          return new JiconIconImage(reader.getFormatName(),
-              new Dimension(reader.getWidth(index), reader.getHeight(index)));
-        });
-    return new JiconIcon(url, images);
+    return getIcon(url, PayloadBuffering.NONE);
+  }
+
+  /**
+   * Builds a {@link JiconIcon} from an {@link URL}, keeping the bytes of the icon file as
+   * allowed by the given {@link PayloadBuffering}.
+   *
+   * @param url the {@link URL} from which to extract a {@link JiconIcon}
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icon bytes
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file at the given
+   *         {@link URL} is not supported
+   * @throws IOException in case of problems in reading the the file
+   */
+  public static JiconIcon getIcon(final URL url, final PayloadBuffering payloadBuffering)
+      throws ImageFormatNotSupportedException, IOException {
+    return getIcon(url, payloadBuffering, HttpTransport.getDefault());
+  }
+
+  /**
+   * Builds a {@link JiconIcon} from an {@link URL} fetched through the given
+   * {@link HttpTransport}, keeping the bytes of the icon file as allowed by the given
+   * {@link PayloadBuffering}.
+   *
+   * @param url the {@link URL} from which to extract a {@link JiconIcon}
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icon bytes
+   * @param transport the {@link HttpTransport} fetching the icon file
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file at the given
+   *         {@link URL} is not supported
+   * @throws IOException in case of problems in reading the the file
+   */
+  public static JiconIcon getIcon(final URL url, final PayloadBuffering payloadBuffering,
+      final HttpTransport transport) throws ImageFormatNotSupportedException, IOException {
+    try (HttpResponse response = transport.get(url, null)) {
+      return getIcon(url, response.getBody(), payloadBuffering, transport);
+    }
+  }
+
+  /**
+   * Builds a {@link JiconIcon} from an {@link URL}, giving up if connecting to the {@link URL} or
+   * waiting for its data takes longer than the given timeout.
+   *
+   * @param url the {@link URL} from which to extract a {@link JiconIcon}
+   * @param timeout the connect and read timeout
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file at the given
+   *         {@link URL} is not supported
+   * @throws IOException in case of problems in reading the the file or if the timeout expires
+   */
+  public static JiconIcon getIcon(final URL url, final Duration timeout)
+      throws ImageFormatNotSupportedException, IOException {
+    return getIcon(url, timeout, PayloadBuffering.NONE);
+  }
+
+  /**
+   * Builds a {@link JiconIcon} from an {@link URL}, giving up if connecting to the {@link URL} or
+   * waiting for its data takes longer than the given timeout. The bytes of the icon file are
+   * kept as allowed by the given {@link PayloadBuffering}.
+   *
+   * @param url the {@link URL} from which to extract a {@link JiconIcon}
+   * @param timeout the connect and read timeout
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icon bytes
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file at the given
+   *         {@link URL} is not supported
+   * @throws IOException in case of problems in reading the the file or if the timeout expires
+   */
+  public static JiconIcon getIcon(final URL url, final Duration timeout,
+      final PayloadBuffering payloadBuffering)
+      throws ImageFormatNotSupportedException, IOException {
+    return getIcon(url, timeout, payloadBuffering, HttpTransport.getDefault());
+  }
+
+  /**
+   * Builds a {@link JiconIcon} from an {@link URL} fetched through the given
+   * {@link HttpTransport}, giving up if connecting to the {@link URL} or waiting for its data
+   * takes longer than the given timeout. The bytes of the icon file are kept as allowed by the
+   * given {@link PayloadBuffering}.
+   *
+   * @param url the {@link URL} from which to extract a {@link JiconIcon}
+   * @param timeout the connect and read timeout
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icon bytes
+   * @param transport the {@link HttpTransport} fetching the icon file
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file at the given
+   *         {@link URL} is not supported
+   * @throws IOException in case of problems in reading the the file or if the timeout expires
+   */
+  public static JiconIcon getIcon(final URL url, final Duration timeout,
+      final PayloadBuffering payloadBuffering, final HttpTransport transport)
+      throws ImageFormatNotSupportedException, IOException {
+    try (HttpResponse response = transport.get(url, timeout)) {
+      return getIcon(url, response.getBody(), payloadBuffering, transport);
+    }
+  }
+
+  /**
+   * Builds a {@link JiconIcon} reading the icon file from an {@link InputStream}. If the
+   * {@link PayloadBuffering} allows it the file is read into memory first, otherwise only its
+   * header is read when the format and the size of the images can be parsed from it, and the file
+   * is decoded while streaming when they cannot.
+   *
+   * @param url the {@link URL} of the icon
+   * @param in the {@link InputStream} for reading the icon file
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icon bytes
+   * @param transport the {@link HttpTransport} fetching the icon file again when needed
+   * @return a instance of {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the file is not supported
+   * @throws IOException in case of problems in reading the the file
+   */
+  private static JiconIcon getIcon(final URL url, final InputStream in,
+      final PayloadBuffering payloadBuffering, final HttpTransport transport)
+      throws ImageFormatNotSupportedException, IOException {
+    if (!payloadBuffering.isEnabled()) {
+      return new JiconIcon(url, readImages(url, ImageHeaders.readHeader(in), in), transport);
+    }
+    final byte[] head = payloadBuffering.readHead(in);
+    final List<JiconIconImage> images = readImages(url, head, in);
+    if (!payloadBuffering.fits(head)) {
+      return new JiconIcon(url, images, transport);
+    }
+    return new JiconIcon(url, images, payloadBuffering.toPayload(head), transport);
+  }
+
+  /**
+   * Reads the format and the size of the images embedded in an icon file, parsing them from the
+   * header of ICO, PNG, GIF and BMP files, through ImageIO otherwise.
+   *
+   * @param url the {@link URL} of the icon
+   * @param head the first bytes of the icon file
+   * @param in the {@link InputStream} for reading the rest of the icon file
+   * @return the {@link List} of {@link JiconIconImage}s embedded in the icon file
+   * @throws ImageFormatNotSupportedException in case the format of the file is not supported
+   * @throws IOException in case of problems in reading the the file
+   */
+  private static List<JiconIconImage> readImages(final URL url, final byte[] head,
+      final InputStream in) throws ImageFormatNotSupportedException, IOException {
+    final Optional<List<JiconIconImage>> images = ImageHeaders.parse(head);
+    if (images.isPresent()) {
+      return images.get();
+    }
+    return readImages(url, new SequenceInputStream(new ByteArrayInputStream(head), in));
+  }
+
+  /**
+   * Reads the format and the size of the images embedded in an icon file through ImageIO.
+   *
+   * @param url the {@link URL} of the icon
+   * @param in the {@link InputStream} for reading the icon file
+   * @return the {@link List} of {@link JiconIconImage}s embedded in the icon file
+   * @throws ImageFormatNotSupportedException in case the format of the file is not supported
+   * @throws IOException in case of problems in reading the the file
+   */
+  private static List<JiconIconImage> readImages(final URL url, final InputStream in)
+      throws ImageFormatNotSupportedException, IOException {
+    return executeOperationForEachEmbeddedImage(url, in,
+        (reader, index) -> new JiconIconImage(reader.getFormatName(),
+            new Dimension(reader.getWidth(index), reader.getHeight(index))));
   }
 }
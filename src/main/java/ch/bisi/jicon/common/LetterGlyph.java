@@ -0,0 +1,111 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.common.AlphaMath.MAX;
+import static ch.bisi.jicon.common.AlphaMath.mul8;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Pre-rendered letter of a {@link LetterIcon}: the antialiasing coverage of the glyph, as an alpha
+ * mask, and its advance width.
+ *
+ * <p>The mask is composited on the opaque pixels of a {@code TYPE_INT_ARGB} image with the same 8
+ * bit arithmetic used by Java2D for antialiased text, so that the result is identical to drawing
+ * the letter.</p>
+ */
+final class LetterGlyph {
+
+  private final int advance;
+  private final int offsetX;
+  private final int offsetY;
+  private final int width;
+  private final int height;
+  private final byte[] coverage;
+  private final boolean insideCircle;
+
+  /**
+   * Instantiates a new {@link LetterGlyph}.
+   *
+   * @param advance the advance width of the letter
+   * @param offsetX the horizontal offset of the mask from the pen position
+   * @param offsetY the vertical offset of the mask from the top of the icon
+   * @param width the width of the mask
+   * @param height the height of the mask
+   * @param coverage the coverage of each pixel of the mask, row by row
+   * @param insideCircle whether all the pixels covered by the letter are fully covered by the
+   *        circle of the icon
+   */
+  LetterGlyph(final int advance, final int offsetX, final int offsetY, final int width,
+      final int height, final byte[] coverage, final boolean insideCircle) {
+    this.advance = advance;
+    this.offsetX = offsetX;
+    this.offsetY = offsetY;
+    this.width = width;
+    this.height = height;
+    this.coverage = coverage;
+    this.insideCircle = insideCircle;
+  }
+
+  /**
+   * Gets the advance width of the letter.
+   *
+   * @return the advance width in pixels
+   */
+  int getAdvance() {
+    return advance;
+  }
+
+  /**
+   * Checks whether all the pixels covered by the letter are fully covered by the circle of the
+   * icon, and so are opaque for an opaque background.
+   *
+   * @return {@code true} if the letter lies inside the circle, {@code false} otherwise
+   */
+  boolean isInsideCircle() {
+    return insideCircle;
+  }
+
+  /**
+   * Paints the letter in the middle of a {@code TYPE_INT_ARGB} icon whose pixels covered by the
+   * letter are opaque.
+   *
+   * @param image the {@code TYPE_INT_ARGB} {@link BufferedImage} of the icon
+   * @param foreground the opaque {@link Color} of the letter
+   */
+  void paint(final BufferedImage image, final Color foreground) {
+    final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    final int fromX = (image.getWidth() - advance) / 2 + offsetX;
+    final int argb = foreground.getRGB();
+    for (int y = 0; y < height; y++) {
+      final int row = (offsetY + y) * image.getWidth() + fromX;
+      for (int x = 0; x < width; x++) {
+        final int mix = coverage[y * width + x] & MAX;
+        if (mix != 0) {
+          pixels[row + x] = blend(pixels[row + x], argb, mix);
+        }
+      }
+    }
+  }
+
+  /**
+   * Blends the foreground over an opaque pixel as the Java2D antialiased text loops do.
+   *
+   * @param dst the opaque ARGB destination pixel
+   * @param src the opaque ARGB foreground
+   * @param mix the coverage of the pixel
+   * @return the blended pixel
+   */
+  static int blend(final int dst, final int src, final int mix) {
+    if (mix == MAX) {
+      return src;
+    }
+    final int mixDst = MAX - mix;
+    final int red = mul8(mixDst, dst >> 16 & MAX) + mul8(mix, src >> 16 & MAX);
+    final int green = mul8(mixDst, dst >> 8 & MAX) + mul8(mix, src >> 8 & MAX);
+    final int blue = mul8(mixDst, dst & MAX) + mul8(mix, src & MAX);
+    return MAX << 24 | red << 16 | green << 8 | blue;
+  }
+
+}
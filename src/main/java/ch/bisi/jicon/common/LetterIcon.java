@@ -58,30 +58,47 @@ public class LetterIcon {
   }
 
   /**
-   * Gets a {@link BufferedImage} representing this {@link LetterIcon}.
+   * Gets a {@link BufferedImage} representing this {@link LetterIcon}. Icons with an opaque
+   * background and a letter in {@code A-Z} or {@code 0-9} are composited from a cached glyph atlas,
+   * the other ones are drawn through Java2D.
    *
    * @return a {@link BufferedImage} representing the lettericon.
    */
   public BufferedImage getImage() {
     final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+    final Color foregroundColor = ColorUtil.getForegroundColor(backgroundColor);
+    if (!LetterIconAtlas.forSize(size).paint(image, backgroundColor, letter, foregroundColor)) {
+      draw(image, foregroundColor);
+    }
+    return image;
+  }
+
+  /**
+   * Draws this {@link LetterIcon} through Java2D.
+   *
+   * @param image the empty {@link BufferedImage} on which to draw
+   * @param foregroundColor the {@link Color} of the letter
+   */
+  private void draw(final BufferedImage image, final Color foregroundColor) {
     final Graphics2D graphics = image.createGraphics();
     graphics.setColor(backgroundColor);
     graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
         RenderingHints.VALUE_ANTIALIAS_ON);
     graphics.fill(new Ellipse2D.Float(0, 0, size, size));
-    writeLetter(letter, size, graphics);
+    drawLetter(letter, size, foregroundColor, graphics);
     graphics.dispose();
-    return image;
   }
 
   /**
-   * Writes a letter on the given {@link Graphics2D}.
+   * Draws a letter in the middle of the given {@link Graphics2D}.
    *
    * @param letter the letter to write
    * @param size the size of the {@link Graphics2D}
+   * @param foregroundColor the {@link Color} of the letter
    * @param graphics the {@link Graphics2D} on which to write the letter
+   * @return the advance width of the letter
    */
-  private void writeLetter(final char letter, final Integer size,
+  static int drawLetter(final char letter, final int size, final Color foregroundColor,
       final Graphics2D graphics) {
     final float fontSize = FONT_SIZE_FACTOR * (float) size;
     final Font font = new Font("Arial", Font.PLAIN, size)
@@ -90,14 +107,13 @@ public class LetterIcon {
     final String letterToWrite = Character.toString(Character.toUpperCase(letter));
     final AttributedString stringToWrite = new AttributedString(letterToWrite);
     stringToWrite.addAttribute(TextAttribute.FONT, font);
-    stringToWrite
-        .addAttribute(TextAttribute.FOREGROUND,
-            ColorUtil.getForegroundColor(graphics.getColor()));
-    final int letterXPosition =
-        (size - graphics.getFontMetrics().stringWidth(letterToWrite)) / 2;
+    stringToWrite.addAttribute(TextAttribute.FOREGROUND, foregroundColor);
+    final int advance = graphics.getFontMetrics().stringWidth(letterToWrite);
+    final int letterXPosition = (size - advance) / 2;
     final int letterYPosition =
         (int) (Y_OFFSET_FACTOR * (float) (size)) + (int) Math.ceil(fontSize);
     graphics.drawString(stringToWrite.getIterator(), letterXPosition, letterYPosition);
+    return advance;
   }
 
   @Override
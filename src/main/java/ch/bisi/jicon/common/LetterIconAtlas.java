@@ -0,0 +1,207 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.common.AlphaMath.MAX;
+import static ch.bisi.jicon.common.AlphaMath.div8;
+import static ch.bisi.jicon.common.AlphaMath.mul8;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Glyph atlas of the {@link LetterIcon}s of a given size: the antialiasing coverage of the circle
+ * and a {@link LetterGlyph} for each of the letters {@code A-Z} and the digits {@code 0-9}.
+ *
+ * <p>The circle is rasterized when the atlas is built and each glyph is laid out and rasterized
+ * the first time it is needed, so that rendering a {@link LetterIcon} with an opaque background
+ * only composites the cached masks, with the same arithmetic used by Java2D, instead of filling
+ * a shape and laying out the text. The atlases of the most recently used sizes are kept.</p>
+ */
+final class LetterIconAtlas {
+
+  private static final int MAX_CACHED_SIZES = 16;
+  private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+  /**
+   * The atlases in access order, guarded by itself.
+   **/
+  private static final Map<Integer, LetterIconAtlas> atlases =
+      new LinkedHashMap<Integer, LetterIconAtlas>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, LetterIconAtlas> eldest) {
+          return size() > MAX_CACHED_SIZES;
+        }
+      };
+
+  private final int size;
+  private final byte[] circle;
+  private final AtomicReferenceArray<LetterGlyph> glyphs =
+      new AtomicReferenceArray<>(ALPHABET.length());
+
+  /**
+   * Instantiates a new {@link LetterIconAtlas}, rasterizing the circle.
+   *
+   * @param size the size of the {@link LetterIcon}s
+   */
+  private LetterIconAtlas(final int size) {
+    this.size = size;
+    final BufferedImage mask = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+    final Graphics2D graphics = createGraphics(mask);
+    graphics.setColor(Color.WHITE);
+    graphics.fill(new Ellipse2D.Float(0, 0, size, size));
+    graphics.dispose();
+    this.circle = getPixels(mask);
+  }
+
+  /**
+   * Gets the atlas for a given size.
+   *
+   * @param size the size of the {@link LetterIcon}s
+   * @return the {@link LetterIconAtlas}
+   */
+  static LetterIconAtlas forSize(final int size) {
+    synchronized (atlases) {
+      return atlases.computeIfAbsent(size, LetterIconAtlas::new);
+    }
+  }
+
+  /**
+   * Paints a {@link LetterIcon} from the cached masks, if possible.
+   *
+   * @param image the empty {@code TYPE_INT_ARGB} {@link BufferedImage} of the icon
+   * @param background the background {@link Color}
+   * @param letter the upper case letter
+   * @param foreground the opaque foreground {@link Color}
+   * @return {@code true} if the icon has been painted, {@code false} if the image has not been
+   *         touched because the background is translucent, the letter is not in the atlas, or the
+   *         letter does not lie inside the circle
+   */
+  boolean paint(final BufferedImage image, final Color background, final char letter,
+      final Color foreground) {
+    final LetterGlyph glyph = getGlyph(letter);
+    if (background.getAlpha() != MAX || glyph == null || !glyph.isInsideCircle()) {
+      return false;
+    }
+    fillCircle(image, background);
+    glyph.paint(image, foreground);
+    return true;
+  }
+
+  /**
+   * Gets the glyph of a letter, rasterizing it if needed.
+   *
+   * @param letter the upper case letter
+   * @return the {@link LetterGlyph} or {@code null} if the letter is not in {@code A-Z} or
+   *         {@code 0-9}
+   */
+  LetterGlyph getGlyph(final char letter) {
+    final int index = ALPHABET.indexOf(letter);
+    if (index < 0) {
+      return null;
+    }
+    final LetterGlyph glyph = glyphs.get(index);
+    if (glyph != null) {
+      return glyph;
+    }
+    glyphs.compareAndSet(index, null, rasterize(letter));
+    return glyphs.get(index);
+  }
+
+  /**
+   * Fills the circle with an opaque color, as an antialiased Java2D fill on a transparent image.
+   *
+   * @param image the empty {@code TYPE_INT_ARGB} {@link BufferedImage} of the icon
+   * @param background the opaque background {@link Color}
+   */
+  private void fillCircle(final BufferedImage image, final Color background) {
+    final int[] pixelByCoverage = new int[MAX + 1];
+    for (int coverage = 1; coverage <= MAX; coverage++) {
+      pixelByCoverage[coverage] = coverage << 24
+          | premultiplied(coverage, background.getRed()) << 16
+          | premultiplied(coverage, background.getGreen()) << 8
+          | premultiplied(coverage, background.getBlue());
+    }
+    final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    for (int i = 0; i < circle.length; i++) {
+      pixels[i] = pixelByCoverage[circle[i] & MAX];
+    }
+  }
+
+  /**
+   * Rasterizes a letter drawing it, in white, on a black gray scale image so that the value of
+   * each pixel is the coverage of the glyph.
+   *
+   * @param letter the letter
+   * @return the {@link LetterGlyph}
+   */
+  private LetterGlyph rasterize(final char letter) {
+    final BufferedImage mask = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+    final Graphics2D graphics = createGraphics(mask);
+    final int advance = LetterIcon.drawLetter(letter, size, Color.WHITE, graphics);
+    graphics.dispose();
+    return crop(getPixels(mask), advance);
+  }
+
+  /**
+   * Crops a glyph mask to the bounding box of its covered pixels.
+   *
+   * @param pixels the coverage of the whole icon, row by row
+   * @param advance the advance width of the letter
+   * @return the {@link LetterGlyph}
+   */
+  private LetterGlyph crop(final byte[] pixels, final int advance) {
+    int minX = size;
+    int minY = size;
+    int maxX = -1;
+    int maxY = -1;
+    boolean insideCircle = true;
+    for (int i = 0; i < pixels.length; i++) {
+      if (pixels[i] != 0) {
+        minX = Math.min(minX, i % size);
+        maxX = Math.max(maxX, i % size);
+        minY = Math.min(minY, i / size);
+        maxY = Math.max(maxY, i / size);
+        insideCircle &= (circle[i] & MAX) == MAX;
+      }
+    }
+    final int width = Math.max(0, maxX - minX + 1);
+    final int height = Math.max(0, maxY - minY + 1);
+    final byte[] coverage = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(pixels, (minY + y) * size + minX, coverage, y * width, width);
+    }
+    return new LetterGlyph(advance, minX - (size - advance) / 2, minY, width, height, coverage,
+        insideCircle);
+  }
+
+  /**
+   * Gets a color component as stored by Java2D after premultiplying it by the coverage.
+   *
+   * @param coverage the coverage, in {@code 1..255}
+   * @param component the color component
+   * @return the stored, non premultiplied, component
+   */
+  private static int premultiplied(final int coverage, final int component) {
+    return div8(mul8(coverage, component), coverage);
+  }
+
+  private static Graphics2D createGraphics(final BufferedImage mask) {
+    final Graphics2D graphics = mask.createGraphics();
+    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    return graphics;
+  }
+
+  private static byte[] getPixels(final BufferedImage mask) {
+    return ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+  }
+
+}
@@ -0,0 +1,117 @@
+package ch.bisi.jicon.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Policy deciding whether the bytes of an icon file are kept in memory once fetched, so that
+ * decoding or saving the icon later does not fetch it again. Files bigger than the maximum
+ * number of bytes of the policy are not kept and are fetched again when needed.
+ */
+public final class PayloadBuffering {
+
+  /** Policy never keeping the icons bytes. */
+  public static final PayloadBuffering NONE = new PayloadBuffering(0, false);
+
+  private final int maxBytes;
+  private final boolean direct;
+
+  private PayloadBuffering(final int maxBytes, final boolean direct) {
+    this.maxBytes = maxBytes;
+    this.direct = direct;
+  }
+
+  /**
+   * Gets a policy keeping the icons bytes in heap {@link ByteBuffer}s.
+   *
+   * @param maxBytes the maximum size of the icon files to keep
+   * @return the {@link PayloadBuffering} policy
+   */
+  public static PayloadBuffering onHeap(final int maxBytes) {
+    return new PayloadBuffering(maxBytes, false);
+  }
+
+  /**
+   * Gets a policy keeping the icons bytes in direct (off-heap) {@link ByteBuffer}s.
+   *
+   * @param maxBytes the maximum size of the icon files to keep
+   * @return the {@link PayloadBuffering} policy
+   */
+  public static PayloadBuffering offHeap(final int maxBytes) {
+    return new PayloadBuffering(maxBytes, true);
+  }
+
+  /**
+   * Checks if the policy keeps any icon bytes.
+   *
+   * @return {@code true} if icon files up to a given size are kept, {@code false} otherwise
+   */
+  public boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Gets the maximum size of the icon files kept by the policy.
+   *
+   * @return the maximum number of bytes, {@code 0} if no icon bytes are kept
+   */
+  public int getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Checks if the policy keeps the icons bytes in direct (off-heap) {@link ByteBuffer}s.
+   *
+   * @return {@code true} if the buffers are direct, {@code false} if they are on the heap
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * Reads from an {@link InputStream} at most one byte more than the maximum size of the icon
+   * files to keep, so that the caller can tell if the file fits into the buffer.
+   *
+   * @param in the {@link InputStream} to read
+   * @return the bytes read
+   * @throws IOException in case of problems reading the {@link InputStream}
+   */
+  byte[] readHead(final InputStream in) throws IOException {
+    return Util.readAtMost(in, (long) maxBytes + 1);
+  }
+
+  /**
+   * Checks if the given bytes fit into the buffer of the policy.
+   *
+   * @param bytes the bytes of an icon file
+   * @return {@code true} if the bytes can be kept, {@code false} otherwise
+   */
+  boolean fits(final byte[] bytes) {
+    return isEnabled() && bytes.length <= maxBytes;
+  }
+
+  /**
+   * Copies the given bytes into a read only {@link ByteBuffer} of the type set by the policy.
+   *
+   * @param bytes the bytes of an icon file
+   * @return the read only {@link ByteBuffer}
+   */
+  ByteBuffer toPayload(final byte[] bytes) {
+    if (!direct) {
+      return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+    final ByteBuffer payload = ByteBuffer.allocateDirect(bytes.length);
+    payload.put(bytes);
+    payload.flip();
+    return payload.asReadOnlyBuffer();
+  }
+
+  @Override
+  public String toString() {
+    return "PayloadBuffering{"
+        + "maxBytes=" + maxBytes
+        + ", direct=" + direct
+        + '}';
+  }
+}
@@ -1,10 +1,15 @@
 package ch.bisi.jicon.common;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 
 public class Util {
 
+  private static final int CHUNK_SIZE = 8192;
+
   private Util() {
     // hide public constructor
   }
@@ -21,6 +26,18 @@ public class Util {
     return new URL(url.getProtocol(), url.getHost(), "").toString();
   }
 
+  /**
+   * Gets the root of the website of a given {@link URL}, that is its domain keeping an explicit
+   * port. E.g for http://localhost:8080/hello returns http://localhost:8080.
+   *
+   * @param url the url
+   * @return the {@link URL} of the root of the website
+   * @throws MalformedURLException in case of problems building the {@link URL}
+   */
+  public static URL getOrigin(final URL url) throws MalformedURLException {
+    return new URL(url.getProtocol(), url.getHost(), url.getPort(), "");
+  }
+
   /**
    * Gets the first letter of the website name.
    *
@@ -67,5 +84,28 @@ public class Util {
     return filePath.substring(0, lastPointIndex + 1) + newExtension;
   }
 
+  /**
+   * Reads at most a given number of bytes from an {@link InputStream}, stopping earlier only if
+   * the stream ends.
+   *
+   * @param in the {@link InputStream} to read
+   * @param maxBytes the maximum number of bytes to read
+   * @return the bytes read
+   * @throws IOException in case of problems reading the {@link InputStream}
+   */
+  public static byte[] readAtMost(final InputStream in, final long maxBytes) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+        (int) Math.min(maxBytes, CHUNK_SIZE));
+    final byte[] chunk = new byte[CHUNK_SIZE];
+    int read = 0;
+    while (bytes.size() < maxBytes && read != -1) {
+      read = in.read(chunk, 0, (int) Math.min(chunk.length, maxBytes - bytes.size()));
+      if (read > 0) {
+        bytes.write(chunk, 0, read);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package ch.bisi.jicon.fetcher.icon;
+
+import ch.bisi.jicon.common.ImageFormatNotSupportedException;
+import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.common.JiconIconFactory;
+import ch.bisi.jicon.common.PayloadBuffering;
+import ch.bisi.jicon.fetcher.link.FaviconLink;
+import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import ch.bisi.jicon.http.HttpTransport;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FaviconsFetcher} probing all the favicons {@link URL}s concurrently. Each {@link URL} is
+ * probed by a task submitted to a given {@link ExecutorService}, so that retrieving the icons
+ * takes as long as the slowest probe instead of the sum of all the probes.
+ *
+ * <p>Each probe gives up when connecting or reading takes longer than the request timeout,
+ * and probes still running when the overall timeout expires are cancelled. Icons are produced
+ * in the same order of the {@link URL}s and, as for the {@link FaviconsFetcher}, {@link URL}s
+ * which cannot be probed are logged and skipped.</p>
+ */
+public class ConcurrentFaviconsFetcher extends FaviconsFetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConcurrentFaviconsFetcher.class);
+
+  private final ExecutorService executor;
+  private final Duration requestTimeout;
+  private final Duration overallTimeout;
+
+  /**
+   * Instantiates a new {@link ConcurrentFaviconsFetcher}.
+   *
+   * @param linksFetcher a {@link LinksFetcher} instance used to retrieve the available favicons
+   *        {@link URL}s
+   * @param executor the {@link ExecutorService} running the probes
+   * @param requestTimeout the connect and read timeout of each probe
+   * @param overallTimeout the maximum time to wait for all the probes to complete
+   */
+  public ConcurrentFaviconsFetcher(final LinksFetcher linksFetcher,
+      final ExecutorService executor, final Duration requestTimeout,
+      final Duration overallTimeout) {
+    this(linksFetcher, PayloadBuffering.NONE, executor, requestTimeout, overallTimeout);
+  }
+
+  /**
+   * Instantiates a new {@link ConcurrentFaviconsFetcher} keeping the bytes of the fetched icons
+   * as allowed by the given {@link PayloadBuffering}.
+   *
+   * @param linksFetcher a {@link LinksFetcher} instance used to retrieve the available favicons
+   *        {@link URL}s
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icons bytes
+   * @param executor the {@link ExecutorService} running the probes
+   * @param requestTimeout the connect and read timeout of each probe
+   * @param overallTimeout the maximum time to wait for all the probes to complete
+   */
+  public ConcurrentFaviconsFetcher(final LinksFetcher linksFetcher,
+      final PayloadBuffering payloadBuffering, final ExecutorService executor,
+      final Duration requestTimeout, final Duration overallTimeout) {
+    this(linksFetcher, payloadBuffering, HttpTransport.getDefault(), executor, requestTimeout,
+        overallTimeout);
+  }
+
+  /**
+   * Instantiates a new {@link ConcurrentFaviconsFetcher} fetching the icons through the given
+   * {@link HttpTransport} and keeping their bytes as allowed by the given
+   * {@link PayloadBuffering}.
+   *
+   * @param linksFetcher a {@link LinksFetcher} instance used to retrieve the available favicons
+   *        {@link URL}s
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icons bytes
+   * @param transport the {@link HttpTransport} fetching the icons
+   * @param executor the {@link ExecutorService} running the probes
+   * @param requestTimeout the connect and read timeout of each probe
+   * @param overallTimeout the maximum time to wait for all the probes to complete
+   */
+  public ConcurrentFaviconsFetcher(final LinksFetcher linksFetcher,
+      final PayloadBuffering payloadBuffering, final HttpTransport transport,
+      final ExecutorService executor, final Duration requestTimeout,
+      final Duration overallTimeout) {
+    super(linksFetcher, payloadBuffering, transport);
+    this.executor = executor;
+    this.requestTimeout = requestTimeout;
+    this.overallTimeout = overallTimeout;
+  }
+
+  /**
+   * Produces a {@link Stream} of {@link JiconIcon}s, probing all the favicons {@link URL}s
+   * concurrently.
+   *
+   * @return a {@link Stream} of {@link JiconIcon}s
+   * @throws IOException in case of problems producing the {@link JiconIcon}s or if the current
+   *         thread is interrupted while waiting for the probes
+   */
+  @Override
+  public Stream<JiconIcon> getIcons() throws IOException {
+    final List<URL> links = getCandidateLinks().stream().map(FaviconLink::getUrl)
+        .collect(Collectors.toList());
+    final long deadline = System.nanoTime() + overallTimeout.toNanos();
+    final List<Future<Optional<JiconIcon>>> probes = links.stream()
+        .map(url -> executor.submit(() -> getIconFromUrl(url)))
+        .collect(Collectors.toList());
+    final List<JiconIcon> icons = new ArrayList<>();
+    try {
+      for (int i = 0; i < links.size(); i++) {
+        awaitIcon(links.get(i), probes.get(i), deadline).ifPresent(icons::add);
+      }
+    } catch (InterruptedException e) {
+      probes.forEach(probe -> probe.cancel(true));
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException("Interrupted while probing favicons")
+          .initCause(e);
+    }
+    return icons.stream();
+  }
+
+  /**
+   * Loads the {@link JiconIcon} at a given {@link URL} within the request timeout.
+   *
+   * @param url the {@link URL} of the icon
+   * @return the {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the icon is not supported
+   * @throws IOException in case of problems reading the icon or if the request timeout expires
+   */
+  @Override
+  JiconIcon loadIcon(final URL url) throws ImageFormatNotSupportedException, IOException {
+    return JiconIconFactory.getIcon(url, requestTimeout, getPayloadBuffering(), getTransport());
+  }
+
+  /**
+   * Waits for the result of a probe until the given deadline, cancelling the probe if the
+   * deadline expires.
+   *
+   * @param url the probed {@link URL}
+   * @param probe the {@link Future} result of the probe
+   * @param deadline the deadline, as given by {@link System#nanoTime()}
+   * @return an {@link Optional} {@link JiconIcon}, an empty {@link Optional} if the probe failed
+   *         or did not complete before the deadline
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  private Optional<JiconIcon> awaitIcon(final URL url, final Future<Optional<JiconIcon>> probe,
+      final long deadline) throws InterruptedException {
+    try {
+      return probe.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      probe.cancel(true);
+      logger.warn("Probing {} did not complete within {}", url, overallTimeout);
+      return Optional.empty();
+    } catch (ExecutionException e) {
+      logger.warn("No icons found at {}", url, e.getCause());
+      return Optional.empty();
+    }
+  }
+
+}
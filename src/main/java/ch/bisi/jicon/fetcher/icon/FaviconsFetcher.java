@@ -3,22 +3,33 @@ package ch.bisi.jicon.fetcher.icon;
 import ch.bisi.jicon.common.ImageFormatNotSupportedException;
 import ch.bisi.jicon.common.JiconIcon;
 import ch.bisi.jicon.common.JiconIconFactory;
+import ch.bisi.jicon.common.PayloadBuffering;
+import ch.bisi.jicon.fetcher.link.FaviconLink;
 import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import ch.bisi.jicon.http.HttpTransport;
 import java.io.IOException;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Component responsible for retrieving {@link JiconIcon}s from a {@link LinksFetcher}.
+ * Component responsible for retrieving {@link JiconIcon}s from a {@link LinksFetcher}, fetching
+ * only the favicons whose {@link FaviconLink} does not rule them out.
  */
 public class FaviconsFetcher implements IconsFetcher {
 
   private static final Logger logger = LoggerFactory.getLogger(FaviconsFetcher.class);
 
   private final LinksFetcher linksFetcher;
+  private final PayloadBuffering payloadBuffering;
+  private final HttpTransport transport;
 
   /**
    * Instantiates a new {@link FaviconsFetcher}.
@@ -27,7 +38,49 @@ public class FaviconsFetcher implements IconsFetcher {
    *        {@link URL}s
    */
   public FaviconsFetcher(final LinksFetcher linksFetcher) {
+    this(linksFetcher, PayloadBuffering.NONE);
+  }
+
+  /**
+   * Instantiates a new {@link FaviconsFetcher} keeping the bytes of the fetched icons as allowed
+   * by the given {@link PayloadBuffering}.
+   *
+   * @param linksFetcher a {@link LinksFetcher} instance used to retrieve the available favicons
+   *        {@link URL}s
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icons bytes
+   */
+  public FaviconsFetcher(final LinksFetcher linksFetcher,
+      final PayloadBuffering payloadBuffering) {
+    this(linksFetcher, payloadBuffering, HttpTransport.getDefault());
+  }
+
+  /**
+   * Instantiates a new {@link FaviconsFetcher} fetching the icons through the given
+   * {@link HttpTransport} and keeping their bytes as allowed by the given
+   * {@link PayloadBuffering}.
+   *
+   * @param linksFetcher a {@link LinksFetcher} instance used to retrieve the available favicons
+   *        {@link URL}s
+   * @param payloadBuffering the {@link PayloadBuffering} deciding whether to keep the icons bytes
+   * @param transport the {@link HttpTransport} fetching the icons
+   */
+  public FaviconsFetcher(final LinksFetcher linksFetcher,
+      final PayloadBuffering payloadBuffering, final HttpTransport transport) {
     this.linksFetcher = linksFetcher;
+    this.payloadBuffering = payloadBuffering;
+    this.transport = transport;
+  }
+
+  /**
+   * Gets the factory of the {@link FaviconsFetcher}s fetching the icons through a given
+   * {@link HttpTransport}, without keeping their bytes.
+   *
+   * @return the function building a {@link FaviconsFetcher} from a {@link LinksFetcher} and an
+   *         {@link HttpTransport}
+   */
+  public static BiFunction<LinksFetcher, HttpTransport, IconsFetcher> factory() {
+    return (linksFetcher, transport) ->
+        new FaviconsFetcher(linksFetcher, PayloadBuffering.NONE, transport);
   }
 
   /**
@@ -38,8 +91,77 @@ public class FaviconsFetcher implements IconsFetcher {
    */
   @Override
   public Stream<JiconIcon> getIcons() throws IOException {
-    return linksFetcher.fetchLinks().stream().map(this::getIconFromUrl).filter(Optional::isPresent)
-        .map(Optional::get);
+    return getCandidateLinks().stream().map(FaviconLink::getUrl).map(this::getIconFromUrl)
+        .filter(Optional::isPresent).map(Optional::get);
+  }
+
+  /**
+   * Gets the {@link JiconIcon} closest to a target size, fetching the favicons one at a time in
+   * order of the sizes and types declared by their {@code <link>}s and stopping at the first one
+   * at least as big as the target.
+   *
+   * @param targetSize the target width and height, in pixels
+   * @return the {@link Optional} closest {@link JiconIcon}, empty if no icons can be fetched
+   * @throws IOException in case of problems producing the favicons {@link URL}s
+   * @throws IllegalArgumentException if the target size is not positive
+   */
+  @Override
+  public Optional<JiconIcon> getBestIcon(final int targetSize) throws IOException {
+    return IconSelector.probeBest(getCandidateLinks(), targetSize, this::getIconFromUrl);
+  }
+
+  /**
+   * Gets the {@link FaviconLink}s worth fetching, before any of them is fetched. The links with
+   * the same {@link URL} are merged into the first one, keeping what a {@code <link>} declares
+   * about a favicon also guessed from a conventional path, and the links whose declared type
+   * cannot be read are skipped.
+   *
+   * @return the {@link List} of {@link FaviconLink}s, in the order of the {@link LinksFetcher}
+   * @throws IOException in case of problems producing the favicons {@link URL}s
+   */
+  List<FaviconLink> getCandidateLinks() throws IOException {
+    final Map<String, FaviconLink> linksByUrl = new LinkedHashMap<>();
+    for (final FaviconLink link : linksFetcher.fetchFaviconLinks()) {
+      linksByUrl.merge(link.getUrl().toString(), link,
+          (first, other) -> first.isDeclared() ? first : other);
+    }
+    return linksByUrl.values().stream().filter(FaviconsFetcher::isSupportedType)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Gets the {@link LinksFetcher} used to retrieve the available favicons {@link URL}s.
+   *
+   * @return the {@link LinksFetcher}
+   */
+  LinksFetcher getLinksFetcher() {
+    return linksFetcher;
+  }
+
+  /**
+   * Gets the {@link PayloadBuffering} deciding whether to keep the icons bytes.
+   *
+   * @return the {@link PayloadBuffering}
+   */
+  PayloadBuffering getPayloadBuffering() {
+    return payloadBuffering;
+  }
+
+  /**
+   * Gets the {@link HttpTransport} fetching the icons.
+   *
+   * @return the {@link HttpTransport}
+   */
+  HttpTransport getTransport() {
+    return transport;
+  }
+
+  private static boolean isSupportedType(final FaviconLink link) {
+    if (!link.isSupportedType()) {
+      logger.debug("Skipping {}, its type is not supported", link);
+      return false;
+    }
+    return true;
   }
 
   /**
@@ -49,9 +171,9 @@ public class FaviconsFetcher implements IconsFetcher {
    * @return an {@link Optional} {@link JiconIcon}, an empty {@link Optional} if no data can be
    *         retrieved from the {@link URL}
    */
-  private Optional<JiconIcon> getIconFromUrl(final URL url) {
+  Optional<JiconIcon> getIconFromUrl(final URL url) {
     try {
-      return Optional.of(JiconIconFactory.getIcon(url));
+      return Optional.of(loadIcon(url));
     } catch (IOException e) {
       logger.warn("No icons found at {}", url, e);
       return Optional.empty();
@@ -61,5 +183,16 @@ public class FaviconsFetcher implements IconsFetcher {
     }
   }
 
+  /**
+   * Loads the {@link JiconIcon} at a given {@link URL}.
+   *
+   * @param url the {@link URL} of the icon
+   * @return the {@link JiconIcon}
+   * @throws ImageFormatNotSupportedException in case the format of the icon is not supported
+   * @throws IOException in case of problems reading the icon
+   */
+  JiconIcon loadIcon(final URL url) throws ImageFormatNotSupportedException, IOException {
+    return JiconIconFactory.getIcon(url, payloadBuffering, transport);
+  }
 
 }
@@ -0,0 +1,157 @@
+package ch.bisi.jicon.fetcher.icon;
+
+import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.common.JiconIconImage;
+import ch.bisi.jicon.fetcher.link.FaviconLink;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Selection of the favicon closest to a target size.
+ *
+ * <p>A size is closer to the target than another one if it is at least as big as the target and
+ * the other one is not, or else if it differs less from the target. Smaller favicons are only
+ * chosen when no favicon is big enough, since scaling down looks better than scaling up. The
+ * size of a favicon is the biggest side of the closest of its images.</p>
+ */
+public final class IconSelector {
+
+  /**
+   * The distance of a favicon whose size is not known, farther than any big enough size and
+   * closer than any too small one.
+   */
+  private static final long UNKNOWN_DISTANCE = 1L << 32;
+
+  /**
+   * The offset added to the distance of a favicon smaller than the target, so that it is farther
+   * than any big enough or unknown size.
+   */
+  private static final long SMALLER_DISTANCE = 1L << 33;
+
+  private IconSelector() {
+    // hide public constructor
+  }
+
+  /**
+   * Selects among already fetched {@link JiconIcon}s the one closest to a target size.
+   *
+   * @param icons the {@link JiconIcon}s
+   * @param targetSize the target width and height, in pixels
+   * @return the {@link Optional} closest {@link JiconIcon}, the first one among equally close
+   *         ones, or an empty {@link Optional} if there are no icons
+   * @throws IllegalArgumentException if the target size is not positive
+   */
+  public static Optional<JiconIcon> selectBest(final Collection<JiconIcon> icons,
+      final int targetSize) {
+    checkTargetSize(targetSize);
+    return icons.stream().min(Comparator.comparingLong(icon -> getDistance(icon, targetSize)));
+  }
+
+  /**
+   * Fetches the favicons in order of their declared distance from a target size, stopping at the
+   * first one at least as big as the target. Among equally close favicons, the ones declared for
+   * a specific media, e.g. a dark color scheme, are fetched last.
+   *
+   * @param links the {@link FaviconLink}s of the favicons
+   * @param targetSize the target width and height, in pixels
+   * @param loader the function fetching the favicon at an {@link URL}, giving an empty
+   *        {@link Optional} if it cannot be fetched
+   * @return the {@link Optional} closest fetched {@link JiconIcon}, or an empty {@link Optional}
+   *         if no favicon could be fetched
+   * @throws IllegalArgumentException if the target size is not positive
+   */
+  static Optional<JiconIcon> probeBest(final List<FaviconLink> links, final int targetSize,
+      final Function<URL, Optional<JiconIcon>> loader) {
+    checkTargetSize(targetSize);
+    Optional<JiconIcon> best = Optional.empty();
+    for (final FaviconLink link : rank(links, targetSize)) {
+      best = closest(best, loader.apply(link.getUrl()), targetSize);
+      if (isBigEnough(best, targetSize)) {
+        break;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Orders {@link FaviconLink}s by their declared distance from a target size, then by whether
+   * they declare a media, keeping the original order among equal ones.
+   *
+   * @param links the {@link FaviconLink}s
+   * @param targetSize the target size
+   * @return the ordered {@link List} of {@link FaviconLink}s
+   */
+  private static List<FaviconLink> rank(final List<FaviconLink> links, final int targetSize) {
+    return links.stream()
+        .sorted(Comparator
+            .comparingLong((FaviconLink link) -> getDeclaredDistance(link, targetSize))
+            .thenComparing(link -> link.getMedia().isPresent()))
+        .collect(Collectors.toList());
+  }
+
+  private static Optional<JiconIcon> closest(final Optional<JiconIcon> best,
+      final Optional<JiconIcon> candidate, final int targetSize) {
+    if (!best.isPresent()) {
+      return candidate;
+    }
+    return candidate.filter(
+        icon -> getDistance(icon, targetSize) < getDistance(best.get(), targetSize)).isPresent()
+        ? candidate : best;
+  }
+
+  private static boolean isBigEnough(final Optional<JiconIcon> icon, final int targetSize) {
+    return icon.filter(found -> getDistance(found, targetSize) < UNKNOWN_DISTANCE).isPresent();
+  }
+
+  /**
+   * Gets the distance of a fetched {@link JiconIcon} from a target size.
+   *
+   * @param icon the {@link JiconIcon}
+   * @param targetSize the target size
+   * @return the distance of its closest image
+   */
+  private static long getDistance(final JiconIcon icon, final int targetSize) {
+    return icon.getImages().stream()
+        .mapToLong(image -> getSizeDistance(getSize(image), targetSize))
+        .min().orElse(UNKNOWN_DISTANCE);
+  }
+
+  /**
+   * Gets the distance of a favicon from a target size, as declared by its {@link FaviconLink}.
+   *
+   * @param link the {@link FaviconLink}
+   * @param targetSize the target size
+   * @return the distance of its closest declared size
+   */
+  private static long getDeclaredDistance(final FaviconLink link, final int targetSize) {
+    if (link.isScalable()) {
+      return 0;
+    }
+    return link.getSizes().stream()
+        .mapToLong(size -> getSizeDistance(Math.max(size.width, size.height), targetSize))
+        .min().orElse(UNKNOWN_DISTANCE);
+  }
+
+  private static long getSizeDistance(final int size, final int targetSize) {
+    if (size >= targetSize) {
+      return (long) size - targetSize;
+    }
+    return SMALLER_DISTANCE + targetSize - size;
+  }
+
+  private static int getSize(final JiconIconImage image) {
+    return (int) Math.max(image.getWidth(), image.getHeight());
+  }
+
+  private static void checkTargetSize(final int targetSize) {
+    if (targetSize <= 0) {
+      throw new IllegalArgumentException("The target size must be positive: " + targetSize);
+    }
+  }
+
+}
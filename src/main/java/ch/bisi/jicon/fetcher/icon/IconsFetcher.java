@@ -2,6 +2,8 @@ package ch.bisi.jicon.fetcher.icon;
 
 import ch.bisi.jicon.common.JiconIcon;
 import java.io.IOException;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -17,4 +19,18 @@ public interface IconsFetcher {
    */
   Stream<JiconIcon> getIcons() throws IOException;
 
+  /**
+   * Gets the {@link JiconIcon} closest to a target size, as selected by
+   * {@link IconSelector#selectBest}. By default all the {@link JiconIcon}s are produced before
+   * selecting one of them.
+   *
+   * @param targetSize the target width and height, in pixels
+   * @return the {@link Optional} closest {@link JiconIcon}, empty if no icons are produced
+   * @throws IOException in case of problems producing the {@link JiconIcon}s
+   * @throws IllegalArgumentException if the target size is not positive
+   */
+  default Optional<JiconIcon> getBestIcon(final int targetSize) throws IOException {
+    return IconSelector.selectBest(getIcons().collect(Collectors.toList()), targetSize);
+  }
+
 }
@@ -0,0 +1,208 @@
+package ch.bisi.jicon.fetcher.link;
+
+import java.awt.Dimension;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+
+/**
+ * Favicon {@link URL} found by a {@link LinksFetcher}, together with what the page declares about
+ * it in the {@code rel}, {@code type}, {@code sizes} and {@code media} attributes of its
+ * {@code <link>}, so that favicons can be ordered and filtered before being fetched.
+ */
+public final class FaviconLink {
+
+  private static final Pattern SIZE = Pattern.compile("([1-9][0-9]*)[xX]([1-9][0-9]*)");
+  private static final String ANY_SIZE = "any";
+
+  private final URL url;
+  private final String rel;
+  private final String type;
+  private final List<Dimension> sizes;
+  private final boolean scalable;
+  private final String media;
+
+  /**
+   * Instantiates a new {@link FaviconLink} from the attributes of a {@code <link>}.
+   *
+   * @param url the resolved {@link URL} of the favicon
+   * @param rel the value of the {@code rel} attribute, empty if the favicon is not declared by a
+   *        {@code <link>}
+   * @param type the value of the {@code type} attribute, empty if not declared
+   * @param sizes the value of the {@code sizes} attribute, empty if not declared
+   */
+  public FaviconLink(final URL url, final String rel, final String type, final String sizes) {
+    this(url, rel, type, sizes, "");
+  }
+
+  /**
+   * Instantiates a new {@link FaviconLink} from the attributes of a {@code <link>}, including the
+   * media query the favicon is meant for.
+   *
+   * @param url the resolved {@link URL} of the favicon
+   * @param rel the value of the {@code rel} attribute, empty if the favicon is not declared by a
+   *        {@code <link>}
+   * @param type the value of the {@code type} attribute, empty if not declared
+   * @param sizes the value of the {@code sizes} attribute, empty if not declared
+   * @param media the value of the {@code media} attribute, empty if not declared
+   */
+  public FaviconLink(final URL url, final String rel, final String type, final String sizes,
+      final String media) {
+    this.url = url;
+    this.rel = rel.trim().toLowerCase(Locale.ROOT);
+    this.type = type.trim().toLowerCase(Locale.ROOT);
+    this.sizes = Collections.unmodifiableList(parseSizes(sizes));
+    this.scalable = sizes.toLowerCase(Locale.ROOT).matches(".*\\b" + ANY_SIZE + "\\b.*");
+    this.media = media.trim();
+  }
+
+  /**
+   * Builds a {@link FaviconLink} for a favicon {@link URL} about which nothing is declared, e.g.
+   * a conventional path like {@code /favicon.ico}.
+   *
+   * @param url the {@link URL} of the favicon
+   * @return the {@link FaviconLink}
+   */
+  public static FaviconLink of(final URL url) {
+    return new FaviconLink(url, "", "", "");
+  }
+
+  /**
+   * Gets the resolved {@link URL} of the favicon.
+   *
+   * @return the {@link URL}
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the lower case {@code rel} value of the {@code <link>}.
+   *
+   * @return the {@code rel} value, empty if the favicon is not declared by a {@code <link>}
+   */
+  public String getRel() {
+    return rel;
+  }
+
+  /**
+   * Gets the lower case MIME type declared by the {@code <link>}.
+   *
+   * @return an {@link Optional} MIME type, empty if not declared
+   */
+  public Optional<String> getType() {
+    return type.isEmpty() ? Optional.empty() : Optional.of(type);
+  }
+
+  /**
+   * Gets the sizes declared by the {@code <link>}, ignoring the malformed ones.
+   *
+   * @return the unmodifiable {@link List} of declared {@link Dimension}s, empty if not declared
+   */
+  public List<Dimension> getSizes() {
+    return sizes;
+  }
+
+  /**
+   * Checks whether the {@code <link>} declares the favicon as scalable, with the {@code any}
+   * size keyword.
+   *
+   * @return {@code true} if the favicon is declared as scalable, {@code false} otherwise
+   */
+  public boolean isScalable() {
+    return scalable;
+  }
+
+  /**
+   * Gets the media query declared by the {@code <link>}, e.g. for a favicon meant for dark
+   * color schemes only.
+   *
+   * @return an {@link Optional} media query, empty if not declared
+   */
+  public Optional<String> getMedia() {
+    return media.isEmpty() ? Optional.empty() : Optional.of(media);
+  }
+
+  /**
+   * Checks whether the favicon is declared by a {@code <link>}, rather than guessed from a
+   * conventional path.
+   *
+   * @return {@code true} if the favicon is declared by a {@code <link>}, {@code false} otherwise
+   */
+  public boolean isDeclared() {
+    return !rel.isEmpty();
+  }
+
+  /**
+   * Checks whether the favicon can be read, as far as its declared type tells, that is whether
+   * no type is declared or an ImageIO reader supports the declared one.
+   *
+   * @return {@code true} if the favicon may be read, {@code false} if it cannot
+   */
+  public boolean isSupportedType() {
+    return type.isEmpty() || ImageIO.getImageReadersByMIMEType(type).hasNext();
+  }
+
+  /**
+   * Parses the {@code WIDTHxHEIGHT} tokens of a {@code sizes} attribute.
+   *
+   * @param sizes the value of the {@code sizes} attribute
+   * @return the {@link List} of parsed {@link Dimension}s
+   */
+  private static List<Dimension> parseSizes(final String sizes) {
+    final List<Dimension> result = new ArrayList<>();
+    for (final String size : sizes.trim().split("\\s+")) {
+      final Matcher matcher = SIZE.matcher(size);
+      if (matcher.matches()) {
+        result.add(new Dimension(parseSize(matcher.group(1)), parseSize(matcher.group(2))));
+      }
+    }
+    return result;
+  }
+
+  private static int parseSize(final String size) {
+    try {
+      return Integer.parseInt(size);
+    } catch (NumberFormatException e) {
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    final FaviconLink that = (FaviconLink) other;
+    return url.toString().equals(that.url.toString()) && rel.equals(that.rel)
+        && type.equals(that.type) && sizes.equals(that.sizes) && scalable == that.scalable
+        && media.equals(that.media);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(url.toString(), rel, type, sizes, scalable, media);
+  }
+
+  @Override
+  public String toString() {
+    return "FaviconLink{"
+        + "url=" + url
+        + ", rel='" + rel + '\''
+        + ", type='" + type + '\''
+        + ", sizes=" + sizes
+        + ", scalable=" + scalable
+        + ", media='" + media + '\''
+        + '}';
+  }
+}
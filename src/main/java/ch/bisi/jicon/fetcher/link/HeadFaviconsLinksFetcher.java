@@ -0,0 +1,154 @@
+package ch.bisi.jicon.fetcher.link;
+
+import static ch.bisi.jicon.fetcher.link.JsoupFaviconsLinksFetcher.extractCommonFaviconsLinks;
+import static ch.bisi.jicon.fetcher.link.JsoupFaviconsLinksFetcher.faviconsRels;
+import static ch.bisi.jicon.fetcher.link.JsoupFaviconsLinksFetcher.toUrls;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Component responsible for retrieving favicons {@link URL}s from the {@code <head>} of an html
+ * page, without parsing the whole page.
+ *
+ * <p>The {@code <base>} and {@code <link>} tags are collected by a lightweight tokenizer which
+ * stops reading at {@code </head>} or {@code <body>}. The favicons {@link URL}s are the same,
+ * and in the same order, as the ones found by the {@link JsoupFaviconsLinksFetcher} for pages
+ * declaring their favicons in the {@code <head>}.</p>
+ */
+public class HeadFaviconsLinksFetcher implements LinksFetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(HeadFaviconsLinksFetcher.class);
+
+  private static final Set<String> scannedTags = new HashSet<>(Arrays.asList("base", "link"));
+
+  /**
+   * The {@code <base>} and {@code <link>} tags found in the {@code <head>}.
+   **/
+  private final List<HtmlTag> headTags;
+
+  /**
+   * The location of the html page.
+   **/
+  private final URL location;
+
+  /**
+   * Instantiates a new {@link HeadFaviconsLinksFetcher}.
+   *
+   * @param headTags the {@code <base>} and {@code <link>} tags found in the {@code <head>}
+   * @param location the location of the html page
+   */
+  HeadFaviconsLinksFetcher(final List<HtmlTag> headTags, final URL location) {
+    this.headTags = headTags;
+    this.location = location;
+  }
+
+  /**
+   * Scans the {@code <head>} of an html page, reading the page only up to {@code </head>} or
+   * {@code <body>}.
+   *
+   * @param reader the {@link Reader} of the html page, it is not closed
+   * @param location the location of the html page, against which relative {@link URL}s are
+   *        resolved
+   * @return the {@link HeadFaviconsLinksFetcher} for the scanned page
+   * @throws IOException in case of problems reading the html page
+   */
+  public static HeadFaviconsLinksFetcher scan(final Reader reader, final URL location)
+      throws IOException {
+    return new HeadFaviconsLinksFetcher(HtmlHeadScanner.scan(reader, scannedTags), location);
+  }
+
+  /**
+   * Gets all the favicons {@link URL}s found in the {@code <head>}.
+   *
+   * @return the {@link List} of {@link URL}
+   * @throws IOException in case the {@link URL}s found in the {@code <head>} are malformed
+   */
+  @Override
+  public List<URL> fetchLinks() throws IOException {
+    return toUrls(fetchFaviconLinks());
+  }
+
+  /**
+   * Gets all the favicons {@link URL}s found in the {@code <head>}, with the {@code rel},
+   * {@code type}, {@code sizes} and {@code media} attributes of their {@code <link>} tags.
+   *
+   * @return the {@link List} of {@link FaviconLink}s
+   * @throws IOException in case the {@link URL}s found in the {@code <head>} are malformed
+   */
+  @Override
+  public List<FaviconLink> fetchFaviconLinks() throws IOException {
+    final List<FaviconLink> faviconsLinks = new ArrayList<>();
+    final URL baseUrl = extractBaseUrl();
+    faviconsLinks.addAll(extractCommonFaviconsLinks(baseUrl));
+    faviconsLinks.addAll(extractFaviconsLinksFromRels(baseUrl));
+    return faviconsLinks;
+  }
+
+  /**
+   * Extracts the base {@link URL} from the href attribute of the first {@code <base>} tag.
+   *
+   * @return the base {@link URL} or the location of the page if no {@code <base>} tag has been
+   *         found
+   * @throws MalformedURLException in case the href of the {@code <base>} tag is malformed
+   */
+  private URL extractBaseUrl() throws MalformedURLException {
+    final Optional<HtmlTag> baseHref = headTags.stream()
+        .filter(tag -> "base".equals(tag.getName()) && tag.hasAttr("href"))
+        .findFirst();
+    if (baseHref.isPresent()) {
+      final String baseHrefValue = baseHref.get().attr("href");
+      logger.debug("<base> tag found with href: {}", baseHrefValue);
+      return new URL(location, baseHrefValue);
+    }
+    return location;
+  }
+
+  /**
+   * Extracts the {@code <link>} tags referring to favicons, grouped by rel
+   * value in the same order as the {@link JsoupFaviconsLinksFetcher} selectors.
+   *
+   * @param baseUrl the base {@link URL} of the page
+   * @return the list of found favicons {@link FaviconLink}s
+   * @throws MalformedURLException in case the found {@link URL}s are malformed
+   */
+  private List<FaviconLink> extractFaviconsLinksFromRels(final URL baseUrl)
+      throws MalformedURLException {
+    final List<FaviconLink> result = new ArrayList<>();
+    for (final String rel : faviconsRels) {
+      for (final HtmlTag link : headTags) {
+        if (isLinkWithRel(link, rel)) {
+          final String hrefValue = link.attr("href");
+          logger.debug("Favicon href found: {}", hrefValue);
+          result.add(new FaviconLink(new URL(baseUrl, hrefValue), link.attr("rel"),
+              link.attr("type"), link.attr("sizes"), link.attr("media")));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether a tag is a {@code <link>} with a given rel value, comparing it as the
+   * {@link JsoupFaviconsLinksFetcher} selectors do.
+   *
+   * @param tag the {@link HtmlTag} to check
+   * @param rel the rel value
+   * @return {@code true} if the tag is a matching {@code <link>}, {@code false} otherwise
+   */
+  private static boolean isLinkWithRel(final HtmlTag tag, final String rel) {
+    return "link".equals(tag.getName()) && tag.hasAttr("rel")
+        && rel.equalsIgnoreCase(tag.attr("rel").trim());
+  }
+
+}
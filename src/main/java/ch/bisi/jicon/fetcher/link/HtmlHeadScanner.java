@@ -0,0 +1,340 @@
+package ch.bisi.jicon.fetcher.link;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jsoup.parser.Parser;
+
+/**
+ * Lightweight tokenizer collecting the start tags found in the {@code <head>} of an html page.
+ *
+ * <p>The page is read one character at a time and the scan stops as soon as {@code </head>} or
+ * {@code <body>} is found, so that the rest of the page is never read. No DOM is built: comments,
+ * doctypes and processing instructions are skipped, as well as the content of the elements which
+ * cannot contain tags (e.g. {@code <script>} and {@code <style>}).</p>
+ */
+final class HtmlHeadScanner {
+
+  private static final int EOF = -1;
+  private static final int NONE = -2;
+
+  // @formatter:off
+  private static final Set<String> rawTextElements = new HashSet<>(Arrays.asList(
+      "script",
+      "style",
+      "title",
+      "textarea"
+  ));
+  // @formatter:on
+
+  private final Reader reader;
+  private final Set<String> tagNames;
+  private int lookahead = NONE;
+
+  /**
+   * Instantiates a new {@link HtmlHeadScanner}.
+   *
+   * @param reader the {@link Reader} of the html page
+   * @param tagNames the lower case names of the tags to collect
+   */
+  private HtmlHeadScanner(final Reader reader, final Set<String> tagNames) {
+    this.reader = reader;
+    this.tagNames = tagNames;
+  }
+
+  /**
+   * Scans the {@code <head>} of an html page.
+   *
+   * @param reader the {@link Reader} of the html page, it is not read past the end of the
+   *        {@code <head>}
+   * @param tagNames the lower case names of the tags to collect
+   * @return the {@link List} of the collected {@link HtmlTag}s, in document order
+   * @throws IOException in case of problems reading the html page
+   */
+  static List<HtmlTag> scan(final Reader reader, final Set<String> tagNames) throws IOException {
+    return new HtmlHeadScanner(reader, tagNames).scan();
+  }
+
+  /**
+   * Scans the markup until the end of the {@code <head>} or the end of the page.
+   *
+   * @return the {@link List} of the collected {@link HtmlTag}s
+   * @throws IOException in case of problems reading the html page
+   */
+  private List<HtmlTag> scan() throws IOException {
+    final List<HtmlTag> tags = new ArrayList<>();
+    boolean inHead = true;
+    while (inHead && skipPast('<')) {
+      inHead = readMarkup(tags);
+    }
+    return tags;
+  }
+
+  /**
+   * Reads the markup following a {@code <}.
+   *
+   * @param tags the {@link List} to which the collected {@link HtmlTag}s are added
+   * @return {@code false} if the markup ends the {@code <head>}, {@code true} otherwise
+   * @throws IOException in case of problems reading the html page
+   */
+  private boolean readMarkup(final List<HtmlTag> tags) throws IOException {
+    final int first = read();
+    if (first == '/') {
+      return readEndTag();
+    }
+    if (Character.isLetter(first)) {
+      return readStartTag(readName(first), tags);
+    }
+    skipBogusMarkup(first);
+    return true;
+  }
+
+  /**
+   * Reads an end tag.
+   *
+   * @return {@code false} if the tag is {@code </head>}, {@code true} otherwise
+   * @throws IOException in case of problems reading the html page
+   */
+  private boolean readEndTag() throws IOException {
+    final String name = readName(read());
+    skipPast('>');
+    return !"head".equals(name);
+  }
+
+  /**
+   * Reads the attributes of a start tag, collecting the tag if needed.
+   *
+   * @param name the lower case name of the tag
+   * @param tags the {@link List} to which the collected {@link HtmlTag}s are added
+   * @return {@code false} if the tag is {@code <body>}, {@code true} otherwise
+   * @throws IOException in case of problems reading the html page
+   */
+  private boolean readStartTag(final String name, final List<HtmlTag> tags) throws IOException {
+    if ("body".equals(name)) {
+      return false;
+    }
+    final Map<String, String> attributes = readAttributes();
+    if (tagNames.contains(name)) {
+      tags.add(new HtmlTag(name, attributes));
+    }
+    if (rawTextElements.contains(name)) {
+      skipRawText(name);
+    }
+    return true;
+  }
+
+  /**
+   * Reads the attributes of a tag up to the closing {@code >}.
+   *
+   * @return the attributes, keyed by their lower case name
+   * @throws IOException in case of problems reading the html page
+   */
+  private Map<String, String> readAttributes() throws IOException {
+    final Map<String, String> attributes = new LinkedHashMap<>();
+    skipWhitespaces();
+    while (peek() != '>' && peek() != EOF) {
+      readAttribute(attributes);
+      skipWhitespaces();
+    }
+    read();
+    return attributes;
+  }
+
+  /**
+   * Reads a single attribute, keeping only the first occurrence of duplicated attributes.
+   *
+   * @param attributes the attributes read so far
+   * @throws IOException in case of problems reading the html page
+   */
+  private void readAttribute(final Map<String, String> attributes) throws IOException {
+    final StringBuilder name = new StringBuilder();
+    while (isAttributeNameChar(peek())) {
+      name.append(Character.toLowerCase((char) read()));
+    }
+    if (name.length() == 0) {
+      // a stray '/' or '=', nothing to keep
+      read();
+      return;
+    }
+    skipWhitespaces();
+    String value = "";
+    if (peek() == '=') {
+      read();
+      skipWhitespaces();
+      value = Parser.unescapeEntities(readAttributeValue(), true);
+    }
+    attributes.putIfAbsent(name.toString(), value);
+  }
+
+  /**
+   * Reads a quoted or unquoted attribute value.
+   *
+   * @return the raw attribute value
+   * @throws IOException in case of problems reading the html page
+   */
+  private String readAttributeValue() throws IOException {
+    if (peek() == '"' || peek() == '\'') {
+      return readQuotedValue(read());
+    }
+    final StringBuilder value = new StringBuilder();
+    while (isUnquotedValueChar(peek())) {
+      value.append((char) read());
+    }
+    return value.toString();
+  }
+
+  /**
+   * Reads a quoted attribute value, the opening quote being already read.
+   *
+   * @param quote the quote character
+   * @return the raw attribute value
+   * @throws IOException in case of problems reading the html page
+   */
+  private String readQuotedValue(final int quote) throws IOException {
+    final StringBuilder value = new StringBuilder();
+    for (int c = read(); c != quote && c != EOF; c = read()) {
+      value.append((char) c);
+    }
+    return value.toString();
+  }
+
+  /**
+   * Reads the name of a tag.
+   *
+   * @param first the first character of the name
+   * @return the lower case name
+   * @throws IOException in case of problems reading the html page
+   */
+  private String readName(final int first) throws IOException {
+    final StringBuilder name = new StringBuilder();
+    name.append(Character.toLowerCase((char) first));
+    while (isTagNameChar(peek())) {
+      name.append(Character.toLowerCase((char) read()));
+    }
+    return name.toString();
+  }
+
+  /**
+   * Skips comments, doctypes, processing instructions and stray {@code <}s.
+   *
+   * @param first the character following the {@code <}
+   * @throws IOException in case of problems reading the html page
+   */
+  private void skipBogusMarkup(final int first) throws IOException {
+    if (first != '!' && first != '?') {
+      return;
+    }
+    if (peek() == '-') {
+      skipComment();
+    } else {
+      skipPast('>');
+    }
+  }
+
+  /**
+   * Skips a comment, the {@code <!} being already read.
+   *
+   * @throws IOException in case of problems reading the html page
+   */
+  private void skipComment() throws IOException {
+    read();
+    if (read() != '-') {
+      skipPast('>');
+      return;
+    }
+    int dashes = 0;
+    for (int c = read(); !isCommentEnd(c, dashes); c = read()) {
+      dashes = c == '-' ? dashes + 1 : 0;
+    }
+  }
+
+  /**
+   * Skips the content of an element which cannot contain tags, up to its end tag.
+   *
+   * @param name the name of the element
+   * @throws IOException in case of problems reading the html page
+   */
+  private void skipRawText(final String name) throws IOException {
+    while (skipPast('<')) {
+      if (read() == '/' && name.equals(readName(read()))) {
+        skipPast('>');
+        return;
+      }
+    }
+  }
+
+  /**
+   * Skips the characters up to and including a given one.
+   *
+   * @param target the character to look for
+   * @return {@code true} if the character has been found, {@code false} if the end of the page has
+   *         been reached
+   * @throws IOException in case of problems reading the html page
+   */
+  private boolean skipPast(final char target) throws IOException {
+    int c = read();
+    while (c != target && c != EOF) {
+      c = read();
+    }
+    return c == target;
+  }
+
+  /**
+   * Skips the whitespaces.
+   *
+   * @throws IOException in case of problems reading the html page
+   */
+  private void skipWhitespaces() throws IOException {
+    while (Character.isWhitespace(peek())) {
+      read();
+    }
+  }
+
+  /**
+   * Gets the next character without consuming it.
+   *
+   * @return the next character or {@code -1} at the end of the page
+   * @throws IOException in case of problems reading the html page
+   */
+  private int peek() throws IOException {
+    if (lookahead == NONE) {
+      lookahead = reader.read();
+    }
+    return lookahead;
+  }
+
+  /**
+   * Consumes the next character.
+   *
+   * @return the next character or {@code -1} at the end of the page
+   * @throws IOException in case of problems reading the html page
+   */
+  private int read() throws IOException {
+    final int c = peek();
+    lookahead = NONE;
+    return c;
+  }
+
+  private static boolean isCommentEnd(final int ch, final int dashes) {
+    return ch == EOF || ch == '>' && dashes >= 2;
+  }
+
+  private static boolean isTagNameChar(final int ch) {
+    return Character.isLetterOrDigit(ch) || ch == '-' || ch == ':';
+  }
+
+  private static boolean isAttributeNameChar(final int ch) {
+    return ch != EOF && !Character.isWhitespace(ch) && "=>/".indexOf(ch) == -1;
+  }
+
+  private static boolean isUnquotedValueChar(final int ch) {
+    return ch != EOF && !Character.isWhitespace(ch) && ch != '>';
+  }
+
+}
@@ -0,0 +1,61 @@
+package ch.bisi.jicon.fetcher.link;
+
+import java.util.Map;
+
+/**
+ * Start tag found by the {@link HtmlHeadScanner}, with its attributes.
+ */
+final class HtmlTag {
+
+  private final String name;
+  private final Map<String, String> attributes;
+
+  /**
+   * Instantiates a new {@link HtmlTag}.
+   *
+   * @param name the lower case name of the tag
+   * @param attributes the attributes of the tag, keyed by their lower case name and with the
+   *        character references already decoded
+   */
+  HtmlTag(final String name, final Map<String, String> attributes) {
+    this.name = name;
+    this.attributes = attributes;
+  }
+
+  /**
+   * Gets the lower case name of the tag.
+   *
+   * @return the name of the tag
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Checks whether the tag has a given attribute.
+   *
+   * @param key the lower case name of the attribute
+   * @return {@code true} if the tag has the attribute, {@code false} otherwise
+   */
+  boolean hasAttr(final String key) {
+    return attributes.containsKey(key);
+  }
+
+  /**
+   * Gets the value of a given attribute.
+   *
+   * @param key the lower case name of the attribute
+   * @return the value of the attribute or an empty {@link String} if the tag has no such attribute
+   */
+  String attr(final String key) {
+    return attributes.getOrDefault(key, "");
+  }
+
+  @Override
+  public String toString() {
+    return "HtmlTag{"
+        + "name=" + name
+        + ", attributes=" + attributes
+        + '}';
+  }
+}
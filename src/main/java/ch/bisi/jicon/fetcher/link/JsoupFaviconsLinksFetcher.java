@@ -6,6 +6,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
@@ -34,14 +35,22 @@ public class JsoupFaviconsLinksFetcher implements LinksFetcher {
       "apple-touch-icon-precomposed.png"
   );
 
-  private static final List<String> faviconsCssSelectors = Arrays.asList(
-      "link[rel='icon']",
-      "link[rel='shortcut icon']",
-      "link[rel='apple-touch-icon']",
-      "link[rel='apple-touch-icon-precomposed']"
+  /**
+   * The rel values of the {@code <link>} elements referring to favicons, in the order in which
+   * they are looked up.
+   **/
+  static final List<String> faviconsRels = Arrays.asList(
+      "icon",
+      "shortcut icon",
+      "apple-touch-icon",
+      "apple-touch-icon-precomposed"
   );
   // @formatter:on
 
+  private static final List<String> faviconsCssSelectors = faviconsRels.stream()
+      .map(rel -> "link[rel='" + rel + "']")
+      .collect(Collectors.toList());
+
   /**
    * Instantiates a new {@link JsoupFaviconsLinksFetcher}.
    *
@@ -60,10 +69,22 @@ public class JsoupFaviconsLinksFetcher implements LinksFetcher {
    */
   @Override
   public List<URL> fetchLinks() throws IOException {
-    final List<URL> faviconsLinks = new ArrayList<>();
+    return toUrls(fetchFaviconLinks());
+  }
+
+  /**
+   * Gets all the favicons {@link URL}s found in the {@code document}, with the {@code rel},
+   * {@code type}, {@code sizes} and {@code media} attributes of their {@code <link>} elements.
+   *
+   * @return the {@link List} of {@link FaviconLink}s
+   * @throws IOException in case of problems accessing the html {@code document}
+   */
+  @Override
+  public List<FaviconLink> fetchFaviconLinks() throws IOException {
+    final List<FaviconLink> faviconsLinks = new ArrayList<>();
     final URL baseUrl = extractBaseUrl(document);
-    faviconsLinks.addAll(extractCommonFaviconsUrls(baseUrl));
-    faviconsLinks.addAll(extractFaviconsUrlsFromCssSelectors(baseUrl, document));
+    faviconsLinks.addAll(extractCommonFaviconsLinks(baseUrl));
+    faviconsLinks.addAll(extractFaviconsLinksFromCssSelectors(baseUrl, document));
     return faviconsLinks;
   }
 
@@ -89,37 +110,48 @@ public class JsoupFaviconsLinksFetcher implements LinksFetcher {
    * Extracts the common favicons {@link URL}s from the given html {@link Document}.
    *
    * @param baseUrl the base {@link URL}.
-   * @return the list of common favicons {@link URL}s
+   * @return the list of common favicons {@link FaviconLink}s, about which nothing is declared
    * @throws MalformedURLException in case of problems building the favicons common {@link URL}s.
    */
-  private static List<URL> extractCommonFaviconsUrls(final URL baseUrl)
+  static List<FaviconLink> extractCommonFaviconsLinks(final URL baseUrl)
       throws MalformedURLException {
-    final List<URL> result = new ArrayList<>();
+    final List<FaviconLink> result = new ArrayList<>();
     for (final String faviconPath : commonFaviconsPaths) {
       logger.debug("Common favicon path {} added", faviconPath);
-      result.add(new URL(baseUrl, faviconPath));
+      result.add(FaviconLink.of(new URL(baseUrl, faviconPath)));
     }
     return result;
   }
 
   /**
-   * Extracts from the input {@code #document} the href values of {@code <link>} elements
-   * referring to favicons. Values are returned as {@link URL}s.
+   * Gets the {@link URL}s of {@link FaviconLink}s.
+   *
+   * @param links the {@link FaviconLink}s
+   * @return the {@link List} of {@link URL}s, in the same order
+   */
+  static List<URL> toUrls(final List<FaviconLink> links) {
+    return links.stream().map(FaviconLink::getUrl).collect(Collectors.toList());
+  }
+
+  /**
+   * Extracts from the input {@code #document} the {@code <link>} elements referring to favicons.
+   * Their href values are returned as {@link URL}s.
    *
    * @param baseUrl the base {@link URL} for the given {@link Document}
    * @param document the html {@link Document} to scan
-   * @return the list of found favicons {@link URL}s
+   * @return the list of found favicons {@link FaviconLink}s
    * @throws MalformedURLException in case the {@link URL}s read from the html {@link Document} are
    *         malformed
    */
-  private List<URL> extractFaviconsUrlsFromCssSelectors(final URL baseUrl, final Document document)
-      throws MalformedURLException {
-    final List<URL> result = new ArrayList<>();
+  private List<FaviconLink> extractFaviconsLinksFromCssSelectors(final URL baseUrl,
+      final Document document) throws MalformedURLException {
+    final List<FaviconLink> result = new ArrayList<>();
     for (final String cssSelector : faviconsCssSelectors) {
       for (final Element el : document.select(cssSelector)) {
         final String hrefValue = el.attr("href");
         logger.debug("Favicon href found: {}", hrefValue);
-        result.add(new URL(baseUrl, hrefValue));
+        result.add(new FaviconLink(new URL(baseUrl, hrefValue), el.attr("rel"), el.attr("type"),
+            el.attr("sizes"), el.attr("media")));
       }
     }
     return result;
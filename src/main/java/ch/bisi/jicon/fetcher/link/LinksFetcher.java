@@ -3,6 +3,7 @@ package ch.bisi.jicon.fetcher.link;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Interface implemented by components which produce {@link URL}s.
@@ -16,4 +17,15 @@ public interface LinksFetcher {
    * @throws IOException in case of problems producing the {@link List} of {@link URL}s
    */
   List<URL> fetchLinks() throws IOException;
+
+  /**
+   * Produces the {@link FaviconLink}s of the {@link URL}s, with what is declared about each of
+   * them. By default nothing is declared about any of the {@link URL}s.
+   *
+   * @return a {@link List} of {@link FaviconLink}s, in the order of {@link #fetchLinks()}
+   * @throws IOException in case of problems producing the {@link List} of {@link FaviconLink}s
+   */
+  default List<FaviconLink> fetchFaviconLinks() throws IOException {
+    return fetchLinks().stream().map(FaviconLink::of).collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,135 @@
+package ch.bisi.jicon.http;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code ETag}, {@code Last-Modified} and {@code Cache-Control} headers of a response, which
+ * tell how long the response can be reused and how to check later whether it has changed.
+ */
+public final class CacheValidators {
+
+  /** No validators, as for responses without caching headers. */
+  public static final CacheValidators NONE = new CacheValidators(null, null, null);
+
+  private static final Pattern maxAgePattern =
+      Pattern.compile("(?:^|[,\\s])max-age\\s*=\\s*\"?(\\d+)", Pattern.CASE_INSENSITIVE);
+
+  private final String etag;
+  private final String lastModified;
+  private final String cacheControl;
+
+  /**
+   * Instantiates a new {@link CacheValidators}.
+   *
+   * @param etag the {@code ETag} header or {@code null} if missing
+   * @param lastModified the {@code Last-Modified} header or {@code null} if missing
+   * @param cacheControl the {@code Cache-Control} header or {@code null} if missing
+   */
+  public CacheValidators(final String etag, final String lastModified,
+      final String cacheControl) {
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.cacheControl = cacheControl;
+  }
+
+  /**
+   * Gets the {@code ETag}, to be sent back as {@code If-None-Match}.
+   *
+   * @return an {@link Optional} {@code ETag}, empty if missing
+   */
+  public Optional<String> getEtag() {
+    return Optional.ofNullable(etag);
+  }
+
+  /**
+   * Gets the {@code Last-Modified} date, to be sent back as {@code If-Modified-Since}.
+   *
+   * @return an {@link Optional} {@code Last-Modified} date, empty if missing
+   */
+  public Optional<String> getLastModified() {
+    return Optional.ofNullable(lastModified);
+  }
+
+  /**
+   * Gets the {@code Cache-Control} directives.
+   *
+   * @return an {@link Optional} {@code Cache-Control}, empty if missing
+   */
+  public Optional<String> getCacheControl() {
+    return Optional.ofNullable(cacheControl);
+  }
+
+  /**
+   * Gets how long the response can be reused without revalidating it, as given by the
+   * {@code max-age} directive unless {@code no-cache} is present.
+   *
+   * @return an {@link Optional} {@link Duration}, empty if the response must always be
+   *         revalidated
+   */
+  public Optional<Duration> getMaxAge() {
+    if (cacheControl == null || hasDirective("no-cache")) {
+      return Optional.empty();
+    }
+    final Matcher matcher = maxAgePattern.matcher(cacheControl);
+    return matcher.find() ? Optional.of(parseSeconds(matcher.group(1))) : Optional.empty();
+  }
+
+  /**
+   * Checks whether the response may be stored and later revalidated or reused, that is if it has
+   * a validator or a {@code max-age}, and no {@code no-store} directive.
+   *
+   * @return {@code true} if the response may be stored, {@code false} otherwise
+   */
+  public boolean isStorable() {
+    return !hasDirective("no-store")
+        && (etag != null || lastModified != null || getMaxAge().isPresent());
+  }
+
+  /**
+   * Gets the validators of a stored response updated by the ones of a {@code 304 Not Modified}
+   * response, which may omit the unchanged headers.
+   *
+   * @param notModified the {@link CacheValidators} of the {@code 304 Not Modified} response
+   * @return the updated {@link CacheValidators}
+   */
+  public CacheValidators updatedBy(final CacheValidators notModified) {
+    return new CacheValidators(notModified.getEtag().orElse(etag),
+        notModified.getLastModified().orElse(lastModified),
+        notModified.getCacheControl().orElse(cacheControl));
+  }
+
+  private static Duration parseSeconds(final String seconds) {
+    try {
+      return Duration.ofSeconds(Long.parseLong(seconds));
+    } catch (NumberFormatException e) {
+      // overflowing a long, which is as good as never expiring
+      return Duration.ofSeconds(Long.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Checks whether the {@code Cache-Control} header has a directive, comparing the name of each
+   * of its comma separated directives, without their value, regardless of case.
+   *
+   * @param directive the name of the directive
+   * @return {@code true} if the directive is present, {@code false} otherwise
+   */
+  private boolean hasDirective(final String directive) {
+    return cacheControl != null && Arrays.stream(cacheControl.split(","))
+        .map(token -> token.split("=", 2)[0].trim())
+        .anyMatch(directive::equalsIgnoreCase);
+  }
+
+  @Override
+  public String toString() {
+    return "CacheValidators{"
+        + "etag='" + etag + '\''
+        + ", lastModified='" + lastModified + '\''
+        + ", cacheControl='" + cacheControl + '\''
+        + '}';
+  }
+}
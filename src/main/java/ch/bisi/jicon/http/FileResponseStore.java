@@ -0,0 +1,198 @@
+package ch.bisi.jicon.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ResponseStore} keeping each response in its own file of a directory, so that the stored
+ * responses survive restarts. The file of an {@link URL} is named after the SHA-256 digest of the
+ * {@link URL} and is replaced atomically, so that concurrent readers never see a partial one.
+ * Unreadable files are treated as missing.
+ */
+public class FileResponseStore implements ResponseStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileResponseStore.class);
+
+  private static final int MAGIC = 0x4A494352;
+  private static final int VERSION = 1;
+  private static final String EXTENSION = ".response";
+
+  private final Path directory;
+
+  /**
+   * Instantiates a new {@link FileResponseStore}, creating the directory if needed.
+   *
+   * @param directory the directory of the stored responses
+   * @throws IOException in case of problems creating the directory
+   */
+  public FileResponseStore(final Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  @Override
+  public Optional<StoredResponse> get(final URL url) throws IOException {
+    try (SeekableByteChannel channel = Files.newByteChannel(getFile(url))) {
+      return read(url, new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel))), channel.size());
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void put(final URL url, final StoredResponse response) throws IOException {
+    final Path file = getFile(url);
+    final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(),
+        ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+        write(url, response, out);
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Reads a stored response, treating the files which cannot be parsed as missing.
+   *
+   * @param url the requested {@link URL}
+   * @param in the {@link DataInputStream} reading the file
+   * @param size the size of the file, in bytes
+   * @return an {@link Optional} {@link StoredResponse}, empty if the file is not a readable stored
+   *         response of the {@link URL}
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private static Optional<StoredResponse> read(final URL url, final DataInputStream in,
+      final long size) {
+    try {
+      return parse(url, in, size);
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Ignoring the unreadable response stored for {}", url, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Parses a stored response, checking that it is the one of the given {@link URL}.
+   *
+   * @param url the requested {@link URL}
+   * @param in the {@link DataInputStream} reading the file
+   * @param size the size of the file, in bytes
+   * @return an {@link Optional} {@link StoredResponse}, empty if the file is not a stored
+   *         response of the {@link URL}
+   * @throws IOException in case of problems reading the file or if it is truncated or corrupted
+   */
+  private static Optional<StoredResponse> parse(final URL url, final DataInputStream in,
+      final long size) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION
+        || !in.readUTF().equals(url.toExternalForm())) {
+      logger.debug("Ignoring the unreadable response stored for {}", url);
+      return Optional.empty();
+    }
+    final URL responseUrl = new URL(in.readUTF());
+    final String contentType = readNullable(in);
+    final CacheValidators validators =
+        new CacheValidators(readNullable(in), readNullable(in), readNullable(in));
+    final Instant validatedAt = Instant.ofEpochMilli(in.readLong());
+    return Optional.of(new StoredResponse(responseUrl, contentType, validators, validatedAt,
+        readBody(in, size)));
+  }
+
+  /**
+   * Reads the body of a stored response, checking its length against the size of the file before
+   * allocating it.
+   *
+   * @param in the {@link DataInputStream} reading the file
+   * @param size the size of the file, in bytes
+   * @return the body
+   * @throws IOException in case of problems reading the file or if the length is invalid
+   */
+  private static byte[] readBody(final DataInputStream in, final long size) throws IOException {
+    final int length = in.readInt();
+    if (length < 0 || length > size) {
+      throw new IOException("Invalid body length: " + length);
+    }
+    final byte[] body = new byte[length];
+    in.readFully(body);
+    return body;
+  }
+
+  /**
+   * Writes a stored response.
+   *
+   * @param url the requested {@link URL}
+   * @param response the {@link StoredResponse}
+   * @param out the {@link DataOutputStream} writing the file
+   * @throws IOException in case of problems writing the file
+   */
+  private static void write(final URL url, final StoredResponse response,
+      final DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(url.toExternalForm());
+    out.writeUTF(response.getUrl().toExternalForm());
+    writeNullable(out, response.getContentType());
+    writeNullable(out, response.getValidators().getEtag());
+    writeNullable(out, response.getValidators().getLastModified());
+    writeNullable(out, response.getValidators().getCacheControl());
+    out.writeLong(response.getValidatedAt().toEpochMilli());
+    final byte[] body = new byte[response.getBody().remaining()];
+    response.getBody().get(body);
+    out.writeInt(body.length);
+    out.write(body);
+  }
+
+  private static String readNullable(final DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeNullable(final DataOutputStream out, final Optional<String> value)
+      throws IOException {
+    out.writeBoolean(value.isPresent());
+    if (value.isPresent()) {
+      out.writeUTF(value.get());
+    }
+  }
+
+  /**
+   * Gets the file of an {@link URL}.
+   *
+   * @param url the requested {@link URL}
+   * @return the {@link Path} of the file
+   */
+  private Path getFile(final URL url) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(url.toExternalForm().getBytes(StandardCharsets.UTF_8));
+      final StringBuilder name = new StringBuilder(digest.length * 2 + EXTENSION.length());
+      for (final byte b : digest) {
+        name.append(String.format("%02x", b));
+      }
+      return directory.resolve(name.append(EXTENSION).toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+}
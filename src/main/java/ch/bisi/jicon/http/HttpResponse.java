@@ -0,0 +1,158 @@
+package ch.bisi.jicon.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The successful response of an {@link HttpTransport}, possibly a {@code 304 Not Modified} one to
+ * a conditional request. Closing the response, or its body, releases the connection to the
+ * transport so that it can be reused.
+ */
+public final class HttpResponse implements Closeable {
+
+  private static final Pattern charsetPattern =
+      Pattern.compile("charset=\\s*\"?([^\\s;\"]+)", Pattern.CASE_INSENSITIVE);
+
+  private final URL url;
+  private final String contentType;
+  private final CacheValidators validators;
+  private final InputStream body;
+  private final boolean notModified;
+
+  /**
+   * Instantiates a new {@link HttpResponse}.
+   *
+   * @param url the {@link URL} of the response, after following the redirects
+   * @param contentType the {@code Content-Type} of the response or {@code null} if unknown
+   * @param body the decompressed body of the response
+   */
+  public HttpResponse(final URL url, final String contentType, final InputStream body) {
+    this(url, contentType, CacheValidators.NONE, body);
+  }
+
+  /**
+   * Instantiates a new {@link HttpResponse} with caching headers.
+   *
+   * @param url the {@link URL} of the response, after following the redirects
+   * @param contentType the {@code Content-Type} of the response or {@code null} if unknown
+   * @param validators the {@link CacheValidators} of the response
+   * @param body the decompressed body of the response
+   */
+  public HttpResponse(final URL url, final String contentType, final CacheValidators validators,
+      final InputStream body) {
+    this(url, contentType, validators, body, false);
+  }
+
+  private HttpResponse(final URL url, final String contentType, final CacheValidators validators,
+      final InputStream body, final boolean notModified) {
+    this.url = url;
+    this.contentType = contentType;
+    this.validators = validators;
+    this.body = body;
+    this.notModified = notModified;
+  }
+
+  /**
+   * Builds the {@code 304 Not Modified} response to a conditional request, which has no body.
+   *
+   * @param url the {@link URL} of the response, after following the redirects
+   * @param validators the {@link CacheValidators} of the response, which may omit the unchanged
+   *        headers
+   * @return the {@link HttpResponse}
+   */
+  public static HttpResponse notModified(final URL url, final CacheValidators validators) {
+    return new HttpResponse(url, null, validators, new ByteArrayInputStream(new byte[0]), true);
+  }
+
+  /**
+   * Gets the {@link URL} of the response, which differs from the requested one if the request
+   * has been redirected.
+   *
+   * @return the {@link URL}
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the {@code Content-Type} of the response.
+   *
+   * @return an {@link Optional} {@code Content-Type}, empty if unknown
+   */
+  public Optional<String> getContentType() {
+    return Optional.ofNullable(contentType);
+  }
+
+  /**
+   * Gets the charset declared by the {@code Content-Type} of the response.
+   *
+   * @return an {@link Optional} {@link Charset}, empty if none or an unsupported one is declared
+   */
+  public Optional<Charset> getCharset() {
+    if (contentType == null) {
+      return Optional.empty();
+    }
+    final Matcher matcher = charsetPattern.matcher(contentType);
+    if (!matcher.find()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Charset.forName(matcher.group(1).toUpperCase(Locale.ROOT)));
+    } catch (IllegalArgumentException e) {
+      // illegal or unsupported charset name
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Gets the {@link CacheValidators} of the response.
+   *
+   * @return the {@link CacheValidators}, {@link CacheValidators#NONE} if the response has no
+   *         caching headers
+   */
+  public CacheValidators getValidators() {
+    return validators;
+  }
+
+  /**
+   * Checks whether this is the {@code 304 Not Modified} response to a conditional request, that
+   * is if the body stored by the caller is still up to date.
+   *
+   * @return {@code true} if the resource has not been modified, {@code false} otherwise
+   */
+  public boolean isNotModified() {
+    return notModified;
+  }
+
+  /**
+   * Gets the decompressed body of the response.
+   *
+   * @return the {@link InputStream} of the body
+   */
+  public InputStream getBody() {
+    return body;
+  }
+
+  @Override
+  public void close() throws IOException {
+    body.close();
+  }
+
+  @Override
+  public String toString() {
+    return "HttpResponse{"
+        + "url=" + url
+        + ", contentType='" + contentType + '\''
+        + ", validators=" + validators
+        + ", notModified=" + notModified
+        + '}';
+  }
+}
@@ -0,0 +1,54 @@
+package ch.bisi.jicon.http;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+
+/**
+ * The transport through which the html pages and the icons are fetched.
+ * It has the single responsibility of getting the body of an {@link URL}, following the
+ * redirects, so that all the fetches of a lookup can share the same connections.
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+  /**
+   * Gets the body of an {@link URL}.
+   *
+   * @param url the {@link URL} to get
+   * @param timeout the connect and read timeout or {@code null} for no timeout
+   * @return the {@link HttpResponse}, which the caller is responsible for closing
+   * @throws IOException in case of problems connecting, if the server responds with an error
+   *         status or if the timeout expires
+   */
+  HttpResponse get(URL url, Duration timeout) throws IOException;
+
+  /**
+   * Gets the body of an {@link URL} only if it has changed since it was fetched with the given
+   * {@link CacheValidators}, sending them as {@code If-None-Match} and {@code If-Modified-Since}.
+   * Transports not supporting conditional requests get the body in full.
+   *
+   * @param url the {@link URL} to get
+   * @param timeout the connect and read timeout or {@code null} for no timeout
+   * @param validators the {@link CacheValidators} of the body stored by the caller
+   * @return the {@link HttpResponse}, a {@link HttpResponse#isNotModified() not modified} one if
+   *         the stored body is still up to date, which the caller is responsible for closing
+   * @throws IOException in case of problems connecting, if the server responds with an error
+   *         status or if the timeout expires
+   */
+  default HttpResponse get(final URL url, final Duration timeout,
+      final CacheValidators validators) throws IOException {
+    return get(url, timeout);
+  }
+
+  /**
+   * Gets the default {@link HttpTransport}, an {@link UrlConnectionHttpTransport} shared by all
+   * the fetches.
+   *
+   * @return the default {@link HttpTransport}
+   */
+  static HttpTransport getDefault() {
+    return UrlConnectionHttpTransport.DEFAULT;
+  }
+
+}
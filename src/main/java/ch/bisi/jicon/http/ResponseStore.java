@@ -0,0 +1,31 @@
+package ch.bisi.jicon.http;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Optional;
+
+/**
+ * Store of the responses fetched by a {@link RevalidatingHttpTransport}, keyed by the requested
+ * {@link URL}.
+ */
+public interface ResponseStore {
+
+  /**
+   * Gets the response stored for an {@link URL}.
+   *
+   * @param url the requested {@link URL}
+   * @return an {@link Optional} {@link StoredResponse}, empty if none is stored
+   * @throws IOException in case of problems reading the store
+   */
+  Optional<StoredResponse> get(URL url) throws IOException;
+
+  /**
+   * Stores the response of an {@link URL}, replacing the one already stored, if any.
+   *
+   * @param url the requested {@link URL}
+   * @param response the {@link StoredResponse}
+   * @throws IOException in case of problems writing the store
+   */
+  void put(URL url, StoredResponse response) throws IOException;
+
+}
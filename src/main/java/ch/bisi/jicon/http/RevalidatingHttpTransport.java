@@ -0,0 +1,162 @@
+package ch.bisi.jicon.http;
+
+import ch.bisi.jicon.common.Util;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HttpTransport} keeping the responses of another transport in a {@link ResponseStore} and
+ * revalidating them with conditional requests, so that unchanged icons are not downloaded again.
+ *
+ * <p>A stored response is reused without any request while its {@code max-age} has not expired.
+ * Afterwards it is revalidated sending its {@code ETag} and {@code Last-Modified} back as
+ * {@code If-None-Match} and {@code If-Modified-Since}: on {@code 304 Not Modified} the stored
+ * body is served again, otherwise the new response replaces it.</p>
+ *
+ * <p>Only responses with caching headers, without {@code no-store} and whose body fits into the
+ * maximum number of bytes are stored. Html pages are never stored, since the favicons fetching
+ * strategies may read just their {@code <head>}.</p>
+ */
+public class RevalidatingHttpTransport implements HttpTransport {
+
+  /** The default maximum size of the stored bodies. */
+  public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(RevalidatingHttpTransport.class);
+
+  private final HttpTransport transport;
+  private final ResponseStore store;
+  private final int maxBytes;
+  private final Clock clock;
+
+  /**
+   * Instantiates a new {@link RevalidatingHttpTransport} on top of the default
+   * {@link HttpTransport}, storing bodies up to {@link #DEFAULT_MAX_BYTES}.
+   *
+   * @param store the {@link ResponseStore}
+   */
+  public RevalidatingHttpTransport(final ResponseStore store) {
+    this(HttpTransport.getDefault(), store, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Instantiates a new {@link RevalidatingHttpTransport}.
+   *
+   * @param transport the {@link HttpTransport} performing the requests, which should support
+   *        conditional requests
+   * @param store the {@link ResponseStore}
+   * @param maxBytes the maximum size of the stored bodies
+   */
+  public RevalidatingHttpTransport(final HttpTransport transport, final ResponseStore store,
+      final int maxBytes) {
+    this(transport, store, maxBytes, Clock.systemUTC());
+  }
+
+  /**
+   * Instantiates a new {@link RevalidatingHttpTransport} reading the time from the given
+   * {@link Clock}.
+   *
+   * @param transport the {@link HttpTransport} performing the requests
+   * @param store the {@link ResponseStore}
+   * @param maxBytes the maximum size of the stored bodies
+   * @param clock the {@link Clock}
+   */
+  RevalidatingHttpTransport(final HttpTransport transport, final ResponseStore store,
+      final int maxBytes, final Clock clock) {
+    this.transport = transport;
+    this.store = store;
+    this.maxBytes = maxBytes;
+    this.clock = clock;
+  }
+
+  @Override
+  public HttpResponse get(final URL url, final Duration timeout) throws IOException {
+    final Optional<StoredResponse> stored = getStored(url);
+    if (!stored.isPresent()) {
+      return store(url, transport.get(url, timeout));
+    }
+    if (stored.get().isFresh(clock.instant())) {
+      logger.trace("Reusing the response stored for {}", url);
+      return stored.get().toResponse();
+    }
+    final HttpResponse response = transport.get(url, timeout, stored.get().getValidators());
+    if (!response.isNotModified()) {
+      return store(url, response);
+    }
+    response.close();
+    logger.trace("The response stored for {} has not been modified", url);
+    final StoredResponse revalidated =
+        stored.get().revalidated(response.getValidators(), clock.instant());
+    put(url, revalidated);
+    return revalidated.toResponse();
+  }
+
+  /**
+   * Stores a response, if allowed, reading its body.
+   *
+   * @param url the requested {@link URL}
+   * @param response the {@link HttpResponse}
+   * @return the {@link HttpResponse} to give to the caller, reading the stored body or the rest
+   *         of the original one
+   * @throws IOException in case of problems reading the body
+   */
+  private HttpResponse store(final URL url, final HttpResponse response) throws IOException {
+    if (!response.getValidators().isStorable() || isHtml(response)) {
+      return response;
+    }
+    final byte[] head = Util.readAtMost(response.getBody(), (long) maxBytes + 1);
+    if (head.length > maxBytes) {
+      return new HttpResponse(response.getUrl(), response.getContentType().orElse(null),
+          response.getValidators(),
+          new SequenceInputStream(new ByteArrayInputStream(head), response.getBody()));
+    }
+    response.close();
+    final StoredResponse stored = new StoredResponse(response.getUrl(),
+        response.getContentType().orElse(null), response.getValidators(), clock.instant(), head);
+    put(url, stored);
+    return stored.toResponse();
+  }
+
+  /**
+   * Gets the response stored for an {@link URL}, treating the failures of the store as a missing
+   * response so that the {@link URL} is requested unconditionally.
+   *
+   * @param url the requested {@link URL}
+   * @return an {@link Optional} {@link StoredResponse}, empty if missing or unreadable
+   */
+  private Optional<StoredResponse> getStored(final URL url) {
+    try {
+      return store.get(url);
+    } catch (IOException e) {
+      logger.debug("Could not read the response stored for {}", url, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores a response, ignoring the failures of the store: the response has already been read and
+   * can be given to the caller anyway.
+   *
+   * @param url the requested {@link URL}
+   * @param response the {@link StoredResponse}
+   */
+  private void put(final URL url, final StoredResponse response) {
+    try {
+      store.put(url, response);
+    } catch (IOException e) {
+      logger.debug("Could not store the response for {}", url, e);
+    }
+  }
+
+  private static boolean isHtml(final HttpResponse response) {
+    return response.getContentType().map(type -> type.startsWith("text/html")).orElse(false);
+  }
+
+}
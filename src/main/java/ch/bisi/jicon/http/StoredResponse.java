@@ -0,0 +1,127 @@
+package ch.bisi.jicon.http;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A response kept by a {@link ResponseStore}: its body together with the {@link CacheValidators}
+ * for revalidating it and the time it was last known to be up to date.
+ */
+public final class StoredResponse {
+
+  private final URL url;
+  private final String contentType;
+  private final CacheValidators validators;
+  private final Instant validatedAt;
+  private final byte[] body;
+
+  /**
+   * Instantiates a new {@link StoredResponse}.
+   *
+   * @param url the {@link URL} of the response, after following the redirects
+   * @param contentType the {@code Content-Type} of the response or {@code null} if unknown
+   * @param validators the {@link CacheValidators} of the response
+   * @param validatedAt the time the response was fetched or last revalidated
+   * @param body the decompressed body of the response, which is not copied
+   */
+  public StoredResponse(final URL url, final String contentType,
+      final CacheValidators validators, final Instant validatedAt, final byte[] body) {
+    this.url = url;
+    this.contentType = contentType;
+    this.validators = validators;
+    this.validatedAt = validatedAt;
+    this.body = body;
+  }
+
+  /**
+   * Gets the {@link URL} of the response, after following the redirects.
+   *
+   * @return the {@link URL}
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the {@code Content-Type} of the response.
+   *
+   * @return an {@link Optional} {@code Content-Type}, empty if unknown
+   */
+  public Optional<String> getContentType() {
+    return Optional.ofNullable(contentType);
+  }
+
+  /**
+   * Gets the {@link CacheValidators} of the response.
+   *
+   * @return the {@link CacheValidators}
+   */
+  public CacheValidators getValidators() {
+    return validators;
+  }
+
+  /**
+   * Gets the time the response was fetched or last revalidated.
+   *
+   * @return the {@link Instant}
+   */
+  public Instant getValidatedAt() {
+    return validatedAt;
+  }
+
+  /**
+   * Gets the body of the response.
+   *
+   * @return the read only {@link ByteBuffer} containing the body
+   */
+  public ByteBuffer getBody() {
+    return ByteBuffer.wrap(body).asReadOnlyBuffer();
+  }
+
+  /**
+   * Checks whether the response can be reused without revalidating it, according to its
+   * {@code max-age}.
+   *
+   * @param now the current time
+   * @return {@code true} if the response is fresh, {@code false} if it must be revalidated
+   */
+  public boolean isFresh(final Instant now) {
+    final Optional<Duration> maxAge = validators.getMaxAge();
+    return maxAge.isPresent() && Duration.between(validatedAt, now).compareTo(maxAge.get()) < 0;
+  }
+
+  /**
+   * Gets this response as revalidated by a {@code 304 Not Modified} response.
+   *
+   * @param notModified the {@link CacheValidators} of the {@code 304 Not Modified} response
+   * @param now the current time
+   * @return the revalidated {@link StoredResponse}, with the same body
+   */
+  public StoredResponse revalidated(final CacheValidators notModified, final Instant now) {
+    return new StoredResponse(url, contentType, validators.updatedBy(notModified), now, body);
+  }
+
+  /**
+   * Builds an {@link HttpResponse} reading the stored body.
+   *
+   * @return the {@link HttpResponse}
+   */
+  public HttpResponse toResponse() {
+    return new HttpResponse(url, contentType, validators, new ByteArrayInputStream(body));
+  }
+
+  @Override
+  public String toString() {
+    return "StoredResponse{"
+        + "url=" + url
+        + ", contentType='" + contentType + '\''
+        + ", validators=" + validators
+        + ", validatedAt=" + validatedAt
+        + ", bodyLength=" + body.length
+        + '}';
+  }
+}
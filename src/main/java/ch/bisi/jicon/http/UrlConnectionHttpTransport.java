@@ -0,0 +1,185 @@
+package ch.bisi.jicon.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link HttpTransport} built on {@link URLConnection}s, which also supports the non HTTP
+ * {@link URL}s such as {@code file:} and {@code jar:} ones.
+ *
+ * <p>HTTP connections are never disconnected: responses, including the ones of redirects and
+ * errors, are closed instead, so that the JDK keeps their connections alive in its per host pool
+ * (sized by the {@code http.maxConnections} system property) and the next request to the same
+ * host skips the TCP and TLS handshakes. Closing a response before its end lets the JDK drain the
+ * rest of it in background when it is small, and drop the connection otherwise.</p>
+ *
+ * <p>Bodies are requested compressed with gzip or deflate and decompressed transparently.
+ * Redirects are followed, also across protocols, up to {@value #MAX_REDIRECTS} times.
+ * Conditional requests are supported for HTTP {@link URL}s.</p>
+ */
+public class UrlConnectionHttpTransport implements HttpTransport {
+
+  static final int MAX_REDIRECTS = 20;
+
+  /**
+   * The maximum number of bytes of the body of a redirect or of an error read in order to reuse
+   * its connection.
+   */
+  private static final int MAX_DRAINED_BYTES = 64 * 1024;
+
+  static final UrlConnectionHttpTransport DEFAULT = new UrlConnectionHttpTransport();
+
+  @Override
+  public HttpResponse get(final URL url, final Duration timeout) throws IOException {
+    return get(url, timeout, CacheValidators.NONE);
+  }
+
+  @Override
+  public HttpResponse get(final URL url, final Duration timeout,
+      final CacheValidators validators) throws IOException {
+    URL location = url;
+    for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+      final URLConnection connection = openConnection(location, timeout, validators);
+      final URL redirect = getRedirect(connection);
+      if (redirect == null) {
+        return getResponse(connection);
+      }
+      location = redirect;
+    }
+    throw new IOException("Too many redirects fetching " + url);
+  }
+
+  /**
+   * Opens a connection to an {@link URL}, without following the redirects.
+   *
+   * @param url the {@link URL} to connect to
+   * @param timeout the connect and read timeout or {@code null} for no timeout
+   * @param validators the {@link CacheValidators} of the body stored by the caller
+   * @return the {@link URLConnection}
+   * @throws IOException in case of problems opening the connection
+   */
+  private static URLConnection openConnection(final URL url, final Duration timeout,
+      final CacheValidators validators) throws IOException {
+    final URLConnection connection = url.openConnection();
+    if (timeout != null) {
+      final int timeoutMillis =
+          (int) Math.min(Integer.MAX_VALUE, Math.max(1, timeout.toMillis()));
+      connection.setConnectTimeout(timeoutMillis);
+      connection.setReadTimeout(timeoutMillis);
+    }
+    if (connection instanceof HttpURLConnection) {
+      connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+      ((HttpURLConnection) connection).setInstanceFollowRedirects(false);
+      validators.getEtag().ifPresent(etag -> connection.setRequestProperty("If-None-Match", etag));
+      validators.getLastModified().ifPresent(
+          lastModified -> connection.setRequestProperty("If-Modified-Since", lastModified));
+    }
+    return connection;
+  }
+
+  /**
+   * Gets the response of a connection which is not redirected, with its caching headers if it
+   * is an HTTP one.
+   *
+   * @param connection the {@link URLConnection}
+   * @return the {@link HttpResponse}
+   * @throws IOException in case of problems opening the body
+   */
+  private static HttpResponse getResponse(final URLConnection connection) throws IOException {
+    if (!(connection instanceof HttpURLConnection)) {
+      return new HttpResponse(connection.getURL(), connection.getContentType(),
+          openStream(connection));
+    }
+    final CacheValidators validators = new CacheValidators(connection.getHeaderField("ETag"),
+        connection.getHeaderField("Last-Modified"), connection.getHeaderField("Cache-Control"));
+    if (((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      release(connection.getInputStream());
+      return HttpResponse.notModified(connection.getURL(), validators);
+    }
+    return new HttpResponse(connection.getURL(), connection.getContentType(), validators,
+        openStream(connection));
+  }
+
+  /**
+   * Gets the {@link URL} to which a connection is redirected, releasing the connection if so.
+   *
+   * @param connection the {@link URLConnection}
+   * @return the {@link URL} to follow, {@code null} if the connection is not redirected
+   * @throws IOException in case of problems connecting or if the server responds with an error
+   *         status
+   */
+  private static URL getRedirect(final URLConnection connection) throws IOException {
+    if (!(connection instanceof HttpURLConnection)) {
+      return null;
+    }
+    final HttpURLConnection httpConnection = (HttpURLConnection) connection;
+    checkStatus(httpConnection);
+    final String location = httpConnection.getHeaderField("Location");
+    if (httpConnection.getResponseCode() / 100 != 3 || location == null) {
+      return null;
+    }
+    release(httpConnection.getInputStream());
+    return new URL(connection.getURL(), location);
+  }
+
+  /**
+   * Checks that the server did not respond with an error status, releasing the connection if
+   * it did.
+   *
+   * @param connection the {@link HttpURLConnection}
+   * @throws IOException in case of problems connecting or if the server responds with an error
+   *         status
+   */
+  private static void checkStatus(final HttpURLConnection connection) throws IOException {
+    final int status = connection.getResponseCode();
+    if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+      release(connection.getErrorStream());
+      throw new IOException("HTTP error " + status + " fetching " + connection.getURL());
+    }
+  }
+
+  /**
+   * Releases the connection of a body which is not needed, reading the rest of the body if it is
+   * small enough so that the connection is reused right away.
+   *
+   * @param body the {@link InputStream} of the body or {@code null} if there is no body
+   * @throws IOException in case of problems reading or closing the body
+   */
+  private static void release(final InputStream body) throws IOException {
+    if (body == null) {
+      return;
+    }
+    try (InputStream in = body) {
+      long drained = 0;
+      while (drained < MAX_DRAINED_BYTES && in.read() != -1) {
+        drained += 1 + in.skip(MAX_DRAINED_BYTES - drained - 1);
+      }
+    }
+  }
+
+  /**
+   * Opens the {@link InputStream} of a connection, decompressing it if needed.
+   *
+   * @param connection the {@link URLConnection}
+   * @return the {@link InputStream} of the body
+   * @throws IOException in case of problems opening the {@link InputStream}
+   */
+  private static InputStream openStream(final URLConnection connection) throws IOException {
+    final InputStream in = connection.getInputStream();
+    final String encoding = connection.getContentEncoding();
+    if ("gzip".equalsIgnoreCase(encoding)) {
+      return new GZIPInputStream(in);
+    }
+    if ("deflate".equalsIgnoreCase(encoding)) {
+      return new InflaterInputStream(in);
+    }
+    return in;
+  }
+
+}
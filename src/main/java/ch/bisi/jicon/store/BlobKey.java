@@ -0,0 +1,105 @@
+package ch.bisi.jicon.store;
+
+import java.net.URL;
+
+/**
+ * Key of a blob in a {@link SegmentBlobStore}: the domain the icon has been retrieved for, the
+ * {@link URL} of the icon and the index of the image within the icon file, or
+ * {@link #WHOLE_FILE} for the icon file itself.
+ */
+public final class BlobKey {
+
+  /** The embedded index of the blobs holding a whole icon file. */
+  public static final int WHOLE_FILE = -1;
+
+  private final String domain;
+  private final String url;
+  private final int embeddedIndex;
+
+  /**
+   * Instantiates a new {@link BlobKey}.
+   *
+   * @param domain the domain, as given by {@link ch.bisi.jicon.common.Util#getDomain}
+   * @param url the {@link URL} of the icon
+   * @param embeddedIndex the index of the image within the icon file, or {@link #WHOLE_FILE}
+   * @throws IllegalArgumentException if the embedded index is negative and not
+   *         {@link #WHOLE_FILE}
+   */
+  public BlobKey(final String domain, final URL url, final int embeddedIndex) {
+    this(domain, url.toExternalForm(), embeddedIndex);
+  }
+
+  /**
+   * Instantiates a new {@link BlobKey}, as read from a segment.
+   *
+   * @param domain the domain
+   * @param url the external form of the {@link URL} of the icon
+   * @param embeddedIndex the index of the image within the icon file, or {@link #WHOLE_FILE}
+   */
+  BlobKey(final String domain, final String url, final int embeddedIndex) {
+    if (embeddedIndex < WHOLE_FILE) {
+      throw new IllegalArgumentException("embeddedIndex must not be negative: " + embeddedIndex);
+    }
+    this.domain = domain;
+    this.url = url;
+    this.embeddedIndex = embeddedIndex;
+  }
+
+  /**
+   * Builds the key of a whole icon file.
+   *
+   * @param domain the domain, as given by {@link ch.bisi.jicon.common.Util#getDomain}
+   * @param url the {@link URL} of the icon
+   * @return the {@link BlobKey}
+   */
+  public static BlobKey ofFile(final String domain, final URL url) {
+    return new BlobKey(domain, url, WHOLE_FILE);
+  }
+
+  public String getDomain() {
+    return domain;
+  }
+
+  /**
+   * Gets the external form of the {@link URL} of the icon.
+   *
+   * @return the {@link URL} of the icon, as a {@link String}
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  public int getEmbeddedIndex() {
+    return embeddedIndex;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (other == null || getClass() != other.getClass()) {
+      return false;
+    }
+    final BlobKey that = (BlobKey) other;
+    return embeddedIndex == that.embeddedIndex && domain.equals(that.domain)
+        && url.equals(that.url);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = domain.hashCode();
+    result = 31 * result + url.hashCode();
+    result = 31 * result + embeddedIndex;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "BlobKey{"
+        + "domain='" + domain + '\''
+        + ", url='" + url + '\''
+        + ", embeddedIndex=" + embeddedIndex
+        + '}';
+  }
+}
@@ -0,0 +1,367 @@
+package ch.bisi.jicon.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Segment file of a {@link SegmentBlobStore}, memory mapped as a whole and filled by appending
+ * records.
+ *
+ * <p>Each record is made of a header of {@value #HEADER_BYTES} bytes (a magic number, the
+ * embedded index, the lengths of the domain, of the {@link java.net.URL} and of the blob, and the
+ * CRC32 of the rest of the record), the UTF-8 domain and {@link java.net.URL} of its
+ * {@link BlobKey} and the blob. A blob length of {@value #TOMBSTONE} marks the deletion of the
+ * key. New segments are created with their full capacity, whose unused part is zero filled, so
+ * the first position without the magic number is the end of the records. Records whose checksum
+ * does not match, e.g. because the process died while writing them, end the records too.</p>
+ *
+ * <p>A mapped file cannot be deleted on some platforms, e.g. Windows, until it is unmapped by the
+ * garbage collector, so a segment which fails to be deleted is marked instead and its file is
+ * deleted by {@link #deleteIfMarked(Path)} when the store is opened again.</p>
+ */
+final class Segment {
+
+  static final int HEADER_BYTES = 24;
+  static final int TOMBSTONE = -1;
+
+  private static final int MAGIC = 0x4A424C42;
+  private static final int CHECKSUM_OFFSET = 20;
+
+  private final long id;
+  private final Path file;
+  private final MappedByteBuffer buffer;
+
+  /**
+   * The end of the records, guarded by the {@link SegmentBlobStore}.
+   */
+  private int end;
+
+  /**
+   * The bytes of the records which are superseded or deleted, guarded by the
+   * {@link SegmentBlobStore}.
+   */
+  private long garbageBytes;
+
+  private Segment(final long id, final Path file, final MappedByteBuffer buffer) {
+    this.id = id;
+    this.file = file;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Creates a new empty segment file.
+   *
+   * @param id the id of the segment
+   * @param file the {@link Path} of the segment file
+   * @param capacity the size of the segment file
+   * @return the {@link Segment}
+   * @throws IOException in case of problems creating or mapping the file
+   */
+  static Segment create(final long id, final Path file, final int capacity) throws IOException {
+    Files.deleteIfExists(getDeletionMarker(file));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+    }
+  }
+
+  /**
+   * Opens an existing segment file, reading its records.
+   *
+   * @param id the id of the segment
+   * @param file the {@link Path} of the segment file
+   * @param consumer the {@link Consumer} of the records, in append order
+   * @return the {@link Segment}
+   * @throws IOException in case of problems opening or mapping the file
+   */
+  static Segment open(final long id, final Path file, final Consumer<Record> consumer)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      final Segment segment =
+          new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+      segment.scan(consumer);
+      return segment;
+    }
+  }
+
+  /**
+   * Gets the size of the record of a blob.
+   *
+   * @param key the {@link BlobKey}
+   * @param blobLength the length of the blob, {@code 0} for a tombstone
+   * @return the size of the record
+   */
+  static int getRecordBytes(final BlobKey key, final int blobLength) {
+    return HEADER_BYTES + key.getDomain().getBytes(StandardCharsets.UTF_8).length
+        + key.getUrl().getBytes(StandardCharsets.UTF_8).length + blobLength;
+  }
+
+  long getId() {
+    return id;
+  }
+
+  /**
+   * Checks whether a record fits into the free space of the segment.
+   *
+   * @param recordBytes the size of the record
+   * @return {@code true} if the record can be appended, {@code false} otherwise
+   */
+  boolean fits(final int recordBytes) {
+    return buffer.capacity() - end >= recordBytes;
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param key the {@link BlobKey}
+   * @param blob the blob, from its position to its limit, or {@code null} for a tombstone
+   * @return the appended {@link Record}
+   */
+  Record append(final BlobKey key, final ByteBuffer blob) {
+    final byte[] domain = key.getDomain().getBytes(StandardCharsets.UTF_8);
+    final byte[] url = key.getUrl().getBytes(StandardCharsets.UTF_8);
+    final int blobLength = blob == null ? TOMBSTONE : blob.remaining();
+    final ByteBuffer record = buffer.duplicate();
+    record.position(end);
+    record.putInt(MAGIC).putInt(key.getEmbeddedIndex()).putInt(domain.length).putInt(url.length)
+        .putInt(blobLength).putInt(0).put(domain).put(url);
+    if (blob != null) {
+      record.put(blob.duplicate());
+    }
+    final int recordBytes = record.position() - end;
+    buffer.putInt(end + CHECKSUM_OFFSET, getChecksum(end, recordBytes));
+    final Record appended = new Record(this, key, end, recordBytes, blobLength);
+    end = record.position();
+    return appended;
+  }
+
+  /**
+   * Reads the blob of a record, without copying it.
+   *
+   * @param record the {@link Record}
+   * @return the read only {@link ByteBuffer} of the blob
+   */
+  ByteBuffer read(final Record record) {
+    final ByteBuffer blob = buffer.asReadOnlyBuffer();
+    blob.position(record.getOffset() + record.getBytes() - record.getBlobLength());
+    blob.limit(record.getOffset() + record.getBytes());
+    return blob.slice();
+  }
+
+  /**
+   * Counts the bytes of a record of this segment as garbage.
+   *
+   * @param record the superseded or deleted {@link Record}
+   */
+  void discard(final Record record) {
+    garbageBytes += record.getBytes();
+  }
+
+  long getGarbageBytes() {
+    return garbageBytes;
+  }
+
+  /**
+   * Writes the appended records to the storage device.
+   */
+  void force() {
+    buffer.force();
+  }
+
+  /**
+   * Deletes the segment file, or marks it to be deleted when the store is opened again if the
+   * mapped file cannot be deleted. The blobs already read stay readable until they are garbage
+   * collected.
+   *
+   * @throws IOException in case of problems marking the file
+   */
+  void delete() throws IOException {
+    try {
+      Files.delete(file);
+    } catch (FileSystemException e) {
+      Files.createFile(getDeletionMarker(file));
+    }
+  }
+
+  /**
+   * Deletes a segment file if it was marked by {@link #delete()}, before it is mapped again.
+   *
+   * @param file the {@link Path} of the segment file
+   * @return {@code true} if the segment was marked and is now deleted, {@code false} otherwise
+   * @throws IOException in case of problems deleting the file or its mark
+   */
+  static boolean deleteIfMarked(final Path file) throws IOException {
+    final Path marker = getDeletionMarker(file);
+    if (!Files.exists(marker)) {
+      return false;
+    }
+    Files.deleteIfExists(file);
+    Files.delete(marker);
+    return true;
+  }
+
+  private static Path getDeletionMarker(final Path file) {
+    return file.resolveSibling(file.getFileName() + ".deleted");
+  }
+
+  /**
+   * Reads the records of the segment, stopping at the first position without a complete record
+   * matching its checksum.
+   *
+   * @param consumer the {@link Consumer} of the records, in append order
+   */
+  private void scan(final Consumer<Record> consumer) {
+    Record record = readRecord(0);
+    while (record != null) {
+      consumer.accept(record);
+      end = record.getOffset() + record.getBytes();
+      record = readRecord(end);
+    }
+  }
+
+  /**
+   * Reads the record at an offset.
+   *
+   * @param offset the offset of the record
+   * @return the {@link Record} or {@code null} if there is no complete record matching its
+   *         checksum at the offset
+   */
+  private Record readRecord(final int offset) {
+    final long bytes = hasHeader(offset) ? readRecordBytes(offset) : -1;
+    if (bytes < 0 || !isValidRecord(offset, bytes)) {
+      return null;
+    }
+    final int domainLength = buffer.getInt(offset + 8);
+    final BlobKey key = new BlobKey(readString(offset + HEADER_BYTES, domainLength),
+        readString(offset + HEADER_BYTES + domainLength, buffer.getInt(offset + 12)),
+        buffer.getInt(offset + 4));
+    return new Record(this, key, offset, (int) bytes, buffer.getInt(offset + 16));
+  }
+
+  private boolean hasHeader(final int offset) {
+    return buffer.capacity() - offset >= HEADER_BYTES && buffer.getInt(offset) == MAGIC;
+  }
+
+  /**
+   * Gets the size of a record from its header.
+   *
+   * @param offset the offset of the record
+   * @return the size of the record or {@code -1} if the header is not valid
+   */
+  private long readRecordBytes(final int offset) {
+    final int embeddedIndex = buffer.getInt(offset + 4);
+    final int domainLength = buffer.getInt(offset + 8);
+    final int urlLength = buffer.getInt(offset + 12);
+    final int blobLength = buffer.getInt(offset + 16);
+    // both the embedded index and the blob length may be -1
+    if (Math.min(domainLength, urlLength) < 0 || Math.min(embeddedIndex, blobLength) < -1) {
+      return -1;
+    }
+    return (long) HEADER_BYTES + domainLength + urlLength + Math.max(blobLength, 0);
+  }
+
+  /**
+   * Checks whether a record fits into the segment and matches its checksum.
+   *
+   * @param offset the offset of the record
+   * @param bytes the size of the record, as read from its header
+   * @return {@code true} if the record is complete and valid, {@code false} otherwise
+   */
+  private boolean isValidRecord(final int offset, final long bytes) {
+    return bytes <= buffer.capacity() - offset
+        && buffer.getInt(offset + CHECKSUM_OFFSET) == getChecksum(offset, (int) bytes);
+  }
+
+  /**
+   * Computes the checksum of a record, covering its header after the magic number, except the
+   * checksum itself, and its key and blob.
+   *
+   * @param offset the offset of the record
+   * @param bytes the size of the record
+   * @return the CRC32 of the record
+   */
+  private int getChecksum(final int offset, final int bytes) {
+    final CRC32 crc = new CRC32();
+    final ByteBuffer record = buffer.duplicate();
+    record.limit(offset + CHECKSUM_OFFSET).position(offset + Integer.BYTES);
+    crc.update(record);
+    record.limit(offset + bytes).position(offset + HEADER_BYTES);
+    crc.update(record);
+    return (int) crc.getValue();
+  }
+
+  private String readString(final int offset, final int length) {
+    final byte[] bytes = new byte[length];
+    final ByteBuffer string = buffer.duplicate();
+    string.position(offset);
+    string.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return "Segment{"
+        + "id=" + id
+        + ", file=" + file
+        + ", end=" + end
+        + ", garbageBytes=" + garbageBytes
+        + '}';
+  }
+
+  /**
+   * Location of a record within a {@link Segment}.
+   */
+  static final class Record {
+
+    private final Segment segment;
+    private final BlobKey key;
+    private final int offset;
+    private final int bytes;
+    private final int blobLength;
+
+    private Record(final Segment segment, final BlobKey key, final int offset, final int bytes,
+        final int blobLength) {
+      this.segment = segment;
+      this.key = key;
+      this.offset = offset;
+      this.bytes = bytes;
+      this.blobLength = blobLength;
+    }
+
+    Segment getSegment() {
+      return segment;
+    }
+
+    BlobKey getKey() {
+      return key;
+    }
+
+    int getOffset() {
+      return offset;
+    }
+
+    int getBytes() {
+      return bytes;
+    }
+
+    int getBlobLength() {
+      return Math.max(blobLength, 0);
+    }
+
+    boolean isTombstone() {
+      return blobLength == TOMBSTONE;
+    }
+
+  }
+
+}
@@ -0,0 +1,334 @@
+package ch.bisi.jicon.store;
+
+import ch.bisi.jicon.store.Segment.Record;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only store packing the bytes of many icons into a few large segment files, as an
+ * alternative to saving each icon in its own file.
+ *
+ * <p>Blobs are appended to the active segment, a new one being started when it is full, and
+ * are indexed in memory by their {@link BlobKey}. The index is rebuilt on open by reading the
+ * segments in order, so that the last record of a key wins. Segments are memory mapped, and
+ * {@link #get(BlobKey)} returns a read only view of the mapping without copying the blob. Blobs
+ * which are replaced or deleted are left in their segments as garbage until {@link #compact()}
+ * copies the live blobs of the full segments into the active one and deletes them.</p>
+ *
+ * <p>Reads never block, while writes, compactions and closing are serialized. Blobs already
+ * read stay readable after compactions and closing. On platforms which cannot delete a mapped
+ * file, e.g. Windows, the compacted segment files are only deleted when the store is opened
+ * again.</p>
+ */
+public final class SegmentBlobStore implements Closeable {
+
+  /** The default size of the segment files. */
+  public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentBlobStore.class);
+  private static final Pattern segmentPattern = Pattern.compile("segment-(\\d{10})\\.seg");
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final ConcurrentMap<BlobKey, Record> index = new ConcurrentHashMap<>();
+
+  /**
+   * The segments by id, guarded by this store.
+   */
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private Segment active;
+  private boolean closed;
+
+  private SegmentBlobStore(final Path directory, final int segmentBytes) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+  }
+
+  /**
+   * Opens the store in a directory, creating it if needed, with segments of
+   * {@link #DEFAULT_SEGMENT_BYTES}.
+   *
+   * @param directory the directory of the segment files
+   * @return the {@link SegmentBlobStore}
+   * @throws IOException in case of problems creating the directory or reading the segments
+   */
+  public static SegmentBlobStore open(final Path directory) throws IOException {
+    return open(directory, DEFAULT_SEGMENT_BYTES);
+  }
+
+  /**
+   * Opens the store in a directory, creating it if needed.
+   *
+   * @param directory the directory of the segment files
+   * @param segmentBytes the size of the new segment files, bigger blobs get a segment of their
+   *        own
+   * @return the {@link SegmentBlobStore}
+   * @throws IOException in case of problems creating the directory or reading the segments
+   * @throws IllegalArgumentException if the segment size is not positive
+   */
+  public static SegmentBlobStore open(final Path directory, final int segmentBytes)
+      throws IOException {
+    if (segmentBytes <= 0) {
+      throw new IllegalArgumentException("segmentBytes must be positive: " + segmentBytes);
+    }
+    final SegmentBlobStore store =
+        new SegmentBlobStore(Files.createDirectories(directory), segmentBytes);
+    store.load();
+    return store;
+  }
+
+  /**
+   * Gets a blob.
+   *
+   * @param key the {@link BlobKey}
+   * @return an {@link Optional} read only {@link ByteBuffer} mapping the blob, empty if the key
+   *         is not stored
+   */
+  public Optional<ByteBuffer> get(final BlobKey key) {
+    final Record record = index.get(key);
+    return record == null ? Optional.empty() : Optional.of(record.getSegment().read(record));
+  }
+
+  /**
+   * Stores a blob, replacing the one already stored for the same key, if any.
+   *
+   * @param key the {@link BlobKey}
+   * @param blob the blob, from its position to its limit, which is not consumed
+   * @throws IOException in case of problems creating a new segment or if the store is closed
+   */
+  public synchronized void put(final BlobKey key, final ByteBuffer blob) throws IOException {
+    final Record record = append(key, blob);
+    discard(index.put(key, record));
+  }
+
+  /**
+   * Deletes a blob.
+   *
+   * @param key the {@link BlobKey}
+   * @return {@code true} if the blob was stored, {@code false} otherwise
+   * @throws IOException in case of problems creating a new segment or if the store is closed
+   */
+  public synchronized boolean delete(final BlobKey key) throws IOException {
+    if (!index.containsKey(key)) {
+      return false;
+    }
+    final Record tombstone = append(key, null);
+    tombstone.getSegment().discard(tombstone);
+    discard(index.remove(key));
+    return true;
+  }
+
+  /**
+   * Gets the keys of the stored blobs.
+   *
+   * @return the unmodifiable {@link Set} of {@link BlobKey}s, which reflects later changes
+   */
+  public Set<BlobKey> keySet() {
+    return Collections.unmodifiableSet(index.keySet());
+  }
+
+  /**
+   * Gets the number of bytes taken by replaced or deleted blobs, which a compaction may reclaim.
+   *
+   * @return the number of garbage bytes
+   */
+  public synchronized long getGarbageBytes() {
+    return segments.values().stream().mapToLong(Segment::getGarbageBytes).sum();
+  }
+
+  /**
+   * Compacts the full segments containing garbage, copying their live blobs into the active
+   * segment and deleting them.
+   *
+   * @throws IOException in case of problems creating a new segment or deleting the compacted
+   *         ones, or if the store is closed
+   */
+  public synchronized void compact() throws IOException {
+    final List<Segment> compacted = segments.values().stream()
+        .filter(segment -> segment != active && segment.getGarbageBytes() > 0)
+        .collect(Collectors.toList());
+    for (final Segment segment : compacted) {
+      copyLiveBlobs(segment);
+    }
+    flush();
+    for (final Segment segment : compacted) {
+      segments.remove(segment.getId());
+      segment.delete();
+      logger.debug("Compacted {}", segment);
+    }
+  }
+
+  /**
+   * Writes the appended blobs to the storage device.
+   *
+   * @throws IOException if the store is closed
+   */
+  public synchronized void flush() throws IOException {
+    checkOpen();
+    segments.values().forEach(Segment::force);
+  }
+
+  /**
+   * Writes the appended blobs to the storage device and closes the store.
+   *
+   * @throws IOException never, as closing a closed store has no effect
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      flush();
+      closed = true;
+    }
+  }
+
+  /**
+   * Reads the segment files, rebuilding the index, and opens the last segment for appending.
+   *
+   * @throws IOException in case of problems reading the segment files
+   */
+  private void load() throws IOException {
+    for (final long id : listSegmentIds()) {
+      segments.put(id, null);
+    }
+    for (final Map.Entry<Long, Segment> entry : segments.entrySet()) {
+      entry.setValue(Segment.open(entry.getKey(), getFile(entry.getKey()), this::index));
+    }
+    active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+  }
+
+  /**
+   * Lists the ids of the segment files in the directory, deleting the ones marked after a
+   * compaction.
+   *
+   * @return the {@link List} of ids, in no particular order
+   * @throws IOException in case of problems listing the directory or deleting a segment file
+   */
+  private List<Long> listSegmentIds() throws IOException {
+    final List<Long> ids = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.seg")) {
+      for (final Path file : files) {
+        final Matcher matcher = segmentPattern.matcher(file.getFileName().toString());
+        if (matcher.matches() && !deleteIfMarked(file)) {
+          ids.add(Long.parseLong(matcher.group(1)));
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Deletes a segment file marked after a compaction, which could not delete it.
+   *
+   * @param file the {@link Path} of the segment file
+   * @return {@code true} if the segment was marked and is now deleted, {@code false} otherwise
+   * @throws IOException in case of problems deleting the file
+   */
+  private static boolean deleteIfMarked(final Path file) throws IOException {
+    final boolean deleted = Segment.deleteIfMarked(file);
+    if (deleted) {
+      logger.debug("Deleted compacted segment {}", file);
+    }
+    return deleted;
+  }
+
+  /**
+   * Indexes a record read from a segment file.
+   *
+   * @param record the {@link Record}
+   */
+  private void index(final Record record) {
+    if (record.isTombstone()) {
+      record.getSegment().discard(record);
+      discard(index.remove(record.getKey()));
+    } else {
+      discard(index.put(record.getKey(), record));
+    }
+  }
+
+  /**
+   * Copies the live blobs of a segment into the active one.
+   *
+   * @param segment the {@link Segment} to compact
+   * @throws IOException in case of problems creating a new segment
+   */
+  private void copyLiveBlobs(final Segment segment) throws IOException {
+    for (final Record record : new ArrayList<>(index.values())) {
+      if (record.getSegment() == segment) {
+        index.put(record.getKey(), append(record.getKey(), segment.read(record)));
+      }
+    }
+  }
+
+  /**
+   * Appends a record to the active segment, starting a new one if it is full.
+   *
+   * @param key the {@link BlobKey}
+   * @param blob the blob or {@code null} for a tombstone
+   * @return the appended {@link Record}
+   * @throws IOException in case of problems creating a new segment or if the store is closed
+   */
+  private Record append(final BlobKey key, final ByteBuffer blob) throws IOException {
+    checkOpen();
+    final int recordBytes = Segment.getRecordBytes(key, blob == null ? 0 : blob.remaining());
+    if (active == null || !active.fits(recordBytes)) {
+      startSegment(recordBytes);
+    }
+    return active.append(key, blob);
+  }
+
+  /**
+   * Starts a new active segment.
+   *
+   * @param recordBytes the size of the record to append, bigger than the segment size if the
+   *        segment is for a big blob
+   * @throws IOException in case of problems creating the segment file
+   */
+  private void startSegment(final int recordBytes) throws IOException {
+    final long id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+    active = Segment.create(id, getFile(id), Math.max(segmentBytes, recordBytes));
+    segments.put(id, active);
+  }
+
+  private static void discard(final Record record) {
+    if (record != null) {
+      record.getSegment().discard(record);
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("The blob store in " + directory + " is closed");
+    }
+  }
+
+  private Path getFile(final long id) {
+    return directory.resolve(String.format("segment-%010d.seg", id));
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentBlobStore{"
+        + "directory=" + directory
+        + ", segmentBytes=" + segmentBytes
+        + '}';
+  }
+}
@@ -0,0 +1,175 @@
+package ch.bisi.jicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/**
+ * Tests {@link BatchRetrieval} through {@link Jicon#retrieveAll(Stream, int, int)}.
+ */
+public class BatchRetrievalTest {
+
+  private static final String FAILING_HOST = "failing.com";
+  private static final String SLOW_HOST = "slow.com";
+  private static final String BROKEN_HOST = "broken.com";
+
+  private final Map<String, AtomicInteger> runningByHost = new ConcurrentHashMap<>();
+  private final Map<String, Integer> maxRunningByHost = new ConcurrentHashMap<>();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+  private final AtomicInteger retrievals = new AtomicInteger();
+
+  private final Jicon jicon = new Jicon(url -> () -> {
+    retrievals.incrementAndGet();
+    enter(url.getHost());
+    try {
+      Thread.sleep(SLOW_HOST.equals(url.getHost()) ? 60_000 : 10);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exit(url.getHost());
+    }
+    if (FAILING_HOST.equals(url.getHost())) {
+      throw new IOException("unreachable");
+    }
+    if (BROKEN_HOST.equals(url.getHost())) {
+      throw new AssertionError("broken strategy");
+    }
+    return Stream.<JiconIcon>empty();
+  });
+
+  @Test
+  public void retrieveAllDeduplicatesDomains() throws MalformedURLException {
+    final List<RetrievalResult> results = jicon.retrieveAll(Arrays.asList(
+        new URL("http://a.com/"), new URL("http://a.com/page"), new URL("http://b.com/"),
+        new URL("https://a.com/")), 4, 4).collect(Collectors.toList());
+    assertEquals(3, results.size());
+    assertEquals(3, retrievals.get());
+    assertEquals(Arrays.asList("http://a.com", "http://b.com", "https://a.com"),
+        results.stream().map(RetrievalResult::getDomain).sorted().collect(Collectors.toList()));
+    assertTrue(results.stream().allMatch(RetrievalResult::isSuccess));
+  }
+
+  @Test
+  public void retrieveAllReportsFailures() throws MalformedURLException {
+    final List<RetrievalResult> results = jicon.retrieveAll(Arrays.asList(
+        new URL("http://ok.com/"), new URL("http://" + FAILING_HOST + "/")), 2, 1)
+        .collect(Collectors.toList());
+    final RetrievalResult failure = results.stream().filter(result -> !result.isSuccess())
+        .findFirst().orElseThrow(AssertionError::new);
+    assertEquals("http://" + FAILING_HOST, failure.getDomain());
+    assertTrue(failure.getFailure().orElseThrow(AssertionError::new) instanceof IOException);
+    assertTrue(failure.getIcons().isEmpty());
+    assertEquals(2, results.size());
+  }
+
+  @Test(timeout = 30_000)
+  public void retrieveAllReportsErrorsAndReleasesPermits() throws MalformedURLException {
+    final List<RetrievalResult> results = jicon.retrieveAll(Arrays.asList(
+        new URL("http", BROKEN_HOST, "/"), new URL("https", BROKEN_HOST, "/"),
+        new URL("http://ok.com/")), 1, 1).collect(Collectors.toList());
+    assertEquals(3, results.size());
+    assertEquals(2, results.stream().filter(result -> !result.isSuccess())
+        .filter(result -> result.getFailure().orElseThrow(AssertionError::new).getCause()
+            instanceof AssertionError).count());
+  }
+
+  @Test
+  public void retrieveAllBoundsConcurrency() {
+    final Stream<URL> urls = IntStream.range(0, 60)
+        .mapToObj(i -> toUrl((i % 2 == 0 ? "http" : "https") + "://host" + i / 2 + ".com/"));
+    assertEquals(60, jicon.retrieveAll(urls, 5, 1).count());
+    assertTrue(maxRunning.get() <= 5);
+    assertEquals(30, maxRunningByHost.size());
+    assertTrue(maxRunningByHost.values().stream().allMatch(max -> max <= 1));
+  }
+
+  @Test
+  public void closeStopsRetrievals() {
+    final AtomicInteger consumed = new AtomicInteger();
+    try (Stream<RetrievalResult> results = jicon.retrieveAll(
+        IntStream.iterate(0, i -> i + 1).mapToObj(i -> toUrl("http://host" + i + ".com/")), 2, 1)) {
+      results.limit(3).forEach(result -> consumed.incrementAndGet());
+    }
+    assertEquals(3, consumed.get());
+    assertFalse(retrievals.get() > 3 + 2 + 3);
+  }
+
+  @Test
+  public void retrieveAllWithTimeout() throws MalformedURLException {
+    final long start = System.nanoTime();
+    final List<RetrievalResult> results = jicon.retrieveAll(Stream.of(
+        new URL("http://" + SLOW_HOST + "/"), new URL("http://fast.com/")),
+        new BatchOptions(2, 1, Duration.ofMillis(200), ExecutionMode.PLATFORM_THREADS))
+        .collect(Collectors.toList());
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    final RetrievalResult slow = results.stream()
+        .filter(result -> result.getUrl().getHost().equals(SLOW_HOST))
+        .findFirst().orElseThrow(AssertionError::new);
+    assertTrue(slow.getFailure().orElseThrow(AssertionError::new)
+        instanceof InterruptedIOException);
+    assertEquals(1, results.stream().filter(RetrievalResult::isSuccess).count());
+  }
+
+  @Test
+  public void retrieveAllOnVirtualThreads() throws MalformedURLException {
+    final BatchOptions options = new BatchOptions(100, 1, null, ExecutionMode.VIRTUAL_THREADS);
+    final Stream<URL> urls = IntStream.range(0, 200)
+        .mapToObj(i -> toUrl("http://host" + i + ".com/"));
+    if (ExecutionMode.VIRTUAL_THREADS.isSupported()) {
+      assertEquals(200, jicon.retrieveAll(urls, options).count());
+      assertTrue(maxRunning.get() <= 100);
+    } else {
+      try {
+        jicon.retrieveAll(urls, options);
+        fail("Virtual threads are not supported before Java 21");
+      } catch (UnsupportedOperationException e) {
+        assertEquals(0, retrievals.get());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void retrieveAllWithoutConcurrency() {
+    jicon.retrieveAll(Stream.empty(), 0, 1);
+  }
+
+  private void enter(final String host) {
+    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+    final int runningForHost = runningByHost.computeIfAbsent(host, name -> new AtomicInteger())
+        .incrementAndGet();
+    maxRunningByHost.merge(host, runningForHost, Math::max);
+  }
+
+  private void exit(final String host) {
+    running.decrementAndGet();
+    runningByHost.get(host).decrementAndGet();
+  }
+
+  private static URL toUrl(final String url) {
+    try {
+      return new URL(url);
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+package ch.bisi.jicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ch.bisi.jicon.fetcher.icon.IconsFetcher;
+import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import ch.bisi.jicon.http.HttpTransport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HeadFaviconsFetchingStrategyTest {
+
+  @Mock
+  private IconsFetcher iconsFetcher;
+
+  private HttpServer server;
+  private String domain;
+
+  /** Initialization executed before each test. **/
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      exchange.getResponseHeaders().add("Location", "/home/");
+      exchange.sendResponseHeaders(301, -1);
+      exchange.close();
+    });
+    server.createContext("/home/", exchange -> sendPage(exchange,
+        "<html><head><meta charset=\"utf-8\"><link rel=\"icon\" href=\"icon.png\"></head>"));
+    server.start();
+    domain = "http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void getFaviconsFetcherFollowsRedirects() throws Exception {
+    final AtomicReference<LinksFetcher> linksFetcher = new AtomicReference<>();
+    final HeadFaviconsFetchingStrategy strategy = new HeadFaviconsFetchingStrategy(fetcher -> {
+      linksFetcher.set(fetcher);
+      return iconsFetcher;
+    });
+    assertEquals(iconsFetcher, strategy.getFaviconsFetcher(new URL(domain + "/some/page")));
+    final List<URL> links = linksFetcher.get().fetchLinks();
+    assertEquals(4, links.size());
+    assertEquals(new URL(domain + "/home/favicon.ico"), links.get(0));
+    assertEquals(new URL(domain + "/home/icon.png"), links.get(3));
+  }
+
+  @Test
+  public void getFaviconsFetcherFetchesIconsThroughTransport() throws Exception {
+    final List<URL> requests = new CopyOnWriteArrayList<>();
+    final HttpTransport recordingTransport = (url, timeout) -> {
+      requests.add(url);
+      return HttpTransport.getDefault().get(url, timeout);
+    };
+    new HeadFaviconsFetchingStrategy(recordingTransport)
+        .getFaviconsFetcher(new URL(domain + "/some/page")).getIcons().count();
+    assertEquals(new URL(domain), requests.get(0));
+    assertTrue(requests.contains(new URL(domain + "/home/icon.png")));
+  }
+
+  private static void sendPage(final HttpExchange exchange, final String page)
+      throws IOException {
+    final byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+}
@@ -3,22 +3,34 @@ package ch.bisi.jicon;
 import static ch.bisi.jicon.TestUtil.assertIsW3SchoolsIco;
 import static ch.bisi.jicon.TestUtil.getResourceUrl;
 import static ch.bisi.jicon.TestUtil.toHexString;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import ch.bisi.jicon.common.ImageFormatNotSupportedException;
 import ch.bisi.jicon.common.JiconIcon;
 import ch.bisi.jicon.common.JiconIconFactory;
+import ch.bisi.jicon.common.Util;
 import ch.bisi.jicon.common.LetterIcon;
+import ch.bisi.jicon.common.PayloadBuffering;
 import ch.bisi.jicon.fetcher.icon.IconsFetcher;
+import ch.bisi.jicon.store.BlobKey;
+import ch.bisi.jicon.store.SegmentBlobStore;
 import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Rule;
@@ -31,6 +43,8 @@ import org.junit.rules.TemporaryFolder;
  */
 public class JiconTest {
 
+  private static final String W3_SCHOOLS_ICO = "/w3_schools.ico";
+
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -43,7 +57,7 @@ public class JiconTest {
   @Before
   public void setUp() throws IOException, ImageFormatNotSupportedException {
     w3SchoolsUrl = new URL("https://www.w3schools.com/");
-    final JiconIcon w3SchoolsIcon = JiconIconFactory.getIcon(getResourceUrl("/w3_schools.ico"));
+    final JiconIcon w3SchoolsIcon = JiconIconFactory.getIcon(getResourceUrl(W3_SCHOOLS_ICO));
     final IconsFetcher iconsFetcher = () -> Stream.of(w3SchoolsIcon);
     jicon = new Jicon((url) -> iconsFetcher);
   }
@@ -65,6 +79,38 @@ public class JiconTest {
     assertEquals(new Color(135,197,64), retrievedLetterIcon.getBackgroundColor());
   }
 
+  @Test
+  public void retrieveAllAsync() throws Exception {
+    final List<JiconIcon> retrievedIcons = jicon
+        .retrieveAllAsync(w3SchoolsUrl).get();
+    assertEquals(1, retrievedIcons.size());
+    assertIsW3SchoolsIco(retrievedIcons.get(0));
+  }
+
+  @Test
+  public void getLetterIconAsync() throws Exception {
+    final LetterIcon retrievedLetterIcon = jicon
+        .getLetterIconAsync(w3SchoolsUrl, Color.RED, 100).get();
+    assertEquals(jicon.getLetterIcon(w3SchoolsUrl, Color.RED, 100), retrievedLetterIcon);
+  }
+
+  @Test
+  public void ofAsync() throws Exception {
+    final List<JiconIcon> icons = jicon.retrieveAll(w3SchoolsUrl);
+    final Jicon asyncJicon = Jicon.ofAsync(url -> CompletableFuture.completedFuture(icons),
+        Runnable::run);
+    assertEquals(icons, asyncJicon.retrieveAll(w3SchoolsUrl));
+    assertEquals(jicon.getLetterIcon(w3SchoolsUrl, Color.RED, 100),
+        asyncJicon.getLetterIconAsync(w3SchoolsUrl, Color.RED, 100).get());
+  }
+
+  @Test(expected = IOException.class)
+  public void ofAsyncFailure() throws Exception {
+    final CompletableFuture<List<JiconIcon>> failure = new CompletableFuture<>();
+    failure.completeExceptionally(new IOException("unreachable"));
+    Jicon.ofAsync(url -> failure, Runnable::run).retrieveAll(w3SchoolsUrl);
+  }
+
   @Test
   public void saveEachEmbeddedImageInDir() throws Exception {
     final List<JiconIcon> retrievedIcons = jicon
@@ -77,6 +123,76 @@ public class JiconTest {
     assertTrue(new File(retrievedIconsFolder, "0_3_w3_schools.png").exists());
   }
 
+  @Test
+  public void saveEachEmbeddedImageInDirCopiesPngEntries() throws Exception {
+    final URL pngIcoUrl = getResourceUrl("/icon08.ico");
+    final File retrievedIconsFolder = temporaryFolder.newFolder();
+    jicon.saveEachEmbeddedImageInDir(
+        Collections.singletonList(JiconIconFactory.getIcon(pngIcoUrl)),
+        retrievedIconsFolder.getAbsolutePath());
+    final byte[] pngIco = Files.readAllBytes(Paths.get(pngIcoUrl.toURI()));
+    assertArrayEquals(Arrays.copyOfRange(pngIco, 22, pngIco.length),
+        Files.readAllBytes(new File(retrievedIconsFolder, "0_0_icon08.png").toPath()));
+  }
+
+  @Test
+  public void retrieveBest() throws Exception {
+    final JiconIcon best = jicon.retrieveBest(w3SchoolsUrl, 32).get();
+    assertIsW3SchoolsIco(best);
+  }
+
+  @Test
+  public void saveInStore() throws Exception {
+    final List<JiconIcon> retrievedIcons = jicon
+        .retrieveAll(w3SchoolsUrl);
+    try (SegmentBlobStore store =
+        SegmentBlobStore.open(temporaryFolder.newFolder().toPath())) {
+      jicon.saveInStore(w3SchoolsUrl, retrievedIcons, store);
+      jicon.saveEachEmbeddedImageInStore(w3SchoolsUrl, retrievedIcons, store);
+      assertEquals(5, store.keySet().size());
+      final ByteBuffer icon = store.get(
+          BlobKey.ofFile(Util.getDomain(w3SchoolsUrl), retrievedIcons.get(0).getUrl())).get();
+      final byte[] bytes = new byte[icon.remaining()];
+      icon.get(bytes);
+      assertEquals("4d1579370a6dc54ccb9677e3c5924bbe",
+          toHexString(MessageDigest.getInstance("MD5").digest(bytes)));
+    }
+  }
+
+  @Test
+  public void saveInDirTransfersEachIcon() throws Exception {
+    final List<JiconIcon> icons = Arrays.asList(
+        JiconIconFactory.getIcon(getResourceUrl(W3_SCHOOLS_ICO), PayloadBuffering.onHeap(0)),
+        JiconIconFactory.getIcon(getResourceUrl(W3_SCHOOLS_ICO),
+            PayloadBuffering.onHeap(Integer.MAX_VALUE)),
+        JiconIconFactory.getIcon(getResourceUrl("/icon01.png")));
+    final File retrievedIconsFolder = temporaryFolder.newFolder();
+    jicon.saveInDir(icons, retrievedIconsFolder.toString());
+    for (int i = 0; i < icons.size(); i++) {
+      final Path retrievedIcon = retrievedIconsFolder.toPath()
+          .resolve(i + "_" + Paths.get(icons.get(i).getUrl().getPath()).getFileName());
+      assertArrayEquals(Files.readAllBytes(Paths.get(icons.get(i).getUrl().toURI())),
+          Files.readAllBytes(retrievedIcon));
+    }
+  }
+
+  @Test
+  public void saveInDirStopsSavingOnFailure() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(getResourceUrl(W3_SCHOOLS_ICO));
+    final File retrievedIconsFolder = temporaryFolder.newFolder();
+    final File existingIcon = new File(retrievedIconsFolder, "0_w3_schools.ico");
+    assertTrue(existingIcon.createNewFile());
+    try {
+      jicon.saveInDir(Collections.nCopies(50, icon), retrievedIconsFolder.toString());
+      fail("FileAlreadyExistsException expected");
+    } catch (FileAlreadyExistsException e) {
+      final String[] saved = retrievedIconsFolder.list();
+      Thread.sleep(100);
+      assertArrayEquals(saved, retrievedIconsFolder.list());
+      assertEquals(0, existingIcon.length());
+    }
+  }
+
   @Test
   public void saveInDir() throws Exception {
     final List<JiconIcon> retrievedIcons = jicon
@@ -3,12 +3,15 @@ package ch.bisi.jicon;
 import static org.junit.Assert.assertEquals;
 
 import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.fetcher.link.FaviconLink;
+import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -115,6 +118,16 @@ public class TestUtil {
     return ClassLoader.class.getResource(resourcePath);
   }
 
+  /**
+   * Gets the {@link FaviconLink}s of {@link URL}s about which nothing is declared.
+   *
+   * @param urls the {@link URL}s
+   * @return the {@link List} of {@link FaviconLink}s
+   */
+  public static List<FaviconLink> toFaviconLinks(final URL... urls) {
+    return Arrays.stream(urls).map(FaviconLink::of).collect(Collectors.toList());
+  }
+
 
   /**
    * Converts a {@code byte}s array to its hexadecimal representation.
@@ -130,4 +143,23 @@ public class TestUtil {
     return sb.toString();
   }
 
+  /**
+   * Builds an image made mostly of a single color with randomly colored pixels.
+   *
+   * @param type the type of the {@link BufferedImage}
+   * @param width the width of the image
+   * @param height the height of the image
+   * @return the {@link BufferedImage}
+   */
+  public static BufferedImage randomImage(final int type, final int width, final int height) {
+    final Random random = new Random(type);
+    final BufferedImage image = new BufferedImage(width, height, type);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt(8) == 0 ? random.nextInt() : 0xFF3366CC);
+      }
+    }
+    return image;
+  }
+
 }
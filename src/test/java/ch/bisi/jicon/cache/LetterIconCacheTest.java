@@ -0,0 +1,67 @@
+package ch.bisi.jicon.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import ch.bisi.jicon.common.LetterIcon;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+public class LetterIconCacheTest {
+
+  private final LetterIconCache cache = new LetterIconCache(2);
+
+  @Test
+  public void getRendersOnce() {
+    final RenderedLetterIcon rendered = cache.get(new LetterIcon(64, 'x', Color.CYAN));
+    assertSame(rendered, cache.get(new LetterIcon(64, 'X', Color.CYAN)));
+    assertEquals(1, cache.getStats().getHitCount());
+    assertEquals(1, cache.getStats().getMissCount());
+  }
+
+  @Test
+  public void getKeepsRasterAndPng() throws IOException {
+    final LetterIcon letterIcon = new LetterIcon(64, 'G', Color.RED);
+    final RenderedLetterIcon rendered = cache.get(letterIcon);
+    final int[] expectedPixels = getPixels(letterIcon.getImage());
+    assertArrayEquals(expectedPixels, getPixels(rendered.getImage()));
+    final ByteBuffer png = rendered.getPng();
+    final byte[] pngBytes = new byte[png.remaining()];
+    png.get(pngBytes);
+    assertArrayEquals(expectedPixels,
+        getPixels(ImageIO.read(new ByteArrayInputStream(pngBytes))));
+  }
+
+  @Test
+  public void getImageReturnsCopies() {
+    final RenderedLetterIcon rendered = cache.get(new LetterIcon(16, 'A', Color.BLUE));
+    final BufferedImage image = rendered.getImage();
+    assertNotSame(image, rendered.getImage());
+    final int pixel = image.getRGB(8, 8);
+    image.setRGB(8, 8, ~pixel);
+    assertEquals(pixel, rendered.getImage().getRGB(8, 8));
+  }
+
+  @Test
+  public void getEvictsLeastRecentlyUsed() {
+    final RenderedLetterIcon first = cache.get(new LetterIcon(16, 'A', Color.BLUE));
+    cache.get(new LetterIcon(32, 'A', Color.BLUE));
+    cache.get(new LetterIcon(16, 'A', Color.BLUE));
+    cache.get(new LetterIcon(16, 'B', Color.BLUE));
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getStats().getEvictionCount());
+    assertSame(first, cache.get(new LetterIcon(16, 'A', Color.BLUE)));
+  }
+
+  private static int[] getPixels(final BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+}
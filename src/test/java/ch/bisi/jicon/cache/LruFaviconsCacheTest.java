@@ -0,0 +1,187 @@
+package ch.bisi.jicon.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ch.bisi.jicon.common.JiconIcon;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class LruFaviconsCacheTest {
+
+  private static final Duration POSITIVE_TTL = Duration.ofMinutes(10);
+  private static final Duration NEGATIVE_TTL = Duration.ofMinutes(1);
+  private static final String DOMAIN_A = "http://a.com";
+  private static final String DOMAIN_B = "http://b.com";
+  private static final String DOMAIN_C = "http://c.com";
+
+  private final AtomicLong now = new AtomicLong();
+  private final AtomicInteger loads = new AtomicInteger();
+  private final List<JiconIcon> icons =
+      Collections.singletonList(Mockito.mock(JiconIcon.class));
+
+  private final LruFaviconsCache cache =
+      new LruFaviconsCache(2, POSITIVE_TTL, NEGATIVE_TTL, now::get);
+
+  @Test
+  public void getCountsHitsAndMisses() throws Exception {
+    assertEquals(icons, cache.get(DOMAIN_A, this::loadIcons));
+    assertEquals(icons, cache.get(DOMAIN_A, this::loadIcons));
+    assertEquals(icons, cache.get(DOMAIN_A, this::loadIcons));
+    assertEquals(1, loads.get());
+    assertEquals(2, cache.getStats().getHitCount());
+    assertEquals(1, cache.getStats().getMissCount());
+  }
+
+  @Test
+  public void getReloadsAfterPositiveTtl() throws Exception {
+    cache.get(DOMAIN_A, this::loadIcons);
+    now.addAndGet(NEGATIVE_TTL.toNanos());
+    cache.get(DOMAIN_A, this::loadIcons);
+    assertEquals(1, loads.get());
+    now.addAndGet(POSITIVE_TTL.toNanos());
+    cache.get(DOMAIN_A, this::loadIcons);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void getCachesEmptyResultsForNegativeTtl() throws Exception {
+    final FaviconsLoader emptyLoader = () -> {
+      loads.incrementAndGet();
+      return new ArrayList<>();
+    };
+    assertEquals(0, cache.get(DOMAIN_A, emptyLoader).size());
+    assertEquals(0, cache.get(DOMAIN_A, emptyLoader).size());
+    assertEquals(1, loads.get());
+    now.addAndGet(NEGATIVE_TTL.toNanos());
+    cache.get(DOMAIN_A, emptyLoader);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void getCachesFailuresForNegativeTtl() throws Exception {
+    final IOException failure = new IOException("unreachable");
+    final FaviconsLoader failingLoader = () -> {
+      loads.incrementAndGet();
+      throw failure;
+    };
+    assertFailure(failure, failingLoader);
+    assertFailure(failure, failingLoader);
+    assertEquals(1, loads.get());
+    now.addAndGet(NEGATIVE_TTL.toNanos());
+    assertFailure(failure, failingLoader);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void getDoesNotCacheInterruptedLoads() throws Exception {
+    final FaviconsLoader interruptedLoader = () -> {
+      loads.incrementAndGet();
+      Thread.currentThread().interrupt();
+      throw new IOException("closed by interrupt");
+    };
+    try {
+      cache.get(DOMAIN_A, interruptedLoader);
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertTrue(Thread.interrupted());
+    }
+    final FaviconsLoader timedOutLoader = () -> {
+      loads.incrementAndGet();
+      throw new InterruptedIOException("timed out");
+    };
+    try {
+      cache.get(DOMAIN_A, timedOutLoader);
+      fail("InterruptedIOException expected");
+    } catch (InterruptedIOException e) {
+      assertEquals("timed out", e.getMessage());
+    }
+    assertEquals(0, cache.size());
+    assertEquals(icons, cache.get(DOMAIN_A, this::loadIcons));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void getEvictsLeastRecentlyUsed() throws Exception {
+    cache.get(DOMAIN_A, this::loadIcons);
+    cache.get(DOMAIN_B, this::loadIcons);
+    cache.get(DOMAIN_A, this::loadIcons);
+    cache.get(DOMAIN_C, this::loadIcons);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getStats().getEvictionCount());
+    cache.get(DOMAIN_A, this::loadIcons);
+    assertEquals(3, loads.get());
+    cache.get(DOMAIN_B, this::loadIcons);
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void invalidateRemovesDomain() throws Exception {
+    cache.get(DOMAIN_A, this::loadIcons);
+    cache.invalidate(DOMAIN_A);
+    cache.get(DOMAIN_A, this::loadIcons);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void getCollapsesConcurrentMisses() throws Exception {
+    final int threads = 8;
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final FaviconsLoader slowLoader = () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return loadIcons();
+    };
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<List<JiconIcon>>> results = new ArrayList<>();
+      results.add(executor.submit(() -> cache.get(DOMAIN_A, slowLoader)));
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      for (int i = 1; i < threads; i++) {
+        results.add(executor.submit(() -> cache.get(DOMAIN_A, slowLoader)));
+      }
+      release.countDown();
+      for (final Future<List<JiconIcon>> result : results) {
+        assertEquals(icons, result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<JiconIcon> loadIcons() {
+    loads.incrementAndGet();
+    return icons;
+  }
+
+  private void assertFailure(final IOException expected, final FaviconsLoader loader) {
+    try {
+      cache.get(DOMAIN_A, loader);
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertSame(expected, e.getCause());
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+package ch.bisi.jicon.colorfinder;
+
+import static ch.bisi.jicon.TestUtil.randomImage;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Tests {@link HistogramColorFinderEngine}.
+ */
+public class HistogramColorFinderEngineTest {
+
+  @Test
+  public void findsSameColorForSmallImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_INT_ARGB, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForUndersampledImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_3BYTE_BGR, 241, 183));
+  }
+
+  @Test
+  public void findsSameColorForUndersampledSubImage() throws EmptyImageException {
+    assertFindsSameColor(
+        randomImage(BufferedImage.TYPE_INT_RGB, 400, 300).getSubimage(17, 9, 253, 199));
+  }
+
+  @Test
+  public void findsSameColorCountingInParallel() throws EmptyImageException {
+    final BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB, 613, 487);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertEquals(new JiconColorFinder(image, new HistogramColorFinderEngine(Integer.MAX_VALUE))
+              .findMainColor(),
+          new JiconColorFinder(image, new HistogramColorFinderEngine(1, pool)).findMainColor());
+    } finally {
+      pool.shutdown();
+    }
+    assertFindsSameColor(image);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNonPositiveParallelThreshold() {
+    new HistogramColorFinderEngine(0);
+  }
+
+  /**
+   * Asserts that the {@link HistogramColorFinderEngine} finds the same main color of the
+   * {@link MapColorFinderEngine}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @throws EmptyImageException if the image is empty
+   */
+  private void assertFindsSameColor(final BufferedImage image) throws EmptyImageException {
+    assertEquals(new JiconColorFinder(image, new MapColorFinderEngine()).findMainColor(),
+        new JiconColorFinder(image, new HistogramColorFinderEngine()).findMainColor());
+  }
+
+}
@@ -8,6 +8,7 @@ import ch.bisi.jicon.common.ImageFormatNotSupportedException;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Comparator;
 import javax.imageio.ImageReader;
 import org.junit.Test;
@@ -97,7 +98,7 @@ public class JiconColorFinderTest {
 
   /**
    * Given the name of an icon residing in the classpath asserts that the {@link ColorFinder}
-   * finds the input color {@link String} as main color.
+   * finds the input color {@link String} as main color with every {@link ColorFinderEngine}.
    * If the file contains multiple images the highest quality image is given as input to the
    * {@link ColorFinder}.
    *
@@ -116,6 +117,11 @@ public class JiconColorFinderTest {
         .orElseThrow(() -> new IOException("No icon found on classpath with name " + iconName ));
     final Color mainColor = new JiconColorFinder(image).findMainColor();
     assertEquals(fromHexStringToColor(expectedHexColor), mainColor);
+    for (final ColorFinderEngine engine : Arrays.asList(new PrimitiveColorFinderEngine(),
+        new HistogramColorFinderEngine())) {
+      final Color engineMainColor = new JiconColorFinder(image, engine).findMainColor();
+      assertEquals(fromHexStringToColor(expectedHexColor), engineMainColor);
+    }
   }
 
   /**
@@ -0,0 +1,56 @@
+package ch.bisi.jicon.colorfinder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests {@link PackedColorKernel}.
+ */
+public class PackedColorKernelTest {
+
+  private static final int LENGTH = 257;
+
+  private final int[] rgbs = new Random(42).ints(LENGTH, 0, 0x1000000).toArray();
+
+  @Test
+  public void shiftColors() {
+    final int[] shifted = new int[LENGTH];
+    PackedColorKernel.shiftColors(rgbs, LENGTH, 4, shifted);
+    for (int x = 0; x < LENGTH; x++) {
+      assertEquals(PackedColorFinderEngine.shiftColor(rgbs[x], 4), shifted[x]);
+    }
+  }
+
+  @Test
+  public void selectMatches() {
+    final int targetColor = PackedColorFinderEngine.shiftColor(rgbs[10], 6);
+    final int[] matches = new int[LENGTH];
+    final int matchCount = PackedColorKernel.selectMatches(rgbs, 0, LENGTH, 2, 6, targetColor,
+        matches);
+    int expectedCount = 0;
+    for (int x = 0; x < LENGTH; x += 2) {
+      if (PackedColorFinderEngine.matchTargetColor(rgbs[x], 6, targetColor)) {
+        assertEquals(x, matches[expectedCount++]);
+      }
+    }
+    assertEquals(expectedCount, matchCount);
+  }
+
+  @Test
+  public void selectMatchesAnyColor() {
+    final int[] matches = new int[LENGTH];
+    assertEquals(LENGTH, PackedColorKernel.selectMatches(rgbs, 0, LENGTH, 1, 0,
+        PackedColorFinderEngine.ANY_COLOR, matches));
+    assertEquals(LENGTH - 1, matches[LENGTH - 1]);
+  }
+
+  @Test
+  public void getChannelSpread() {
+    assertEquals(0, PackedColorKernel.getChannelSpread(0x808080));
+    assertEquals(2 * 255 * 255, PackedColorKernel.getChannelSpread(0xFF0000));
+    assertEquals(10 * 10 + 20 * 20 + 10 * 10, PackedColorKernel.getChannelSpread(0x0A141E));
+  }
+
+}
@@ -0,0 +1,88 @@
+package ch.bisi.jicon.colorfinder;
+
+import static ch.bisi.jicon.TestUtil.randomImage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+/**
+ * Tests {@link PixelBudgetSamplingPolicy}.
+ */
+public class PixelBudgetSamplingPolicyTest {
+
+  private static final int BUDGET = 64 * 64;
+
+  @Test
+  public void boundsSamplesToBudget() {
+    final SamplingGrid grid = new PixelBudgetSamplingPolicy(BUDGET).getGrid(2048, 2048);
+    assertEquals(32, grid.getStepLength());
+    assertFalse(grid.isCountingAllPixels());
+    assertEquals(1, new PixelBudgetSamplingPolicy(BUDGET).getGrid(16, 16).getStepLength());
+  }
+
+  @Test
+  public void samplesOneRowPerBand() {
+    final SamplingGrid grid =
+        new PixelBudgetSamplingPolicy(BUDGET, 7L, SamplingGrid.NEVER_DECISIVE).getGrid(640, 640);
+    for (int band = 0; band < 640; band += grid.getStepLength()) {
+      assertEquals(1, IntStream.range(band, band + grid.getStepLength())
+          .filter(grid::isSampledRow).count());
+    }
+    assertTrue(IntStream.range(0, 640).filter(grid::isSampledRow)
+        .anyMatch(y -> y % grid.getStepLength() != 0));
+  }
+
+  @Test
+  public void enginesFindSameColorWithRegularGrid() throws EmptyImageException {
+    assertEnginesFindSameColor(new PixelBudgetSamplingPolicy(BUDGET));
+  }
+
+  @Test
+  public void enginesFindSameColorWithJitteredGrid() throws EmptyImageException {
+    assertEnginesFindSameColor(
+        new PixelBudgetSamplingPolicy(BUDGET, 42L, SamplingGrid.NEVER_DECISIVE));
+  }
+
+  @Test
+  public void enginesFindSameColorTerminatingEarly() throws EmptyImageException {
+    assertEnginesFindSameColor(new PixelBudgetSamplingPolicy(BUDGET, 42L, 1E-9));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNonPositiveBudget() {
+    new PixelBudgetSamplingPolicy(0);
+  }
+
+  /**
+   * Asserts that the {@link PrimitiveColorFinderEngine} and the
+   * {@link HistogramColorFinderEngine}, counting sequentially and in parallel, find the same
+   * main color of the {@link MapColorFinderEngine} with a given {@link SamplingPolicy}.
+   *
+   * @param samplingPolicy the {@link SamplingPolicy}
+   * @throws EmptyImageException if the image is empty
+   */
+  private void assertEnginesFindSameColor(final SamplingPolicy samplingPolicy)
+      throws EmptyImageException {
+    final BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB, 613, 487);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final ColorFinderEngine[] engines = {new PrimitiveColorFinderEngine(samplingPolicy),
+          new HistogramColorFinderEngine(samplingPolicy),
+          new HistogramColorFinderEngine(samplingPolicy, 1, pool)};
+      final JiconColorFinder reference =
+          new JiconColorFinder(image, new MapColorFinderEngine(samplingPolicy));
+      for (final ColorFinderEngine engine : engines) {
+        assertEquals(reference.findMainColor(),
+            new JiconColorFinder(image, engine).findMainColor());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+}
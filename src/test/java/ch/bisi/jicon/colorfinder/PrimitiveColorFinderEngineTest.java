@@ -0,0 +1,83 @@
+package ch.bisi.jicon.colorfinder;
+
+import static ch.bisi.jicon.TestUtil.randomImage;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+/**
+ * Tests {@link PrimitiveColorFinderEngine}.
+ */
+public class PrimitiveColorFinderEngineTest {
+
+  @Test
+  public void findsSameColorForIntRgbImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_INT_RGB, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForIntArgbImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_INT_ARGB, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForThreeBytesBgrImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_3BYTE_BGR, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForFourBytesAbgrImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_4BYTE_ABGR, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForIndexedImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_BYTE_INDEXED, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForPremultipliedImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_INT_ARGB_PRE, 120, 90));
+  }
+
+  @Test
+  public void findsSameColorForSubImage() throws EmptyImageException {
+    assertFindsSameColor(
+        randomImage(BufferedImage.TYPE_4BYTE_ABGR, 120, 90).getSubimage(13, 7, 60, 50));
+    assertFindsSameColor(
+        randomImage(BufferedImage.TYPE_INT_ARGB, 120, 90).getSubimage(13, 7, 60, 50));
+  }
+
+  @Test
+  public void findsSameColorForUndersampledImage() throws EmptyImageException {
+    assertFindsSameColor(randomImage(BufferedImage.TYPE_INT_RGB, 241, 183));
+  }
+
+  @Test
+  public void findsFirstColorWhenWeightsAreTied() throws EmptyImageException {
+    final BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+    image.setRGB(0, 0, Color.WHITE.getRGB());
+    image.setRGB(1, 0, Color.BLACK.getRGB());
+    assertEquals(Color.WHITE,
+        new JiconColorFinder(image, new PrimitiveColorFinderEngine()).findMainColor());
+    image.setRGB(0, 0, Color.BLACK.getRGB());
+    image.setRGB(1, 0, Color.WHITE.getRGB());
+    assertEquals(Color.BLACK,
+        new JiconColorFinder(image, new PrimitiveColorFinderEngine()).findMainColor());
+  }
+
+  /**
+   * Asserts that the {@link PrimitiveColorFinderEngine} finds the same main color of the
+   * {@link MapColorFinderEngine}.
+   *
+   * @param image the {@link BufferedImage} to process
+   * @throws EmptyImageException if the image is empty
+   */
+  private void assertFindsSameColor(final BufferedImage image) throws EmptyImageException {
+    assertEquals(new JiconColorFinder(image, new MapColorFinderEngine()).findMainColor(),
+        new JiconColorFinder(image, new PrimitiveColorFinderEngine()).findMainColor());
+  }
+
+}
@@ -0,0 +1,34 @@
+package ch.bisi.jicon.colorfinder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests {@link WeightTable}.
+ */
+public class WeightTableTest {
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final WeightTable weightTable = new WeightTable(rgb -> {
+    calls.incrementAndGet();
+    return rgb;
+  });
+
+  @Test
+  public void memoizesWeights() {
+    assertEquals(0x123456, weightTable.getWeight(0x123456), 0.0d);
+    assertEquals(0x123456, weightTable.getWeight(0xFF123456), 0.0d);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void weighsExactlyColorsSharingAnEntry() {
+    assertEquals(0x123456, weightTable.getWeight(0x123456), 0.0d);
+    assertEquals(0x123457, weightTable.getWeight(0x123457), 0.0d);
+    assertEquals(0x123456, weightTable.getWeight(0x123456), 0.0d);
+    assertEquals(3, calls.get());
+  }
+
+}
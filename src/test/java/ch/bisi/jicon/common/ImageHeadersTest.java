@@ -0,0 +1,143 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.TestUtil.getResourceStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.junit.Test;
+
+/**
+ * Tests {@link ImageHeaders}.
+ */
+public class ImageHeadersTest {
+
+  private static final List<String> FIXTURES = Arrays.asList("icon01.png", "icon02.png",
+      "icon03.png", "icon04.png", "icon05.png", "icon06.png", "icon07.png", "icon08.ico",
+      "icon09.ico", "icon10.ico", "icon11.ico", "w3_schools.ico", "white1x1.png");
+
+  /**
+   * Tests that the headers of the fixtures are parsed as ImageIO reads them.
+   *
+   * @throws IOException in case of problems reading the fixtures
+   */
+  @Test
+  public void parseFixtures() throws IOException {
+    for (final String fixture : FIXTURES) {
+      final byte[] file = readFully(getResourceStream("/" + fixture));
+      assertEquals(fixture, toString(readWithImageIo(file)),
+          toString(ImageHeaders.parse(file).orElseThrow(AssertionError::new)));
+    }
+  }
+
+  /**
+   * Tests parsing the headers of GIF and BMP files.
+   *
+   * @throws IOException in case of problems writing the images
+   */
+  @Test
+  public void parseGifAndBmp() throws IOException {
+    for (final String format : Arrays.asList("gif", "bmp")) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(new BufferedImage(37, 21, BufferedImage.TYPE_INT_RGB), format, out);
+      final List<JiconIconImage> images = ImageHeaders.parse(out.toByteArray())
+          .orElseThrow(AssertionError::new);
+      assertEquals("[" + format + " 37x21]", toString(images));
+    }
+  }
+
+  /**
+   * Tests that truncated headers and other formats are not parsed.
+   *
+   * @throws IOException in case of problems reading the fixtures
+   */
+  @Test
+  public void parseUnsupported() throws IOException {
+    final byte[] ico = readFully(getResourceStream("/w3_schools.ico"));
+    assertFalse(ImageHeaders.parse(Arrays.copyOf(ico, 6 + 16 * 3)).isPresent());
+    assertFalse(ImageHeaders.parse(readFully(getResourceStream("/white1x1.jpg"))).isPresent());
+    assertFalse(ImageHeaders.parse(new byte[0]).isPresent());
+  }
+
+  /**
+   * Tests that the images embedded into ICO files as PNG are sliced out as they are, and that the
+   * bitmaps are not.
+   *
+   * @throws IOException in case of problems reading the fixtures
+   */
+  @Test
+  public void getPngEntries() throws IOException {
+    final byte[] pngIco = readFully(getResourceStream("/icon08.ico"));
+    final List<Optional<ByteBuffer>> pngEntries =
+        ImageHeaders.getPngEntries(ByteBuffer.wrap(pngIco));
+    assertEquals(1, pngEntries.size());
+    assertEquals(ByteBuffer.wrap(pngIco, 22, pngIco.length - 22), pngEntries.get(0).get());
+    assertEquals(Collections.nCopies(4, Optional.empty()), ImageHeaders.getPngEntries(
+        ByteBuffer.wrap(readFully(getResourceStream("/w3_schools.ico")))));
+    assertTrue(ImageHeaders.getPngEntries(ByteBuffer.wrap(Arrays.copyOf(pngIco, 100))).isEmpty());
+    assertTrue(ImageHeaders.getPngEntries(
+        ByteBuffer.wrap(readFully(getResourceStream("/icon01.png")))).isEmpty());
+  }
+
+  /**
+   * Tests that only the header of a file is read.
+   *
+   * @throws IOException in case of problems reading the header
+   */
+  @Test
+  public void readHeader() throws IOException {
+    final InputStream in = new ByteArrayInputStream(new byte[ImageHeaders.HEADER_BYTES * 3]);
+    assertEquals(ImageHeaders.HEADER_BYTES, ImageHeaders.readHeader(in).length);
+    assertEquals(ImageHeaders.HEADER_BYTES * 2, in.available());
+    assertEquals(3, ImageHeaders.readHeader(new ByteArrayInputStream(new byte[3])).length);
+  }
+
+  private static byte[] readFully(final InputStream in) throws IOException {
+    try (InputStream toRead = in) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] chunk = new byte[1024];
+      for (int read = toRead.read(chunk); read != -1; read = toRead.read(chunk)) {
+        out.write(chunk, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static String toString(final List<JiconIconImage> images) {
+    final StringBuilder builder = new StringBuilder("[");
+    for (final JiconIconImage image : images) {
+      builder.append(builder.length() > 1 ? ", " : "").append(image.getFormat()).append(' ')
+          .append((int) image.getWidth()).append('x').append((int) image.getHeight());
+    }
+    return builder.append(']').toString();
+  }
+
+  private static List<JiconIconImage> readWithImageIo(final byte[] file) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(file))) {
+      final ImageReader reader = ImageIO.getImageReaders(in).next();
+      reader.setInput(in);
+      final JiconIconImage[] images = new JiconIconImage[reader.getNumImages(true)];
+      for (int i = 0; i < images.length; i++) {
+        images[i] = new JiconIconImage(reader.getFormatName(),
+            new Dimension(reader.getWidth(i), reader.getHeight(i)));
+      }
+      reader.dispose();
+      return Arrays.asList(images);
+    }
+  }
+
+}
@@ -0,0 +1,109 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.TestUtil.getResourceUrl;
+import static ch.bisi.jicon.TestUtil.randomImage;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests {@link ImageUtil}.
+ */
+public class ImageUtilTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void readImagePicksSmallestAdequateEntry() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(getResourceUrl("/w3_schools.ico"));
+    assertEquals(12, ImageUtil.readImage(icon, 20).getWidth());
+    assertEquals(32, ImageUtil.readImage(icon, 32).getWidth());
+    assertEquals(64, ImageUtil.readImage(icon, 180).getWidth());
+  }
+
+  @Test
+  public void readImageDecodesSmallestAdequateIcoEntry() throws Exception {
+    final int[] colors = {0xFF0000, 0x00FF00, 0x0000FF, 0xFFFF00};
+    final JiconIcon icon = JiconIconFactory.getIcon(
+        writeIco("sizes.ico", colors, 16, 32, 48, 256).toURI().toURL());
+    final BufferedImage big = ImageUtil.readImage(icon, 180);
+    assertEquals(128, big.getWidth());
+    assertEquals(colors[3], big.getRGB(0, 0) & 0xFFFFFF);
+    final BufferedImage medium = ImageUtil.readImage(icon, 40);
+    assertEquals(24, medium.getWidth());
+    assertEquals(colors[2], medium.getRGB(0, 0) & 0xFFFFFF);
+    final JiconIcon twoSizes = JiconIconFactory.getIcon(
+        writeIco("two_sizes.ico", colors, 16, 256).toURI().toURL());
+    assertEquals(colors[1], ImageUtil.readImage(twoSizes, 180).getRGB(0, 0) & 0xFFFFFF);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void readImageRejectsNonPositiveSize() throws Exception {
+    ImageUtil.readImage(JiconIconFactory.getIcon(getResourceUrl("/w3_schools.ico")), 0);
+  }
+
+  @Test
+  public void readImageSubsamplesBigImage() throws Exception {
+    final BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB, 1024, 768);
+    final File file = temporaryFolder.newFile("big.png");
+    ImageIO.write(image, "png", file);
+    final BufferedImage subsampled =
+        ImageUtil.readImage(JiconIconFactory.getIcon(file.toURI().toURL()), 180);
+    assertEquals(171, subsampled.getWidth());
+    assertEquals(128, subsampled.getHeight());
+    assertEquals(image.getRGB(18, 12), subsampled.getRGB(3, 2));
+  }
+
+  /**
+   * Writes an ICO file embedding a PNG image of a solid color for each size.
+   *
+   * @param name the name of the file
+   * @param colors the RGB colors of the images
+   * @param sizes the widths and heights of the images
+   * @return the ICO {@link File}
+   * @throws IOException in case of problems writing the file
+   */
+  private File writeIco(final String name, final int[] colors, final int... sizes)
+      throws IOException {
+    final List<byte[]> pngs = new ArrayList<>();
+    for (int i = 0; i < sizes.length; i++) {
+      final BufferedImage image =
+          new BufferedImage(sizes[i], sizes[i], BufferedImage.TYPE_INT_ARGB);
+      final Graphics2D graphics = image.createGraphics();
+      graphics.setColor(new Color(colors[i]));
+      graphics.fillRect(0, 0, sizes[i], sizes[i]);
+      graphics.dispose();
+      pngs.add(ImageUtil.writeImageToBytes(image, "png"));
+    }
+    final int directoryBytes = 6 + 16 * sizes.length;
+    final ByteBuffer ico = ByteBuffer.allocate(
+        directoryBytes + pngs.stream().mapToInt(png -> png.length).sum())
+        .order(ByteOrder.LITTLE_ENDIAN);
+    ico.putShort((short) 0).putShort((short) 1).putShort((short) sizes.length);
+    int offset = directoryBytes;
+    for (int i = 0; i < sizes.length; i++) {
+      ico.put((byte) sizes[i]).put((byte) sizes[i]).put((byte) 0).put((byte) 0)
+          .putShort((short) 1).putShort((short) 32).putInt(pngs.get(i).length).putInt(offset);
+      offset += pngs.get(i).length;
+    }
+    pngs.forEach(ico::put);
+    final File file = temporaryFolder.newFile(name);
+    Files.write(file.toPath(), ico.array());
+    return file;
+  }
+
+}
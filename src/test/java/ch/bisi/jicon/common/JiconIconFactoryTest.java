@@ -0,0 +1,87 @@
+package ch.bisi.jicon.common;
+
+import static ch.bisi.jicon.TestUtil.assertIsW3SchoolsIco;
+import static ch.bisi.jicon.TestUtil.getResourceUrl;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+/**
+ * Tests {@link JiconIconFactory}.
+ */
+public class JiconIconFactoryTest {
+
+  private static final URL W3_SCHOOLS_ICO = getResourceUrl("/w3_schools.ico");
+
+  @Test
+  public void getIconWithoutPayload() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(W3_SCHOOLS_ICO);
+    assertIsW3SchoolsIco(icon);
+    assertFalse(icon.getPayload().isPresent());
+    assertArrayEquals(readW3SchoolsIco(), readFully(icon.openStream()));
+  }
+
+  @Test
+  public void getIconWithHeapPayload() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(W3_SCHOOLS_ICO,
+        PayloadBuffering.onHeap(1024 * 1024));
+    assertIsW3SchoolsIco(icon);
+    final ByteBuffer payload = icon.getPayload().orElseThrow(AssertionError::new);
+    assertFalse(payload.isDirect());
+    assertArrayEquals(readW3SchoolsIco(), toArray(payload));
+    assertArrayEquals(readW3SchoolsIco(), readFully(icon.openStream()));
+    assertArrayEquals(readW3SchoolsIco(), readFully(icon.openStream()));
+  }
+
+  @Test
+  public void getIconWithOffHeapPayload() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(W3_SCHOOLS_ICO,
+        PayloadBuffering.offHeap(1024 * 1024));
+    assertIsW3SchoolsIco(icon);
+    final ByteBuffer payload = icon.getPayload().orElseThrow(AssertionError::new);
+    assertTrue(payload.isDirect());
+    assertArrayEquals(readW3SchoolsIco(), readFully(icon.openStream()));
+  }
+
+  @Test
+  public void getIconOverPayloadCap() throws Exception {
+    final JiconIcon icon = JiconIconFactory.getIcon(W3_SCHOOLS_ICO, PayloadBuffering.onHeap(16));
+    assertIsW3SchoolsIco(icon);
+    assertFalse(icon.getPayload().isPresent());
+    assertArrayEquals(readW3SchoolsIco(), readFully(icon.openStream()));
+  }
+
+  private byte[] readW3SchoolsIco() throws IOException, URISyntaxException {
+    return Files.readAllBytes(Paths.get(W3_SCHOOLS_ICO.toURI()));
+  }
+
+  private byte[] toArray(final ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private byte[] readFully(final InputStream in) throws IOException {
+    try (InputStream toRead = in) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] chunk = new byte[100];
+      int read = toRead.read(chunk);
+      while (read != -1) {
+        out.write(chunk, 0, read);
+        read = toRead.read(chunk);
+      }
+      return out.toByteArray();
+    }
+  }
+
+}
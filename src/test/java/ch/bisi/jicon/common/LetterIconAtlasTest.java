@@ -0,0 +1,78 @@
+package ch.bisi.jicon.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+
+/**
+ * Tests {@link LetterIconAtlas}.
+ */
+public class LetterIconAtlasTest {
+
+  private static final int[] SIZES = {16, 33, 64, 100};
+  private static final String LETTERS = "AGMQWZ09";
+  private static final Color[] COLORS = {Color.CYAN, Color.BLACK, new Color(0x7F1A9C),
+      new Color(0x40FF8000, true)};
+
+  /**
+   * Tests that {@link LetterIcon#getImage()} produces the same pixels as drawing the icon through
+   * Java2D.
+   */
+  @Test
+  public void getImageMatchesJava2d() {
+    for (final int size : SIZES) {
+      for (final char letter : LETTERS.toCharArray()) {
+        for (final Color color : COLORS) {
+          assertArrayEquals(size + " " + letter + " " + color, getPixels(draw(size, letter, color)),
+              getPixels(new LetterIcon(size, letter, color).getImage()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that characters outside of the atlas are not painted from it.
+   */
+  @Test
+  public void paintUnsupportedLetter() {
+    final BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+    assertFalse(LetterIconAtlas.forSize(32).paint(image, Color.CYAN, '?', Color.BLACK));
+    assertArrayEquals(new int[32 * 32], getPixels(image));
+    assertArrayEquals(getPixels(draw(32, '?', Color.CYAN)),
+        getPixels(new LetterIcon(32, '?', Color.CYAN).getImage()));
+  }
+
+  /**
+   * Tests that the glyphs are rasterized only once.
+   */
+  @Test
+  public void getGlyph() {
+    final LetterIconAtlas atlas = LetterIconAtlas.forSize(48);
+    assertSame(atlas, LetterIconAtlas.forSize(48));
+    assertSame(atlas.getGlyph('K'), atlas.getGlyph('K'));
+  }
+
+  private static BufferedImage draw(final int size, final char letter, final Color color) {
+    final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D graphics = image.createGraphics();
+    graphics.setColor(color);
+    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+        RenderingHints.VALUE_ANTIALIAS_ON);
+    graphics.fill(new Ellipse2D.Float(0, 0, size, size));
+    LetterIcon.drawLetter(letter, size, ColorUtil.getForegroundColor(color), graphics);
+    graphics.dispose();
+    return image;
+  }
+
+  private static int[] getPixels(final BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+}
@@ -22,6 +22,16 @@ public class UtilTest {
     assertEquals(Util.getDomain(testUrl), testDomain);
   }
 
+  /**
+   * Tests {@link Util#getDomain(URL)} and {@link Util#getOrigin(URL)} with an explicit port.
+   */
+  @Test
+  public void getDomainDropsPortUnlikeOrigin() throws MalformedURLException {
+    final URL testUrl = new URL("http://localhost:8080/api/");
+    assertEquals("http://localhost", Util.getDomain(testUrl));
+    assertEquals(new URL("http://localhost:8080"), Util.getOrigin(testUrl));
+  }
+
   @Test
   public void getFirstLetter() throws Exception {
     final String testDomain = "http://www.adomain.com";
@@ -0,0 +1,94 @@
+package ch.bisi.jicon.fetcher.icon;
+
+import static ch.bisi.jicon.TestUtil.assertIsW3SchoolsIco;
+import static ch.bisi.jicon.TestUtil.getResourceUrl;
+import static ch.bisi.jicon.TestUtil.toFaviconLinks;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrentFaviconsFetcherTest {
+
+  @Mock
+  private LinksFetcher linksFetcher;
+
+  private ExecutorService executor;
+
+  /** A server accepting connections but never answering. **/
+  private ServerSocket silentServer;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newFixedThreadPool(4);
+    silentServer = new ServerSocket(0);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    silentServer.close();
+  }
+
+  @Test
+  public void getIconsKeepsLinksOrder() throws Exception {
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(
+        toFaviconLinks(getResourceUrl("/w3_schools.ico"),
+            new URL("http://www.nonexistent.com/fakepath"),
+            getResourceUrl("/icon08.ico")));
+    final ConcurrentFaviconsFetcher faviconsFetcher = new ConcurrentFaviconsFetcher(linksFetcher,
+        executor, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    final List<JiconIcon> retrievedIcons = faviconsFetcher.getIcons()
+        .collect(Collectors.toList());
+    assertEquals(2, retrievedIcons.size());
+    assertIsW3SchoolsIco(retrievedIcons.get(0));
+    assertEquals(getResourceUrl("/icon08.ico"), retrievedIcons.get(1).getUrl());
+  }
+
+  @Test
+  public void getIconsSkipsProbesExceedingRequestTimeout() throws Exception {
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(
+        toFaviconLinks(getSilentServerUrl(), getResourceUrl("/w3_schools.ico")));
+    final ConcurrentFaviconsFetcher faviconsFetcher = new ConcurrentFaviconsFetcher(linksFetcher,
+        executor, Duration.ofMillis(200), Duration.ofSeconds(10));
+    final List<JiconIcon> retrievedIcons = faviconsFetcher.getIcons()
+        .collect(Collectors.toList());
+    assertEquals(1, retrievedIcons.size());
+    assertIsW3SchoolsIco(retrievedIcons.get(0));
+  }
+
+  @Test
+  public void getIconsSkipsProbesExceedingOverallTimeout() throws Exception {
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(
+        toFaviconLinks(getResourceUrl("/w3_schools.ico"), getSilentServerUrl()));
+    final ConcurrentFaviconsFetcher faviconsFetcher = new ConcurrentFaviconsFetcher(linksFetcher,
+        executor, Duration.ofSeconds(30), Duration.ofMillis(500));
+    final long start = System.nanoTime();
+    final List<JiconIcon> retrievedIcons = faviconsFetcher.getIcons()
+        .collect(Collectors.toList());
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+    assertEquals(1, retrievedIcons.size());
+    assertIsW3SchoolsIco(retrievedIcons.get(0));
+  }
+
+  private URL getSilentServerUrl() throws Exception {
+    return new URL("http://localhost:" + silentServer.getLocalPort() + "/favicon.ico");
+  }
+
+}
@@ -2,13 +2,20 @@ package ch.bisi.jicon.fetcher.icon;
 
 import static ch.bisi.jicon.TestUtil.assertIsW3SchoolsIco;
 import static ch.bisi.jicon.TestUtil.getResourceUrl;
+import static ch.bisi.jicon.TestUtil.toFaviconLinks;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.when;
 
+import ch.bisi.jicon.common.ImageFormatNotSupportedException;
 import ch.bisi.jicon.common.JiconIcon;
+import ch.bisi.jicon.fetcher.link.FaviconLink;
 import ch.bisi.jicon.fetcher.link.LinksFetcher;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.junit.Test;
@@ -20,13 +27,16 @@ import org.mockito.runners.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class FaviconsFetcherTest {
 
+  private static final String ICON = "icon";
+  private static final String W3_SCHOOLS_ICO = "/w3_schools.ico";
+
   @Mock
   private LinksFetcher linksFetcher;
 
   @Test
   public void getMultipleIconsFromIcoFile() throws Exception {
-    when(linksFetcher.fetchLinks()).thenReturn(
-        Arrays.asList(getResourceUrl("/w3_schools.ico"),
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(
+        toFaviconLinks(getResourceUrl(W3_SCHOOLS_ICO),
                       new URL("http://www.nonexistent.com/fakepath")));
     FaviconsFetcher faviconsFetcher = new FaviconsFetcher(linksFetcher);
     List<JiconIcon> retrievedIcons = faviconsFetcher.getIcons().collect(Collectors.toList());
@@ -34,4 +44,52 @@ public class FaviconsFetcherTest {
     assertIsW3SchoolsIco(retrievedIcons.get(0));
   }
 
-}
\ No newline at end of file
+  @Test
+  public void getBestIconStopsAtTheFirstBigEnoughIcon() throws Exception {
+    final List<URL> loaded = new ArrayList<>();
+    final FaviconsFetcher faviconsFetcher = new FaviconsFetcher(linksFetcher) {
+      @Override
+      JiconIcon loadIcon(final URL url) throws ImageFormatNotSupportedException, IOException {
+        loaded.add(url);
+        return super.loadIcon(url);
+      }
+    };
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(Arrays.asList(
+        FaviconLink.of(getResourceUrl("/icon08.ico")),
+        new FaviconLink(new URL("file:/nonexistent/icon.svg"), ICON, "image/svg+xml", "any"),
+        new FaviconLink(getResourceUrl("/icon05.png"), ICON, "image/png", "32x32"),
+        new FaviconLink(getResourceUrl("/icon01.png"), ICON, "", "144x144"),
+        new FaviconLink(getResourceUrl("/icon04.png"), ICON, "", "129x129")));
+
+    assertEquals(getResourceUrl("/icon04.png"), faviconsFetcher.getBestIcon(100).get().getUrl());
+    assertEquals(Collections.singletonList(getResourceUrl("/icon04.png")), loaded);
+
+    loaded.clear();
+    assertEquals(getResourceUrl("/icon01.png"), faviconsFetcher.getBestIcon(200).get().getUrl());
+    assertEquals(4, loaded.size());
+    assertFalse(loaded.contains(new URL("file:/nonexistent/icon.svg")));
+  }
+
+  @Test
+  public void getCandidateLinksMergesAndSkipsLinks() throws Exception {
+    final FaviconLink declaredIco =
+        new FaviconLink(getResourceUrl("/icon08.ico"), ICON, "image/x-icon", "32x32");
+    final FaviconLink darkIco = new FaviconLink(getResourceUrl(W3_SCHOOLS_ICO), ICON, "", "",
+        "(prefers-color-scheme: dark)");
+    when(linksFetcher.fetchFaviconLinks()).thenReturn(Arrays.asList(
+        FaviconLink.of(getResourceUrl("/icon08.ico")),
+        FaviconLink.of(getResourceUrl(W3_SCHOOLS_ICO)),
+        new FaviconLink(new URL("file:/nonexistent/icon.svg"), ICON, "image/svg+xml", "any"),
+        declaredIco, darkIco,
+        new FaviconLink(getResourceUrl(W3_SCHOOLS_ICO), ICON, "", "")));
+    final FaviconsFetcher faviconsFetcher = new FaviconsFetcher(linksFetcher);
+    assertEquals(Arrays.asList(declaredIco, darkIco), faviconsFetcher.getCandidateLinks());
+    assertEquals(2, faviconsFetcher.getIcons().count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getBestIconRejectsNonPositiveSizes() throws Exception {
+    new FaviconsFetcher(linksFetcher).getBestIcon(0);
+  }
+
+}
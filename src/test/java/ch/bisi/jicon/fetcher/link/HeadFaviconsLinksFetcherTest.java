@@ -0,0 +1,112 @@
+package ch.bisi.jicon.fetcher.link;
+
+import static ch.bisi.jicon.TestUtil.getResourceStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HeadFaviconsLinksFetcher}.
+ */
+public class HeadFaviconsLinksFetcherTest {
+
+  @Test
+  public void fetchLinksAsJsoupForNewYorker() throws IOException {
+    assertSameLinksAsJsoup("/newyorker.html", "http://www.newyorker.com");
+  }
+
+  @Test
+  public void fetchLinksAsJsoupForNewYorkerWithBaseTag() throws IOException {
+    assertSameLinksAsJsoup("/newyorker_with_base_tag.html", "http://www.newyorker.com");
+  }
+
+  @Test
+  public void fetchLinksAsJsoupForDaringFireball() throws IOException {
+    assertSameLinksAsJsoup("/daringfireball.html", "http://daringfireball.net/");
+  }
+
+  @Test
+  public void scanStopsAtEndOfHead() throws IOException {
+    final String head = "<html><head><link rel=\"icon\" href=\"/head.png\"></head>";
+    final CountingReader reader = new CountingReader(
+        new StringReader(head + "<body><link rel=\"icon\" href=\"/body.png\"></body></html>"));
+    final List<URL> links = HeadFaviconsLinksFetcher
+        .scan(reader, new URL("http://www.example.com/")).fetchLinks();
+    assertEquals(new URL("http://www.example.com/head.png"), links.get(3));
+    assertEquals(4, links.size());
+    assertEquals(head.length(), reader.count);
+  }
+
+  @Test
+  public void scanSkipsCommentsScriptsAndEntities() throws IOException {
+    final String html = "<!DOCTYPE html><HTML><Head>"
+        + "<!-- <link rel=\"icon\" href=\"/comment.png\"> -->"
+        + "<script>document.write('<link rel=\"icon\" href=\"/script.png\">');</script>"
+        + "<title>Title with <body> inside</title>"
+        + "<LINK REL=' Shortcut Icon ' HREF=/favicon.ico?a=1&amp;b=2/>"
+        + "<link rel=\"stylesheet\" href=\"/style.css\">"
+        + "<link rel=icon href='/icon.png' rel=\"stylesheet\">"
+        + "</head><body></body></html>";
+    final List<URL> links = HeadFaviconsLinksFetcher
+        .scan(new StringReader(html), new URL("http://www.example.com/")).fetchLinks();
+    assertEquals(Arrays.asList(
+        new URL("http://www.example.com/favicon.ico"),
+        new URL("http://www.example.com/apple-touch-icon.png"),
+        new URL("http://www.example.com/apple-touch-icon-precomposed.png"),
+        new URL("http://www.example.com/icon.png"),
+        new URL("http://www.example.com/favicon.ico?a=1&b=2/")), links);
+  }
+
+  private void assertSameLinksAsJsoup(final String resource, final String location)
+      throws IOException {
+    final List<URL> expected = new JsoupFaviconsLinksFetcher(
+        Jsoup.parse(getResourceStream(resource), "UTF-8", location)).fetchLinks();
+    try (Reader reader = new InputStreamReader(getResourceStream(resource),
+        StandardCharsets.UTF_8)) {
+      final List<URL> links = HeadFaviconsLinksFetcher.scan(reader, new URL(location))
+          .fetchLinks();
+      assertTrue(links.size() > 3);
+      assertEquals(expected, links);
+    }
+  }
+
+  /**
+   * {@link Reader} counting the characters read.
+   */
+  private static class CountingReader extends FilterReader {
+
+    private int count;
+
+    CountingReader(final Reader in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int c = super.read();
+      if (c != -1) {
+        count++;
+      }
+      return c;
+    }
+
+    @Override
+    public int read(final char[] chars, final int offset, final int length) throws IOException {
+      final int read = super.read(chars, offset, length);
+      count += Math.max(0, read);
+      return read;
+    }
+  }
+
+}
@@ -2,9 +2,16 @@ package ch.bisi.jicon.fetcher.link;
 
 import static ch.bisi.jicon.TestUtil.assertUrlsContainPaths;
 import static ch.bisi.jicon.TestUtil.getResourceStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.awt.Dimension;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.jsoup.Jsoup;
 import org.junit.Test;
@@ -79,4 +86,40 @@ public class JsoupFaviconsLinksFetcherTest {
         "/graphics/favicon.ico?v=005");
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests getting the attributes of the favicons links.
+   *
+   * @throws IOException in case of problems reading the tests resources
+   */
+  @Test
+  public void getFaviconLinksForNewYorker() throws IOException {
+    final String newYorkerDomain = "http://www.newyorker.com";
+    final List<FaviconLink> faviconsLinks = new JsoupFaviconsLinksFetcher(
+        Jsoup.parse(getResourceStream("/newyorker.html"), StandardCharsets.UTF_8.name(),
+            newYorkerDomain)).fetchFaviconLinks();
+    assertEquals(FaviconLink.of(new URL(newYorkerDomain + "/favicon.ico")), faviconsLinks.get(0));
+    final FaviconLink precomposed = faviconsLinks.stream()
+        .filter(link -> link.getUrl().getPath().endsWith("-114x114-precomposed.png"))
+        .findFirst().orElseThrow(AssertionError::new);
+    assertEquals("apple-touch-icon-precomposed", precomposed.getRel());
+    assertEquals(Collections.singletonList(new Dimension(114, 114)), precomposed.getSizes());
+    assertFalse(precomposed.getType().isPresent());
+  }
+
+  /**
+   * Tests parsing the sizes attribute of a link.
+   *
+   * @throws IOException in case of problems building the link {@link URL}
+   */
+  @Test
+  public void parseSizes() throws IOException {
+    final FaviconLink link = new FaviconLink(new URL("http://www.a.com/icon.svg"), " Icon ",
+        "image/SVG+xml", "16x16 32X48 bogus 0x1 any");
+    assertEquals("icon", link.getRel());
+    assertEquals("image/svg+xml", link.getType().get());
+    assertEquals(Arrays.asList(new Dimension(16, 16), new Dimension(32, 48)), link.getSizes());
+    assertTrue(link.isScalable());
+    assertFalse(FaviconLink.of(new URL("http://www.a.com/favicon.ico")).isScalable());
+  }
+
+}
@@ -0,0 +1,202 @@
+package ch.bisi.jicon.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import ch.bisi.jicon.common.Util;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RevalidatingHttpTransportTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<Integer> statuses = new CopyOnWriteArrayList<>();
+
+  private volatile String etag = "\"v1\"";
+  private volatile String cacheControl = "no-cache";
+  private volatile byte[] icon = "icon v1".getBytes(StandardCharsets.UTF_8);
+
+  private HttpServer server;
+  private URL iconUrl;
+  private ResponseStore store;
+
+  /** Initialization executed before each test. **/
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/favicon.ico", this::sendIcon);
+    server.start();
+    iconUrl = new URL("http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort() + "/favicon.ico");
+    store = new FileResponseStore(temporaryFolder.getRoot().toPath());
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void getRevalidatesStoredResponses() throws Exception {
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertArrayEquals(icon, get(newTransport(NOW.plusSeconds(1))));
+    assertEquals(2, statuses.size());
+    assertEquals(200, (int) statuses.get(0));
+    assertEquals(304, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getReplacesModifiedResponses() throws Exception {
+    get(newTransport(NOW));
+    etag = "\"v2\"";
+    icon = "icon v2".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertEquals(3, statuses.size());
+    assertEquals(200, (int) statuses.get(1));
+    assertEquals(304, (int) statuses.get(2));
+  }
+
+  @Test
+  public void getReusesFreshResponses() throws Exception {
+    cacheControl = "public, max-age=60";
+    get(newTransport(NOW));
+    assertArrayEquals(icon, get(newTransport(NOW.plusSeconds(59))));
+    assertEquals(1, statuses.size());
+    get(newTransport(NOW.plusSeconds(60)));
+    assertEquals(2, statuses.size());
+    assertEquals(304, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getDoesNotStoreNoStoreResponses() throws Exception {
+    cacheControl = "no-store";
+    get(newTransport(NOW));
+    get(newTransport(NOW));
+    assertEquals(2, statuses.size());
+    assertEquals(200, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getIgnoresCorruptedResponses() throws Exception {
+    get(newTransport(NOW));
+    for (final File file : temporaryFolder.getRoot().listFiles()) {
+      try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+        out.seek(out.length() - icon.length - Integer.BYTES);
+        out.writeInt(Integer.MAX_VALUE);
+      }
+    }
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertEquals(2, statuses.size());
+    assertEquals(200, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getToleratesStoreFailures() throws Exception {
+    final ResponseStore fileStore = store;
+    store = new ResponseStore() {
+      @Override
+      public Optional<StoredResponse> get(final URL url) throws IOException {
+        return fileStore.get(url);
+      }
+
+      @Override
+      public void put(final URL url, final StoredResponse response) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    fileStore.put(iconUrl, new StoredResponse(iconUrl, null,
+        new CacheValidators(etag, null, cacheControl), NOW, icon));
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertEquals(304, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getToleratesUnreadableStore() throws Exception {
+    final ResponseStore fileStore = store;
+    store = new ResponseStore() {
+      @Override
+      public Optional<StoredResponse> get(final URL url) throws IOException {
+        throw new AccessDeniedException(url.toString());
+      }
+
+      @Override
+      public void put(final URL url, final StoredResponse response) throws IOException {
+        fileStore.put(url, response);
+      }
+    };
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertArrayEquals(icon, get(newTransport(NOW)));
+    assertEquals(2, statuses.size());
+    assertEquals(200, (int) statuses.get(1));
+  }
+
+  @Test
+  public void getMatchesWholeDirectives() throws Exception {
+    cacheControl = "x-no-cache-extension, max-age=60";
+    get(newTransport(NOW));
+    assertArrayEquals(icon, get(newTransport(NOW.plusSeconds(30))));
+    assertEquals(1, statuses.size());
+    cacheControl = "max-age=60, No-Cache=\"Set-Cookie\"";
+    get(newTransport(NOW.plusSeconds(60)));
+    get(newTransport(NOW.plusSeconds(61)));
+    assertEquals(3, statuses.size());
+  }
+
+  private HttpTransport newTransport(final Instant now) {
+    return new RevalidatingHttpTransport(HttpTransport.getDefault(), store,
+        RevalidatingHttpTransport.DEFAULT_MAX_BYTES, Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  private byte[] get(final HttpTransport transport) throws IOException {
+    try (HttpResponse response = transport.get(iconUrl, TIMEOUT)) {
+      return Util.readAtMost(response.getBody(), Long.MAX_VALUE);
+    }
+  }
+
+  private void sendIcon(final HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().add("ETag", etag);
+    exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+    final int status = etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))
+        ? 304 : 200;
+    statuses.add(status);
+    if (status == 304) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+    exchange.getResponseHeaders().add("Content-Type", "image/x-icon");
+    exchange.sendResponseHeaders(status, icon.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(icon);
+    }
+  }
+
+}
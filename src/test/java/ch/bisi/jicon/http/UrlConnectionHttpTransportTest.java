@@ -0,0 +1,124 @@
+package ch.bisi.jicon.http;
+
+import static org.junit.Assert.assertEquals;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UrlConnectionHttpTransportTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final String MISSING = "/missing";
+  private static final String PAGE = "<html><head></head></html>";
+
+  private final Set<InetSocketAddress> clients = ConcurrentHashMap.newKeySet();
+  private final HttpTransport transport = new UrlConnectionHttpTransport();
+
+  private HttpServer server;
+  private String domain;
+
+  /** Initialization executed before each test. **/
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      clients.add(exchange.getRemoteAddress());
+      exchange.getResponseHeaders().add("Location", "/home/");
+      send(exchange, 301, "moved".getBytes(StandardCharsets.UTF_8));
+    });
+    server.createContext("/home/", exchange -> {
+      clients.add(exchange.getRemoteAddress());
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=ISO-8859-1");
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      send(exchange, 200, gzip(PAGE.getBytes(StandardCharsets.UTF_8)));
+    });
+    server.createContext(MISSING, exchange -> {
+      clients.add(exchange.getRemoteAddress());
+      send(exchange, 404, "not found".getBytes(StandardCharsets.UTF_8));
+    });
+    server.start();
+    domain = "http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void getFollowsRedirectsAndDecompresses() throws Exception {
+    try (HttpResponse response = transport.get(new URL(domain + "/some/page"), TIMEOUT)) {
+      assertEquals(new URL(domain + "/home/"), response.getUrl());
+      assertEquals(StandardCharsets.ISO_8859_1, response.getCharset().get());
+      assertEquals(PAGE, new String(readAll(response.getBody()), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void getFailsOnErrorStatus() throws Exception {
+    transport.get(new URL(domain + MISSING), TIMEOUT).close();
+  }
+
+  @Test
+  public void getReusesConnections() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      try (HttpResponse response = transport.get(new URL(domain + "/"), TIMEOUT)) {
+        readAll(response.getBody());
+      }
+      assertEquals("HTTP error 404 fetching " + domain + MISSING, getMissing());
+    }
+    assertEquals(1, clients.size());
+  }
+
+  private String getMissing() throws Exception {
+    try {
+      transport.get(new URL(domain + MISSING), TIMEOUT).close();
+      return null;
+    } catch (IOException e) {
+      return e.getMessage();
+    }
+  }
+
+  private static void send(final HttpExchange exchange, final int status, final byte[] body)
+      throws IOException {
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static byte[] gzip(final byte[] bytes) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] readAll(final InputStream in) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[256];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+}
@@ -0,0 +1,176 @@
+package ch.bisi.jicon.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentBlobStoreTest {
+
+  private static final String DOMAIN = "http://a.com/";
+  private static final int SEGMENT_BYTES = 256;
+  private static final String ICON = "icon";
+  private static final String PNG = "png";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+  private BlobKey iconKey;
+  private BlobKey pngKey;
+
+  /** Initialization executed before each test. **/
+  @Before
+  public void setUp() throws Exception {
+    directory = temporaryFolder.getRoot().toPath().resolve("blobs");
+    iconKey = BlobKey.ofFile(DOMAIN, new URL(DOMAIN + "favicon.ico"));
+    pngKey = new BlobKey(DOMAIN, new URL(DOMAIN + "favicon.ico"), 0);
+  }
+
+  @Test
+  public void putAndGet() throws Exception {
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      store.put(iconKey, blob(ICON));
+      store.put(pngKey, blob(PNG));
+      assertEquals(ICON, read(store.get(iconKey)));
+      assertEquals(PNG, read(store.get(pngKey)));
+      assertFalse(store.get(new BlobKey(DOMAIN, new URL(DOMAIN + "favicon.ico"), 1))
+          .isPresent());
+    }
+  }
+
+  @Test
+  public void openReadsTheSegments() throws Exception {
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      store.put(iconKey, blob("old icon"));
+      store.put(pngKey, blob(PNG));
+      store.put(iconKey, blob(ICON));
+      assertTrue(store.delete(pngKey));
+      assertFalse(store.delete(pngKey));
+    }
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertEquals(ICON, read(store.get(iconKey)));
+      assertFalse(store.get(pngKey).isPresent());
+      assertEquals(1, store.keySet().size());
+    }
+  }
+
+  @Test
+  public void putStartsNewSegments() throws Exception {
+    final String big = new String(new char[SEGMENT_BYTES * 2]).replace('\0', 'x');
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      for (int i = 0; i < 10; i++) {
+        store.put(new BlobKey(DOMAIN, new URL(DOMAIN + "icon.ico"), i), blob("image " + i));
+      }
+      store.put(iconKey, blob(big));
+      assertEquals(big, read(store.get(iconKey)));
+    }
+    assertTrue(countSegments() > 2);
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertEquals(11, store.keySet().size());
+      assertEquals("image 9",
+          read(store.get(new BlobKey(DOMAIN, new URL(DOMAIN + "icon.ico"), 9))));
+      assertEquals(big, read(store.get(iconKey)));
+    }
+  }
+
+  @Test
+  public void compactDeletesGarbage() throws Exception {
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      for (int i = 0; i < 20; i++) {
+        store.put(iconKey, blob("icon " + i));
+        store.put(pngKey, blob("png " + i));
+      }
+      store.delete(pngKey);
+      final long segments = countSegments();
+      final ByteBuffer compactedIcon = store.get(iconKey).get();
+      assertTrue(store.getGarbageBytes() > 0);
+      store.compact();
+      assertTrue(countSegments() < segments);
+      assertEquals("icon 19", read(Optional.of(compactedIcon)));
+      assertEquals("icon 19", read(store.get(iconKey)));
+    }
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertEquals("icon 19", read(store.get(iconKey)));
+      assertFalse(store.get(pngKey).isPresent());
+    }
+  }
+
+  @Test
+  public void openDeletesMarkedSegments() throws Exception {
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      store.put(iconKey, blob(ICON));
+    }
+    final Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.findFirst().get();
+    }
+    Files.createFile(segment.resolveSibling(segment.getFileName() + ".deleted"));
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertFalse(store.get(iconKey).isPresent());
+      assertEquals(0, countSegments());
+      store.put(pngKey, blob(PNG));
+      assertEquals(PNG, read(store.get(pngKey)));
+    }
+  }
+
+  @Test
+  public void openStopsAtCorruptedRecord() throws Exception {
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      store.put(iconKey, blob(ICON));
+      store.put(pngKey, blob(PNG));
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      final Path segment = files.findFirst().get();
+      final byte[] bytes = Files.readAllBytes(segment);
+      final String content = new String(bytes, StandardCharsets.ISO_8859_1);
+      bytes[content.indexOf(PNG)] = 'P';
+      Files.write(segment, bytes);
+    }
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertEquals(ICON, read(store.get(iconKey)));
+      assertFalse(store.get(pngKey).isPresent());
+      store.put(pngKey, blob("new png"));
+    }
+    try (SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES)) {
+      assertEquals("new png", read(store.get(pngKey)));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void putFailsWhenClosed() throws Exception {
+    final SegmentBlobStore store = SegmentBlobStore.open(directory, SEGMENT_BYTES);
+    store.close();
+    store.put(iconKey, blob(ICON));
+  }
+
+  private long countSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private static ByteBuffer blob(final String content) {
+    return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(final Optional<ByteBuffer> blob) {
+    final ByteBuffer buffer = blob.get().duplicate();
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}